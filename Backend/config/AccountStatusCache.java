@@ -0,0 +1,64 @@
+package com.example.demo.config;
+
+import com.example.demo.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Whether a token's user may still act, used by {@link JWTAuthenticationFilter}.
+ *
+ * Tokens stay valid until they expire, so a disabled or deleted account would otherwise keep
+ * working. The answer is read from the users row at most once per
+ * {@code security.account-status.refresh-ms} per user; on the node that disables an account it
+ * takes effect immediately, on the others within that interval.
+ */
+@Component
+public class AccountStatusCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${security.account-status.refresh-ms:30000}")
+    private long refreshMs;
+
+    private final Map<Long, Status> statuses = new ConcurrentHashMap<>();
+
+    /**
+     * @return true if the account is disabled or no longer exists
+     */
+    public boolean isDisabled(Long userId) {
+        long now = System.currentTimeMillis();
+        Status status = statuses.get(userId);
+        if (status == null || now - status.loadedAt > refreshMs) {
+            boolean disabled = userRepository.findDisabledById(userId).orElse(true);
+            status = new Status(disabled, now);
+            statuses.put(userId, status);
+        }
+        return status.disabled;
+    }
+
+    public void markDisabled(Long userId) {
+        statuses.put(userId, new Status(true, System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${security.account-status.refresh-ms:30000}")
+    public void sweep() {
+        long staleBefore = System.currentTimeMillis() - refreshMs;
+        statuses.values().removeIf(status -> status.loadedAt < staleBefore);
+    }
+
+    private static final class Status {
+        final boolean disabled;
+        final long loadedAt;
+
+        Status(boolean disabled, long loadedAt) {
+            this.disabled = disabled;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
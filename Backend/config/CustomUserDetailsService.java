@@ -26,6 +26,7 @@ public class CustomUserDetailsService  implements UserDetailsService {
         com.example.demo.model.User  user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
-        return new User(user.getEmail(), user.getPassword(), new ArrayList<>());
+        // A disabled account fails authentication with DisabledException.
+        return new User(user.getEmail(), user.getPassword(), !user.isDisabled(), true, true, true, new ArrayList<>());
     }
 }
\ No newline at end of file
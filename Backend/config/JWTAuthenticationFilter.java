@@ -1,9 +1,9 @@
 package com.example.demo.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
@@ -14,15 +14,21 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
 
 public class JWTAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
     private JWTGenerator tokenGenerator;
 
+    @Autowired
+    private JwtClaimsCache claimsCache;
+
+    @Autowired
+    private JwtKeyManager keyManager;
+
+    @Autowired
+    private AccountStatusCache accountStatus;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -31,25 +37,31 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
             filterChain.doFilter(request, response);
             return;
         }
+        long start = System.nanoTime();
         String jwt = getJWTFromRequest(request);
-        if (StringUtils.hasText(jwt) && tokenGenerator.validateToken(jwt)) {
-            Claims claims = tokenGenerator.getClaimsFromToken(jwt);
-            String username = claims.getSubject();
-            List<SimpleGrantedAuthority> authorities = extractAuthorities(claims);
-
-            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(username, null, authorities);
-            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        try {
+            if (StringUtils.hasText(jwt)) {
+                // One parse and signature check per distinct token; repeats come from the cache.
+                JwtClaimsCache.VerifiedToken verified = claimsCache.get(jwt);
+                if (verified == null) {
+                    Jws<Claims> jws = tokenGenerator.parseVerifiedJws(jwt);
+                    verified = claimsCache.put(jwt, jws.getBody(), keyManager.validUntil(jws.getHeader().getKeyId()));
+                }
+                // Tokens of disabled or deleted accounts are treated as absent.
+                Long userId = verified.getPrincipal().getId();
+                if (userId == null || !accountStatus.isDisabled(userId)) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            verified.getPrincipal(), null, verified.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
+            }
+        } finally {
+            claimsCache.recordFilterTime(System.nanoTime() - start);
         }
         filterChain.doFilter(request, response);
     }
 
-    private List<SimpleGrantedAuthority> extractAuthorities(Claims claims) {
-        return Arrays.stream(claims.get("role", String.class).split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
-    }
-
     private String getJWTFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
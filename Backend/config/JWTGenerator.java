@@ -6,12 +6,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolver;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 
 import io.jsonwebtoken.io.Serializer;
 import io.jsonwebtoken.jackson.io.JacksonSerializer;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.core.Authentication;
@@ -25,11 +27,20 @@ import java.util.Map;
 
 @Component
 public class JWTGenerator {
-    private static final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
-
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JwtKeyManager keyManager;
+
+    // Picks the key by the token's kid header; see JwtKeyManager.
+    private final SigningKeyResolver keyResolver = new SigningKeyResolverAdapter() {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            return keyManager.resolveVerificationKey(header.getKeyId(), header.getAlgorithm());
+        }
+    };
+
     public String generateToken(Authentication authentication) {
         String username = authentication.getName();
         User user = userRepository.findByEmail(username)
@@ -53,8 +64,9 @@ public class JWTGenerator {
                 .claim("expiry", user.getSubscriptionExpiry())
                 .setIssuedAt(currentDate)
                 .setExpiration(expireDate)
+                .setHeaderParam(JwsHeader.KEY_ID, keyManager.getActiveKid())
                 .serializeToJsonWith(serializer)
-                .signWith(key, SignatureAlgorithm.HS512)
+                .signWith(keyManager.getSigningKey(), keyManager.getAlgorithm())
                 .compact();
 
         System.out.println("New token:");
@@ -63,36 +75,41 @@ public class JWTGenerator {
     }
 
     public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(key)
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return parseVerified(token).getSubject();
     }
 
     public Long getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(key)
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("userId", Long.class);
+        return parseVerified(token).get("userId", Long.class);
     }
 
     public Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(key)
-                .parseClaimsJws(token)
-                .getBody();
+        return parseVerified(token);
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Parses and verifies the token once, returning its claims.
+     *
+     * @throws AuthenticationCredentialsNotFoundException if the token is expired or invalid
+     */
+    public Claims parseVerified(String token) {
+        return parseVerifiedJws(token).getBody();
+    }
+
+    /**
+     * Like {@link #parseVerified} but also exposes the header, e.g. the kid the token was signed with.
+     */
+    public Jws<Claims> parseVerifiedJws(String token) {
         try {
-            Jwts.parser()
-                    .setSigningKey(key)
+            return Jwts.parser()
+                    .setSigningKeyResolver(keyResolver)
                     .parseClaimsJws(token);
-            return true;
         } catch (Exception e) {
             throw new AuthenticationCredentialsNotFoundException("JWT was expired or incorrect", e);
         }
     }
+
+    public boolean validateToken(String token) {
+        parseVerified(token);
+        return true;
+    }
 }
@@ -0,0 +1,153 @@
+package com.example.demo.config;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of verified JWTs, keyed by the SHA-256 of the raw token.
+ *
+ * A token is parsed and its signature checked once; afterwards requests carrying the same token
+ * reuse the {@link UserPrincipal} and authority list built from it until the token's own
+ * expiry. Only exact byte-for-byte matches hit, so a cached entry is as trustworthy as a fresh
+ * verification. The cache also keeps the filter's timing counters reported at
+ * /api/admin/auth/filter-stats.
+ */
+@Component
+public class JwtClaimsCache {
+
+    @Value("${security.jwt.claims-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final LinkedHashMap<String, VerifiedToken> entries = new LinkedHashMap<String, VerifiedToken>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder filterRequests = new LongAdder();
+    private final LongAdder filterNanos = new LongAdder();
+
+    /**
+     * @return the verified token, or null if it was never seen or has expired
+     */
+    public VerifiedToken get(String token) {
+        String key = digest(token);
+        synchronized (this) {
+            VerifiedToken verified = entries.get(key);
+            if (verified != null && verified.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                verified = null;
+            }
+            if (verified == null) {
+                misses.increment();
+            } else {
+                hits.increment();
+            }
+            return verified;
+        }
+    }
+
+    /**
+     * Builds the cached form of claims that were just verified for {@code token} and stores it.
+     * The entry lives until the token expires or, if sooner, {@code keyValidUntil} (epoch millis)
+     * when its signing key is retired.
+     */
+    public VerifiedToken put(String token, Claims claims, long keyValidUntil) {
+        UserPrincipal principal = new UserPrincipal(
+                claims.get("userId", Long.class), claims.getSubject(), claims.get("role", String.class));
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : 0L;
+        VerifiedToken verified = new VerifiedToken(principal, authorities(claims), Math.min(expiresAt, keyValidUntil));
+        if (verified.expiresAt > System.currentTimeMillis()) {
+            String key = digest(token);
+            synchronized (this) {
+                entries.put(key, verified);
+            }
+        }
+        return verified;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public void recordFilterTime(long nanos) {
+        filterRequests.increment();
+        filterNanos.add(nanos);
+    }
+
+    public Map<String, Long> stats() {
+        long requests = filterRequests.sum();
+        long nanos = filterNanos.sum();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", (long) entries.size());
+        }
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("filterRequests", requests);
+        stats.put("filterTotalMicros", nanos / 1_000);
+        stats.put("filterAvgNanos", requests > 0 ? nanos / requests : 0L);
+        return stats;
+    }
+
+    private static List<SimpleGrantedAuthority> authorities(Claims claims) {
+        String roles = claims.get("role", String.class);
+        if (roles == null) {
+            return Collections.emptyList();
+        }
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+        for (String role : roles.split(",")) {
+            authorities.add(new SimpleGrantedAuthority(role));
+        }
+        return Collections.unmodifiableList(authorities);
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    public static final class VerifiedToken {
+        private final UserPrincipal principal;
+        private final List<SimpleGrantedAuthority> authorities;
+        private final long expiresAt;
+
+        VerifiedToken(UserPrincipal principal, List<SimpleGrantedAuthority> authorities, long expiresAt) {
+            this.principal = principal;
+            this.authorities = authorities;
+            this.expiresAt = expiresAt;
+        }
+
+        public UserPrincipal getPrincipal() {
+            return principal;
+        }
+
+        // Unmodifiable and shared between requests.
+        public List<SimpleGrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
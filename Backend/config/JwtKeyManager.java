@@ -0,0 +1,244 @@
+package com.example.demo.config;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.*;
+import java.security.cert.Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Signing and verification keys for JWTs, shared by every instance that is given the same
+ * configuration.
+ *
+ * Keys are identified by a key id ({@code kid}) written into each token header. They come from
+ * a keystore file ({@code security.jwt.keystore.*}, one alias per kid) and/or from properties:
+ * {@code security.jwt.hmac-keys=kid:base64,...} for HS512, or, with
+ * {@code security.jwt.algorithm=RS256}, {@code security.jwt.rsa.public-keys=kid:base64,...}
+ * plus an optional {@code security.jwt.rsa.private-key}. New tokens are signed with
+ * {@code security.jwt.active-kid}; every other loaded key still verifies.
+ *
+ * To rotate, add the new key, make it active and list the old kid in
+ * {@code security.jwt.retired-kids=kid@2026-01-31T00:00:00Z}: tokens signed with it keep
+ * working until that instant. In RS256 mode a node without the private key only verifies, so
+ * the signing secret can stay on the nodes that issue tokens. With nothing configured a random
+ * key is generated, which (as before) does not survive a restart or work across instances.
+ */
+@Component
+public class JwtKeyManager {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyManager.class);
+
+    @Value("${security.jwt.algorithm:HS512}")
+    private String algorithmName;
+
+    @Value("${security.jwt.active-kid:}")
+    private String activeKid;
+
+    @Value("${security.jwt.hmac-keys:}")
+    private String hmacKeys;
+
+    @Value("${security.jwt.rsa.public-keys:}")
+    private String rsaPublicKeys;
+
+    // PKCS#8, base64 or PEM; belongs to the active kid.
+    @Value("${security.jwt.rsa.private-key:}")
+    private String rsaPrivateKey;
+
+    @Value("${security.jwt.keystore.path:}")
+    private String keystorePath;
+
+    @Value("${security.jwt.keystore.type:PKCS12}")
+    private String keystoreType;
+
+    @Value("${security.jwt.keystore.password:}")
+    private String keystorePassword;
+
+    @Value("${security.jwt.retired-kids:}")
+    private String retiredKids;
+
+    private SignatureAlgorithm algorithm;
+    private final Map<String, Key> verificationKeys = new HashMap<>();
+    private final Map<String, Instant> retirements = new HashMap<>();
+    private Key signingKey;
+
+    @PostConstruct
+    public void load() {
+        algorithm = SignatureAlgorithm.forName(algorithmName);
+        if (algorithm != SignatureAlgorithm.HS512 && algorithm != SignatureAlgorithm.RS256) {
+            throw new IllegalStateException("Unsupported security.jwt.algorithm: " + algorithmName);
+        }
+        try {
+            if (!keystorePath.isEmpty()) {
+                loadKeystore();
+            }
+            if (algorithm == SignatureAlgorithm.HS512) {
+                for (Map.Entry<String, String> entry : pairs(hmacKeys, ':').entrySet()) {
+                    byte[] secret = decode(entry.getValue());
+                    if (secret.length < 64) {
+                        throw new IllegalStateException("HS512 key " + entry.getKey() + " must be at least 64 bytes");
+                    }
+                    verificationKeys.put(entry.getKey(), new SecretKeySpec(secret, "HmacSHA512"));
+                }
+            } else {
+                KeyFactory rsa = KeyFactory.getInstance("RSA");
+                for (Map.Entry<String, String> entry : pairs(rsaPublicKeys, ':').entrySet()) {
+                    verificationKeys.put(entry.getKey(),
+                            rsa.generatePublic(new X509EncodedKeySpec(decode(entry.getValue()))));
+                }
+                if (!rsaPrivateKey.isEmpty()) {
+                    signingKey = rsa.generatePrivate(new PKCS8EncodedKeySpec(decode(rsaPrivateKey)));
+                }
+            }
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Could not load JWT keys", e);
+        }
+        for (Map.Entry<String, String> entry : pairs(retiredKids, '@').entrySet()) {
+            retirements.put(entry.getKey(), Instant.parse(entry.getValue()));
+        }
+
+        if (verificationKeys.isEmpty()) {
+            if (algorithm != SignatureAlgorithm.HS512) {
+                throw new IllegalStateException("No RS256 public keys configured");
+            }
+            log.warn("No JWT keys configured; using a random key. Tokens will not survive a restart "
+                    + "or be accepted by other instances.");
+            activeKid = "ephemeral";
+            SecretKey random = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+            verificationKeys.put(activeKid, random);
+        }
+        if (activeKid.isEmpty() && verificationKeys.size() == 1) {
+            activeKid = verificationKeys.keySet().iterator().next();
+        }
+        if (!verificationKeys.containsKey(activeKid)) {
+            throw new IllegalStateException("security.jwt.active-kid '" + activeKid + "' is not a loaded key");
+        }
+        if (retirements.containsKey(activeKid)) {
+            throw new IllegalStateException("The active JWT key '" + activeKid + "' is marked as retired");
+        }
+        if (algorithm == SignatureAlgorithm.HS512) {
+            signingKey = verificationKeys.get(activeKid);
+        }
+        log.info("JWT keys loaded: algorithm={}, active kid={}, kids={}, signing={}",
+                algorithm.getValue(), activeKid, verificationKeys.keySet(), canSign());
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    public boolean canSign() {
+        return signingKey != null;
+    }
+
+    /**
+     * @throws IllegalStateException on verification-only nodes
+     */
+    public Key getSigningKey() {
+        if (signingKey == null) {
+            throw new IllegalStateException("This instance only verifies tokens; no JWT signing key is configured");
+        }
+        return signingKey;
+    }
+
+    /**
+     * Key for a token header. Tokens without a kid are checked against the active key.
+     *
+     * @throws JwtException if the algorithm is not the configured one, the kid is unknown or
+     *                      the key has been retired
+     */
+    public Key resolveVerificationKey(String kid, String alg) {
+        if (!algorithm.getValue().equals(alg)) {
+            throw new JwtException("Unexpected JWT algorithm: " + alg);
+        }
+        String id = kid != null ? kid : activeKid;
+        Key key = verificationKeys.get(id);
+        if (key == null) {
+            throw new JwtException("Unknown JWT key id: " + id);
+        }
+        Instant retiresAt = retirements.get(id);
+        if (retiresAt != null && !Instant.now().isBefore(retiresAt)) {
+            throw new JwtException("JWT key " + id + " was retired at " + retiresAt);
+        }
+        return key;
+    }
+
+    /**
+     * Epoch millis after which tokens signed with {@code kid} stop verifying, or Long.MAX_VALUE.
+     */
+    public long validUntil(String kid) {
+        Instant retiresAt = retirements.get(kid != null ? kid : activeKid);
+        return retiresAt != null ? retiresAt.toEpochMilli() : Long.MAX_VALUE;
+    }
+
+    private void loadKeystore() throws GeneralSecurityException, IOException {
+        char[] password = keystorePassword.toCharArray();
+        KeyStore keyStore = KeyStore.getInstance(keystoreType);
+        try (InputStream in = Files.newInputStream(Paths.get(keystorePath))) {
+            keyStore.load(in, password);
+        }
+        List<String> aliases = Collections.list(keyStore.aliases());
+        // Resolved here rather than in load() so a single RS256 key entry also becomes the signing key.
+        if (activeKid.isEmpty() && aliases.size() == 1) {
+            activeKid = aliases.get(0);
+        }
+        for (String alias : aliases) {
+            if (keyStore.isKeyEntry(alias)) {
+                Key key = keyStore.getKey(alias, password);
+                if (key instanceof SecretKey && algorithm == SignatureAlgorithm.HS512) {
+                    verificationKeys.put(alias, new SecretKeySpec(key.getEncoded(), "HmacSHA512"));
+                } else if (key instanceof PrivateKey && algorithm == SignatureAlgorithm.RS256) {
+                    Certificate certificate = keyStore.getCertificate(alias);
+                    verificationKeys.put(alias, certificate.getPublicKey());
+                    if (alias.equals(activeKid)) {
+                        signingKey = key;
+                    }
+                }
+            } else if (algorithm == SignatureAlgorithm.RS256) {
+                verificationKeys.put(alias, keyStore.getCertificate(alias).getPublicKey());
+            }
+        }
+    }
+
+    // "a:x,b:y" -> {a=x, b=y}
+    private static Map<String, String> pairs(String value, char separator) {
+        Map<String, String> pairs = new LinkedHashMap<>();
+        for (String item : value.split(",")) {
+            String trimmed = item.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int split = trimmed.indexOf(separator);
+            if (split <= 0) {
+                throw new IllegalStateException("Expected <kid>" + separator + "<value> but got: " + trimmed);
+            }
+            pairs.put(trimmed.substring(0, split).trim(), trimmed.substring(split + 1).trim());
+        }
+        return pairs;
+    }
+
+    // Accepts plain base64 or a PEM block.
+    private static byte[] decode(String value) {
+        String base64 = value.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles requests right after {@link JWTAuthenticationFilter}, so signed-in users are limited
+ * by user id and tier and everyone else by IP. Over-budget requests get 429 with Retry-After
+ * (seconds) and never reach the controllers. Admins and preflight requests are not limited.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    // Only behind a proxy that sets the header itself; otherwise clients can pick their own key.
+    @Value("${rate-limit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!enabled || "OPTIONS".equals(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Long userId = null;
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                if ("ADMIN".equals(authority.getAuthority())) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+            }
+            userId = ((UserPrincipal) authentication.getPrincipal()).getId();
+        }
+
+        RateLimiter.Route route = RateLimiter.routeFor(request.getMethod(), request.getRequestURI());
+        long waitNanos = rateLimiter.acquire(route, userId, userId == null ? clientIp(request) : null);
+        if (waitNanos > 0) {
+            long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(seconds));
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Too many requests. Try again in " + seconds + " seconds.");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isEmpty()) {
+                int comma = forwarded.indexOf(',');
+                return (comma >= 0 ? forwarded.substring(0, comma) : forwarded).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
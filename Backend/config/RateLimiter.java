@@ -0,0 +1,261 @@
+package com.example.demo.config;
+
+import com.example.demo.model.User;
+import com.example.demo.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets per client and route, used by {@link RateLimitFilter}.
+ *
+ * Each bucket is a single AtomicLong holding the time at which it will be full again (GCRA):
+ * a request is admitted if adding one more interval keeps that time within the bucket's
+ * capacity, and the update is one compareAndSet, so there are no locks on the request path.
+ * A bucket that has refilled completely is indistinguishable from a new one and is dropped by
+ * the sweep. Once {@code rate-limit.max-buckets} is reached, new clients share one overflow
+ * bucket per route and tier until the next sweep.
+ *
+ * Budgets are set per route and tier as {@code rate-limit.<route>=anonymous:10/1m,free:60/1m,...}
+ * (requests per s, m or h); a bucket holds one period's worth. Anonymous clients are keyed by
+ * IP, signed-in users by id with their current subscription tier, refreshed every
+ * {@code rate-limit.tier-refresh-ms}.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    public enum Route {
+        AUTH("anonymous:10/1m,free:10/1m,plus:10/1m,pro:10/1m"),
+        LIKE("anonymous:30/1m,free:60/1m,plus:120/1m,pro:240/1m"),
+        GENERATION("anonymous:2/1m,free:5/1m,plus:15/1m,pro:30/1m"),
+        MODERATION("anonymous:5/1m,free:10/1m,plus:30/1m,pro:60/1m"),
+        DEFAULT("anonymous:120/1m,free:300/1m,plus:600/1m,pro:1200/1m");
+
+        final String defaults;
+
+        Route(String defaults) {
+            this.defaults = defaults;
+        }
+
+        String property() {
+            return "rate-limit." + name().toLowerCase();
+        }
+    }
+
+    // Index 0 is anonymous, then one per subscription tier.
+    private static final String[] TIERS = {"anonymous", "free", "plus", "pro"};
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${rate-limit.max-buckets:100000}")
+    private int maxBuckets;
+
+    @Value("${rate-limit.tier-refresh-ms:60000}")
+    private long tierRefreshMs;
+
+    private final Limit[][] limits = new Limit[Route.values().length][TIERS.length];
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong[][] overflow = new AtomicLong[Route.values().length][TIERS.length];
+    private final Map<Long, CachedTier> tiers = new ConcurrentHashMap<>();
+    private final LongAdder[] allowed = new LongAdder[Route.values().length];
+    private final LongAdder[] rejected = new LongAdder[Route.values().length];
+
+    @PostConstruct
+    public void load() {
+        for (Route route : Route.values()) {
+            String spec = environment.getProperty(route.property(), route.defaults);
+            Map<String, Limit> parsed = parse(route.defaults);
+            parsed.putAll(parse(spec));
+            for (int tier = 0; tier < TIERS.length; tier++) {
+                limits[route.ordinal()][tier] = parsed.get(TIERS[tier]);
+                overflow[route.ordinal()][tier] = new AtomicLong(Long.MIN_VALUE);
+            }
+            allowed[route.ordinal()] = new LongAdder();
+            rejected[route.ordinal()] = new LongAdder();
+        }
+        log.info("Rate limits: {}", describe());
+    }
+
+    public static Route routeFor(String method, String path) {
+        if (!"POST".equals(method)) {
+            return Route.DEFAULT;
+        }
+        if (path.equals("/api/auth/login") || path.equals("/api/auth/register")
+                || path.equals("/api/auth/googleLogin") || path.equals("/api/auth/verify-otp")
+                || path.equals("/api/auth/resend-otp") || path.startsWith("/api/auth/forgot-password")) {
+            return Route.AUTH;
+        }
+        if (path.startsWith("/api/recipes/") && path.endsWith("/like")) {
+            return Route.LIKE;
+        }
+        if (path.equals("/api/generation-event") || path.startsWith("/api/recipe-generation")) {
+            return Route.GENERATION;
+        }
+        if (path.equals("/api/moderate-image") || path.equals("/api/moderation/jobs")) {
+            return Route.MODERATION;
+        }
+        return Route.DEFAULT;
+    }
+
+    /**
+     * Takes one token for the client.
+     *
+     * @param userId the signed-in user, or null to key by {@code ip}
+     * @return 0 if the request may proceed, otherwise nanoseconds until it would
+     */
+    public long acquire(Route route, Long userId, String ip) {
+        int tier = userId != null ? tierOf(userId).ordinal() + 1 : 0;
+        Limit limit = limits[route.ordinal()][tier];
+        String key = userId != null
+                ? route.ordinal() + ":u" + userId
+                : route.ordinal() + ":" + ip;
+
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.size() < maxBuckets
+                    ? buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE))
+                    : overflow[route.ordinal()][tier];
+        }
+        long wait = take(bucket, limit, System.nanoTime());
+        (wait == 0 ? allowed : rejected)[route.ordinal()].increment();
+        return wait;
+    }
+
+    private static long take(AtomicLong bucket, Limit limit, long now) {
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + limit.intervalNanos;
+            long wait = next - now - limit.windowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private User.SubscriptionType tierOf(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedTier cached = tiers.get(userId);
+        if (cached == null || now - cached.loadedAt > tierRefreshMs) {
+            User.SubscriptionType tier = userRepository.findSubscriptionTypeById(userId)
+                    .orElse(User.SubscriptionType.FREE);
+            cached = new CachedTier(tier, now);
+            tiers.put(userId, cached);
+        }
+        return cached.tier;
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() <= now);
+        long staleBefore = System.currentTimeMillis() - tierRefreshMs;
+        tiers.values().removeIf(cached -> cached.loadedAt < staleBefore);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("buckets", buckets.size());
+        stats.put("cachedTiers", tiers.size());
+        for (Route route : Route.values()) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("allowed", allowed[route.ordinal()].sum());
+            counts.put("rejected", rejected[route.ordinal()].sum());
+            stats.put(route.name().toLowerCase(), counts);
+        }
+        stats.put("limits", describe());
+        return stats;
+    }
+
+    private Map<String, String> describe() {
+        Map<String, String> described = new LinkedHashMap<>();
+        for (Route route : Route.values()) {
+            StringBuilder spec = new StringBuilder();
+            for (int tier = 0; tier < TIERS.length; tier++) {
+                Limit limit = limits[route.ordinal()][tier];
+                spec.append(tier > 0 ? "," : "").append(TIERS[tier]).append(':').append(limit.spec);
+            }
+            described.put(route.name().toLowerCase(), spec.toString());
+        }
+        return described;
+    }
+
+    // "anonymous:10/1m,free:60/1m" -> {anonymous=10/1m, free=60/1m}
+    private static Map<String, Limit> parse(String spec) {
+        Map<String, Limit> parsed = new LinkedHashMap<>();
+        for (String item : spec.split(",")) {
+            String trimmed = item.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] tierAndRate = trimmed.split(":");
+            String[] rate = tierAndRate.length == 2 ? tierAndRate[1].trim().split("/") : new String[0];
+            if (rate.length != 2) {
+                throw new IllegalStateException("Expected <tier>:<requests>/<period> but got: " + trimmed);
+            }
+            parsed.put(tierAndRate[0].trim().toLowerCase(),
+                    new Limit(Integer.parseInt(rate[0].trim()), period(rate[1].trim()), tierAndRate[1].trim()));
+        }
+        return parsed;
+    }
+
+    private static long period(String value) {
+        String amount = value.substring(0, value.length() - 1);
+        long count = amount.isEmpty() ? 1 : Long.parseLong(amount);
+        switch (value.charAt(value.length() - 1)) {
+            case 's':
+                return TimeUnit.SECONDS.toNanos(count);
+            case 'm':
+                return TimeUnit.MINUTES.toNanos(count);
+            case 'h':
+                return TimeUnit.HOURS.toNanos(count);
+            default:
+                throw new IllegalStateException("Unknown rate limit period: " + value);
+        }
+    }
+
+    private static final class Limit {
+        final long intervalNanos;
+        final long windowNanos;
+        final String spec;
+
+        Limit(int requests, long periodNanos, String spec) {
+            if (requests <= 0) {
+                throw new IllegalStateException("Rate limit must allow at least one request: " + spec);
+            }
+            this.intervalNanos = periodNanos / requests;
+            this.windowNanos = intervalNanos * requests;
+            this.spec = spec;
+        }
+    }
+
+    private static final class CachedTier {
+        final User.SubscriptionType tier;
+        final long loadedAt;
+
+        CachedTier(User.SubscriptionType tier, long loadedAt) {
+            this.tier = tier;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -72,6 +72,7 @@ public class SecurityConfig {
                 .httpBasic();
 
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(rateLimitFilter(), JWTAuthenticationFilter.class);
         return http.build();
     }
     @Bean
@@ -112,4 +113,9 @@ public class SecurityConfig {
     public  JWTAuthenticationFilter jwtAuthenticationFilter() {
         return new JWTAuthenticationFilter();
     }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.example.demo.config;
+
+import java.io.Serializable;
+import java.security.Principal;
+
+/**
+ * Identity of the authenticated caller as carried by the JWT: user id, email and role.
+ *
+ * Set as the principal of the request's Authentication, so {@code authentication.getName()}
+ * still returns the email. Immutable and shared by every request presenting the same token.
+ */
+public final class UserPrincipal implements Principal, Serializable {
+
+    private final Long id;
+    private final String email;
+    private final String role;
+
+    public UserPrincipal(Long id, String email, String role) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
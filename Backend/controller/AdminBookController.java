@@ -7,6 +7,7 @@ import com.example.demo.model.User;
 import com.example.demo.repositories.BookRepository;
 import com.example.demo.repositories.RecipeRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.service.QuotaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -35,6 +36,9 @@ public class AdminBookController {
     @Autowired
     private RecipeRepository recipeRepository;
 
+    @Autowired
+    private QuotaService quotaService;
+
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get books by user ID (admin access)")
     @ApiResponses(value = {
@@ -105,6 +109,7 @@ public class AdminBookController {
             recipe.getBooks().remove(book);
         }
         bookRepository.delete(book);
+        quotaService.invalidateAfterCommit(book.getAuthor().getId());
         return ResponseEntity.noContent().build();
     }
 
@@ -1,12 +1,18 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.JwtClaimsCache;
+import com.example.demo.config.RateLimiter;
+import com.example.demo.dto.AdminUserQuery;
+import com.example.demo.dto.OutboxEmailDTO;
 import com.example.demo.dto.RecipeDTO;
+import com.example.demo.dto.ScheduledJobDTO;
 import com.example.demo.dto.StatsDTO;
 import com.example.demo.dto.UserActivityDTO;
 import com.example.demo.dto.UserDTO;
+import com.example.demo.model.AccountDeletion;
+import com.example.demo.model.JobRun;
 import com.example.demo.model.Recipe;
 import com.example.demo.model.User;
-import com.example.demo.repositories.RecipeRepository;
 import com.example.demo.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -32,13 +39,103 @@ public class AdminController {
 
     @Autowired
     private ReviewReportService reviewReportService;
+
+    @Autowired
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @Autowired
+    private RecipeDetailCache recipeDetailCache;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private JwtClaimsCache jwtClaimsCache;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private UserDirectoryService userDirectoryService;
+
+    @Autowired
+    private AccountDeletionService accountDeletionService;
     public AdminController(UserService userService) {
         this.userService = userService;
     }
 
 
+    @PostMapping("/search/reindex")
+    public ResponseEntity<Map<String, Integer>> reindexRecipes() {
+        return ResponseEntity.ok(Map.of("indexed", recipeSearchIndex.reindexAll()));
+    }
+
+
+    @GetMapping("/cache/recipes")
+    public ResponseEntity<Map<String, Long>> getRecipeCacheStats() {
+        return ResponseEntity.ok(recipeDetailCache.stats());
+    }
+
+
+    @GetMapping("/auth/filter-stats")
+    public ResponseEntity<Map<String, Long>> getAuthFilterStats() {
+        return ResponseEntity.ok(jwtClaimsCache.stats());
+    }
+
+    @GetMapping("/rate-limit/stats")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimiter.stats());
+    }
+
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<ScheduledJobDTO>> getJobs() {
+        return ResponseEntity.ok(scheduledJobRunner.getJobs());
+    }
+
+    @GetMapping("/jobs/{name}/runs")
+    public ResponseEntity<List<JobRun>> getJobRuns(@PathVariable String name,
+                                                   @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(scheduledJobRunner.getRuns(name, Math.max(1, Math.min(limit, 200))));
+    }
+
+    @PostMapping("/jobs/{name}/run")
+    public ResponseEntity<Void> runJob(@PathVariable String name) {
+        scheduledJobRunner.trigger(name);
+        return ResponseEntity.accepted().build();
+    }
+
+
+    @GetMapping("/mail/outbox")
+    public ResponseEntity<Map<String, Long>> getOutboxStats() {
+        return ResponseEntity.ok(emailOutboxService.stats());
+    }
+
+    @GetMapping("/mail/outbox/dead")
+    public ResponseEntity<List<OutboxEmailDTO>> getDeadLetters(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(emailOutboxService.getDeadLetters(Math.max(1, Math.min(limit, 500))));
+    }
+
+    @PostMapping("/mail/outbox/{id}/retry")
+    public ResponseEntity<Void> retryOutboxEmail(@PathVariable Long id) {
+        emailOutboxService.retry(id);
+        return ResponseEntity.noContent().build();
+    }
+
+
+    /**
+     * Without {@code paged=true} this returns every user (compatibility mode); otherwise one page
+     * of the directory, filtered and sorted by the {@link AdminUserQuery} parameters.
+     */
     @GetMapping("/users")
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(@RequestParam(defaultValue = "false") boolean paged,
+                                         @ModelAttribute AdminUserQuery query) {
+        if (paged) {
+            return ResponseEntity.ok(userDirectoryService.getPage(query));
+        }
         return ResponseEntity.ok(userService.getAllUsers());
     }
 
@@ -55,17 +152,20 @@ public class AdminController {
 
         List<Recipe> userRecipes = recipeService.getRecipesByUserEmail(user.getEmail());
 
-        List<RecipeDTO> recipeDTOs = userRecipes.stream()
-                .map(recipeService::mapEntityToDTO)
-                .collect(Collectors.toList());
+        List<RecipeDTO> recipeDTOs = recipeService.mapEntitiesToDTOs(userRecipes);
 
         return ResponseEntity.ok(recipeDTOs);
     }
 
     @DeleteMapping("/users/{id}")
-    public ResponseEntity<String> deleteUser(@PathVariable Long id) {
-        userService.deleteUser(id);
-        return ResponseEntity.ok("User deleted successfully");
+    public ResponseEntity<AccountDeletion> deleteUser(@PathVariable Long id) {
+        // The account is disabled now; poll /users/{id}/deletion for progress.
+        return ResponseEntity.accepted().body(accountDeletionService.request(id));
+    }
+
+    @GetMapping("/users/{id}/deletion")
+    public ResponseEntity<AccountDeletion> getUserDeletion(@PathVariable Long id) {
+        return ResponseEntity.ok(accountDeletionService.getStatus(id));
     }
     @GetMapping("/stats")
     public ResponseEntity<StatsDTO> getGlobalStats() {
@@ -88,10 +188,10 @@ public class AdminController {
         );
     }
     @Autowired
-    private RecipeRepository recipeRepository;
+    private SocialService socialService;
 
     @GetMapping("/active-users")
     public ResponseEntity<List<UserActivityDTO>> getTopActiveUsers() {
-        return ResponseEntity.ok(recipeRepository.findTopFollowedUsers());
+        return ResponseEntity.ok(socialService.getTopCreators());
     }
 }
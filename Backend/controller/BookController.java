@@ -1,7 +1,9 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.BookDTO;
+import com.example.demo.dto.RecipeView;
 import com.example.demo.service.BookService;
+import com.example.demo.service.RecipeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +22,9 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private RecipeService recipeService;
+
     @PostMapping
     @PreAuthorize("isAuthenticated()")
     @Operation(summary = "Create a new book", description = "Creates a new book of recipes.")
@@ -68,6 +73,19 @@ public class BookController {
         return ResponseEntity.ok(bookDTO);
     }
 
+    @GetMapping("/{id}/recipes")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Get the recipes of a book", description = "Lists the recipes of a book; view=card returns compact cards.")
+    public ResponseEntity<List<?>> getBookRecipes(@PathVariable Long id,
+                                                  @RequestParam(defaultValue = "full") String view) {
+        // Also enforces the visibility rules of a single book.
+        BookDTO book = bookService.getBookById(id);
+        if (RecipeView.parse(view) == RecipeView.CARD) {
+            return ResponseEntity.ok(recipeService.getBookRecipeCards(id));
+        }
+        return ResponseEntity.ok(recipeService.mapEntitiesToDTOs(recipeService.getRecipesByIds(book.getRecipeIds())));
+    }
+
     @GetMapping
     @PreAuthorize("isAuthenticated()")
     @Operation(summary = "Get all books", description = "Retrieves all books of the authenticated user.")
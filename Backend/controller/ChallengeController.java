@@ -2,6 +2,7 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.ChallengeDTO;
 import com.example.demo.dto.RecipeDTO;
+import com.example.demo.dto.RecipeView;
 import com.example.demo.model.FeaturedWinner;
 import com.example.demo.model.GlobalLeaderboardEntry;
 import com.example.demo.model.Recipe;
@@ -36,13 +37,14 @@ public class ChallengeController {
 
     @GetMapping("/{id}/submitted")
     @Operation(summary = "Get submitted recipes", description = "Retrieves all submitted recipes for a challenge")
-    public ResponseEntity<List<RecipeDTO>> getSubmittedRecipes(@PathVariable Long id) {
+    public ResponseEntity<List<?>> getSubmittedRecipes(@PathVariable Long id,
+                                                       @RequestParam(defaultValue = "full") String view) {
         System.out.println("Fetching submitted recipes for Challenge ID: " + id);
+        if (RecipeView.parse(view) == RecipeView.CARD) {
+            return ResponseEntity.ok(recipeService.getSubmittedRecipeCards(id));
+        }
 
-        List<RecipeDTO> submittedRecipes = challengeService.getSubmittedRecipes(id)
-                .stream()
-                .map(recipeService::mapEntityToDTO)
-                .collect(Collectors.toList());
+        List<RecipeDTO> submittedRecipes = recipeService.mapEntitiesToDTOs(challengeService.getSubmittedRecipes(id));
 
         System.out.println("Found " + submittedRecipes.size() + " submitted recipes for Challenge ID: " + id);
 
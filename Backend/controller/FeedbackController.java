@@ -1,6 +1,7 @@
 
 package com.example.demo.controller;
 
+import com.example.demo.config.UserPrincipal;
 import com.example.demo.dto.FeedbackDTO;
 import com.example.demo.model.Feedback;
 import com.example.demo.model.FeedbackMessage;
@@ -8,16 +9,16 @@ import com.example.demo.model.User;
 import com.example.demo.repositories.FeedbackMessageRepository;
 import com.example.demo.repositories.FeedbackRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.service.CurrentUser;
+import com.example.demo.service.EmailOutboxService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import javax.transaction.Transactional;
+
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -38,22 +39,22 @@ public class FeedbackController {
     private FeedbackMessageRepository feedbackMessageRepository;
 
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private CurrentUser currentUser;
 
     private static final String SUPPORT_EMAIL = "jawhar.maatouk1@gmail.com";
 
     @PostMapping
+    @Transactional
     public ResponseEntity<String> submitFeedback(@RequestBody FeedbackDTO feedbackDTO) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
-
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        UserPrincipal user = currentUser.get();
 
         Feedback feedback = new Feedback(user.getId(), feedbackDTO.getComment());
         feedbackRepository.save(feedback);
 
-        sendFeedbackEmail(user, feedback);
+        sendFeedbackEmail(user, userRepository.findUsernameById(user.getId()).orElse(""), feedback);
 
         return new ResponseEntity<>("Feedback submitted successfully", HttpStatus.CREATED);
     }
@@ -80,17 +81,15 @@ public class FeedbackController {
         return ResponseEntity.ok(dtos);
     }
 
-    private void sendFeedbackEmail(User user, Feedback feedback) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(SUPPORT_EMAIL);
-        message.setSubject("New Feedback from " + user.getUsername());
-        message.setText("User ID: " + user.getId() + "\n" +
-                "Username: " + user.getUsername() + "\n" +
+    private void sendFeedbackEmail(UserPrincipal user, String username, Feedback feedback) {
+        emailOutboxService.enqueue(SUPPORT_EMAIL,
+                "New Feedback from " + username,
+                "User ID: " + user.getId() + "\n" +
+                "Username: " + username + "\n" +
                 "Email: " + user.getEmail() + "\n\n" +
                 "Feedback:\n" + feedback.getComment() + "\n\n" +
-                "Submitted at: " + feedback.getCreatedAt());
-
-        mailSender.send(message);
+                "Submitted at: " + feedback.getCreatedAt(),
+                "feedback:" + feedback.getId());
     }
     @GetMapping("/{feedbackId}/conversation")
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -140,15 +139,13 @@ public class FeedbackController {
         User user = userRepository.findById(feedback.getUserId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(user.getEmail());
-        message.setSubject("Response to your feedback");
-        message.setText("Dear " + user.getUsername() + ",\n\n" +
+        emailOutboxService.enqueue(user.getEmail(),
+                "Response to your feedback",
+                "Dear " + user.getUsername() + ",\n\n" +
                 "Thank you for your feedback:\n" + feedback.getComment() + "\n\n" +
                 "Our reply:\n" + reply + "\n\n" +
-                "Best regards,\nThe LeGourmand Support Team");
-
-        mailSender.send(message);
+                "Best regards,\nThe LeGourmand Support Team",
+                null);
 
         return ResponseEntity.ok("Reply sent successfully");
     }
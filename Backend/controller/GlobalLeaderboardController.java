@@ -19,7 +19,7 @@ public class GlobalLeaderboardController {
 
     @GetMapping
     public ResponseEntity<List<GlobalLeaderboardEntry>> getGlobalLeaderboard() {
-        List<GlobalLeaderboardEntry> leaderboard = leaderboardRepository.findAll();
+        List<GlobalLeaderboardEntry> leaderboard = leaderboardRepository.findAllByOrderByTotalPointsDescEarliestSubmissionIdAsc();
         return ResponseEntity.ok(leaderboard);
     }
 
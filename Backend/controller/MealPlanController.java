@@ -1,13 +1,16 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.MealPlanBatchRequest;
 import com.example.demo.dto.MealPlanDTO;
 import com.example.demo.dto.NoteDTO;
 import com.example.demo.service.MealPlanService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,11 +22,30 @@ public class MealPlanController {
     @Autowired
     private MealPlanService mealPlanService;
 
+    // With from and to, one entry per day of the range (empty days included); without, every stored plan.
     @GetMapping
-    public ResponseEntity<List<MealPlanDTO>> getAllMealPlans(Authentication authentication) {
+    public ResponseEntity<List<MealPlanDTO>> getAllMealPlans(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication authentication
+    ) {
         String userEmail = authentication.getName();
-        List<MealPlanDTO> mealPlans = mealPlanService.getAllMealPlans(userEmail);
-        return ResponseEntity.ok(mealPlans);
+        if (from == null && to == null) {
+            return ResponseEntity.ok(mealPlanService.getAllMealPlans(userEmail));
+        }
+        if (from == null || to == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Both from and to are required");
+        }
+        return ResponseEntity.ok(mealPlanService.getMealPlans(userEmail, from, to));
+    }
+
+    @PostMapping("/recipes/batch")
+    public ResponseEntity<Void> updateMealPlans(
+            @RequestBody MealPlanBatchRequest request,
+            Authentication authentication
+    ) {
+        mealPlanService.updateMealPlans(authentication.getName(), request);
+        return ResponseEntity.ok().build();
     }
 
     @GetMapping("/{date}")
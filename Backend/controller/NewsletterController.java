@@ -1,17 +1,20 @@
 
 package com.example.demo.controller;
 
+import com.example.demo.dto.NewsletterJobDTO;
 import com.example.demo.model.NewsletterSubscription;
 import com.example.demo.repositories.NewsletterSubscriptionRepository;
+import com.example.demo.service.EmailOutboxService;
+import com.example.demo.service.NewsletterDeliveryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import javax.transaction.Transactional;
+
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,11 +28,15 @@ public class NewsletterController {
     private NewsletterSubscriptionRepository newsletterRepository;
 
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private NewsletterDeliveryService newsletterDeliveryService;
 
     private static final String SUPPORT_EMAIL = "jawhar.maatouk1@gmail.com";
 
     @PostMapping("/subscribe")
+    @Transactional
     public ResponseEntity<String> subscribe(Authentication authentication) {
         String userEmail = authentication.getName();
 
@@ -60,18 +67,22 @@ public class NewsletterController {
 
         String finalMessage = messageBody + signature;
 
-        List<NewsletterSubscription> allSubs = newsletterRepository.findAll();
-        int count = allSubs.size();
+        NewsletterJobDTO job = newsletterDeliveryService.startJob("LeGourmand Newsletter", finalMessage);
 
-        for (NewsletterSubscription sub : allSubs) {
-            SimpleMailMessage msg = new SimpleMailMessage();
-            msg.setTo(sub.getEmail());
-            msg.setSubject("LeGourmand Newsletter");
-            msg.setText(finalMessage);
-            mailSender.send(msg);
-        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body("Newsletter job " + job.getId() + " queued for " + job.getTotal() + " subscribers.");
+    }
 
-        return ResponseEntity.ok("Bulk message sent to " + count + " subscribers.");
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/admin/jobs")
+    public ResponseEntity<List<NewsletterJobDTO>> getNewsletterJobs() {
+        return ResponseEntity.ok(newsletterDeliveryService.getJobs());
+    }
+
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/admin/jobs/{id}")
+    public ResponseEntity<NewsletterJobDTO> getNewsletterJob(@PathVariable Long id) {
+        return ResponseEntity.ok(newsletterDeliveryService.getJob(id));
     }
 
     @GetMapping("/isSubscribed")
@@ -82,6 +93,7 @@ public class NewsletterController {
     }
 
     @PostMapping("/unsubscribe")
+    @Transactional
     public ResponseEntity<String> unsubscribe(Authentication authentication) {
         String userEmail = authentication.getName();
 
@@ -98,20 +110,16 @@ public class NewsletterController {
     }
 
     private void sendConfirmationEmail(String recipientEmail) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(recipientEmail);
-        message.setSubject("Welcome to LeGourmand Newsletter!");
-        message.setText("Thank you for subscribing to the LeGourmand newsletter. Stay tuned for the latest recipes and updates!");
-
-        mailSender.send(message);
+        emailOutboxService.enqueue(recipientEmail,
+                "Welcome to LeGourmand Newsletter!",
+                "Thank you for subscribing to the LeGourmand newsletter. Stay tuned for the latest recipes and updates!",
+                "newsletter-subscribe:" + recipientEmail);
     }
 
     private void sendUnsubscribeEmail(String recipientEmail) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(recipientEmail);
-        message.setSubject("Unsubscribed from LeGourmand Newsletter");
-        message.setText("You have successfully unsubscribed from the LeGourmand newsletter. We're sorry to see you go!");
-
-        mailSender.send(message);
+        emailOutboxService.enqueue(recipientEmail,
+                "Unsubscribed from LeGourmand Newsletter",
+                "You have successfully unsubscribed from the LeGourmand newsletter. We're sorry to see you go!",
+                "newsletter-unsubscribe:" + recipientEmail);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.QuotaSummaryDTO;
+import com.example.demo.service.CurrentUser;
+import com.example.demo.service.QuotaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/quota")
+public class QuotaController {
+
+    @Autowired
+    private QuotaService quotaService;
+
+    @Autowired
+    private CurrentUser currentUser;
+
+    // The caller's tier with limit, usage and remaining for recipes, books and generations.
+    @GetMapping
+    public ResponseEntity<QuotaSummaryDTO> getQuotas() {
+        return ResponseEntity.ok(quotaService.getQuotas(currentUser.getId()));
+    }
+}
@@ -87,6 +87,8 @@ public class RecipeController {
     private RecipeReportService recipeReportService;
     @Autowired
     private RecipeService recipeService;
+    @Autowired
+    private LikeCounterService likeCounterService;
 
     private final String APPWRITE_ENDPOINT = "https://cloud.appwrite.io/v1";
     private final String BUCKET_ID = "67b7edd400131c188c97";
@@ -126,7 +128,7 @@ public class RecipeController {
     @GetMapping("/{id}/likes")
     public ResponseEntity<Integer> getRecipeLikes(@PathVariable Long id) {
         Recipe recipe = recipeService.getRecipeById(id);
-        return ResponseEntity.ok(recipe.getLikes());
+        return ResponseEntity.ok(likeCounterService.currentLikes(id, recipe.getLikes()));
     }
 
     @PutMapping("/{id}")
@@ -193,18 +195,27 @@ public class RecipeController {
 
     @GetMapping("/{id}")
     public ResponseEntity<RecipeDTO> getRecipeById(@PathVariable Long id) {
-        Recipe recipe = recipeService.getRecipeById(id);
-        RecipeDTO recipeDTO = recipeService.mapEntityToDTO(recipe);
-        return ResponseEntity.ok(recipeDTO);
+        return ResponseEntity.ok(recipeService.getRecipeDetail(id));
     }
 
 
+    /**
+     * Without {@code paged=true} this returns every recipe (compatibility mode); otherwise a
+     * keyset page filtered and sorted by the {@link RecipePageQuery} parameters.
+     * {@code view=card} returns {@link RecipeCardDTO}s instead of full DTOs.
+     */
     @GetMapping
-    public ResponseEntity<List<RecipeDTO>> getAllRecipes() {
-        List<RecipeDTO> recipeDTOs = recipeService.getAllRecipes()
-                .stream()
-                .map(recipeService::mapEntityToDTO)
-                .collect(Collectors.toList());
+    public ResponseEntity<?> getAllRecipes(@RequestParam(defaultValue = "false") boolean paged,
+                                           @RequestParam(defaultValue = "full") String view,
+                                           @ModelAttribute RecipePageQuery query) {
+        boolean cards = RecipeView.parse(view) == RecipeView.CARD;
+        if (paged) {
+            return ResponseEntity.ok(cards ? recipeService.getRecipeCardPage(query) : recipeService.getRecipePage(query));
+        }
+        if (cards) {
+            return ResponseEntity.ok(recipeService.getAllRecipeCards());
+        }
+        List<RecipeDTO> recipeDTOs = recipeService.mapEntitiesToDTOs(recipeService.getAllRecipes());
         return ResponseEntity.ok(recipeDTOs);
     }
 
@@ -230,11 +241,36 @@ public class RecipeController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Recipe>> searchRecipes(@RequestParam String title) {
+    public ResponseEntity<?> searchRecipes(@RequestParam String title,
+                                           @RequestParam(defaultValue = "false") boolean paged,
+                                           @RequestParam(defaultValue = "full") String view,
+                                           @ModelAttribute RecipePageQuery query) {
+        boolean cards = RecipeView.parse(view) == RecipeView.CARD;
+        if (paged) {
+            query.setTitle(title);
+            return ResponseEntity.ok(cards ? recipeService.getRecipeCardPage(query) : recipeService.getRecipePage(query));
+        }
+        if (cards) {
+            return ResponseEntity.ok(recipeService.searchRecipeCardsByTitle(title));
+        }
         List<Recipe> recipes = recipeService.searchRecipesByTitle(title);
         return ResponseEntity.ok(recipes);
     }
 
+    /**
+     * Relevance-ranked search over public recipes (title, tags, cuisine, difficulty and
+     * ingredients), with optional facet filters and facet counts in the response.
+     */
+    @GetMapping("/search/v2")
+    public ResponseEntity<RecipeSearchResultDTO> searchRecipesRanked(@RequestParam(defaultValue = "") String q,
+                                                                     @RequestParam(required = false) String cuisine,
+                                                                     @RequestParam(required = false) String difficulty,
+                                                                     @RequestParam(required = false) String tag,
+                                                                     @RequestParam(defaultValue = "0") int page,
+                                                                     @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(recipeService.searchRecipes(q, cuisine, difficulty, tag, page, size));
+    }
+
     private String uploadFileToAppwrite(java.io.File file, String fileName) throws IOException {
         String url = APPWRITE_ENDPOINT + "/storage/buckets/" + BUCKET_ID + "/files";
 
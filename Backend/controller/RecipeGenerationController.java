@@ -4,14 +4,12 @@ package com.example.demo.controller;
 import com.example.demo.dto.RecipeDTO;
 
 import com.example.demo.model.Recipe;
-import com.example.demo.model.User;
+import com.example.demo.service.CurrentUser;
 import com.example.demo.service.RecipeGenerationService;
 import com.example.demo.service.SubscriptionLimitException;
-import com.example.demo.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -22,14 +20,12 @@ public class RecipeGenerationController {
     private RecipeGenerationService recipeGenerationService;
 
     @Autowired
-    private UserService userService;
+    private CurrentUser currentUser;
 
     @PostMapping
-    public ResponseEntity<?> generateRecipe(@RequestBody String ingredients, Authentication authentication) {
-        String userEmail = authentication.getName();
-        User user = userService.getUserEntityByEmail(userEmail);
+    public ResponseEntity<?> generateRecipe(@RequestBody String ingredients) {
         try {
-            Recipe recipe = recipeGenerationService.generateRecipeWithLimitCheck(user, ingredients);
+            Recipe recipe = recipeGenerationService.generateRecipeWithLimitCheck(currentUser.getId(), ingredients);
             RecipeDTO dto = mapToDto(recipe);
             return new ResponseEntity<>(dto, HttpStatus.CREATED);
         } catch (SubscriptionLimitException ex) {
@@ -10,6 +10,8 @@ import org.slf4j.LoggerFactory;
 import com.example.demo.dto.*;
 import com.example.demo.model.SubscriptionRequest;
 import com.example.demo.model.User;
+import com.example.demo.service.RecipeService;
+import com.example.demo.service.SocialService;
 import com.example.demo.service.UserService;
 import io.appwrite.Client;
 import io.appwrite.exceptions.AppwriteException;
@@ -82,6 +84,12 @@ public class UserController {
 
     private JWTGenerator jwtGenerator;
 
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private SocialService socialService;
+
     Authentication authentication;
 
     @Autowired
@@ -111,11 +119,9 @@ public class UserController {
         if (authentication != null) {
             String currentUserEmail = authentication.getName();
 
-            User currentUser = userService.getUserEntityByEmail(currentUserEmail);
-
-            User targetUser = userService.getUserEntityById(id);
-
-            boolean isFollowed = currentUser.getFollowing().contains(targetUser);
+            boolean isFollowed = userRepository.findIdByEmail(currentUserEmail)
+                    .map(currentUserId -> socialService.isFollowing(currentUserId, id))
+                    .orElse(false);
             userDTO.setFollowed(isFollowed);
         } else {
             userDTO.setFollowed(false);
@@ -129,12 +135,32 @@ public class UserController {
 
         String currentUserEmail = authentication.getName();
 
-        User currentUser = userService.getUserEntityByEmail(currentUserEmail);
+        Long currentUserId = userRepository.findIdByEmail(currentUserEmail)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found with id: " + userId);
+        }
+
+        return ResponseEntity.ok(socialService.isFollowing(currentUserId, userId));
+    }
 
-        User targetUser = userService.getUserEntityById(userId);
+    @GetMapping("/{userId}/followers")
+    public ResponseEntity<FollowPageDTO> getFollowers(@PathVariable Long userId,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(socialService.getFollowers(userId, cursor, limit));
+    }
 
-        boolean isFollowing = currentUser.getFollowing().contains(targetUser);
-        return ResponseEntity.ok(isFollowing);
+    @GetMapping("/{userId}/following")
+    public ResponseEntity<FollowPageDTO> getFollowing(@PathVariable Long userId,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(socialService.getFollowing(userId, cursor, limit));
+    }
+
+    @GetMapping("/top-creators")
+    public ResponseEntity<List<UserActivityDTO>> getTopCreators() {
+        return ResponseEntity.ok(socialService.getTopCreators());
     }
 
     @GetMapping("/profile")
@@ -265,11 +291,11 @@ public class UserController {
         return ResponseEntity.ok(updatedUser);
     }
     @DeleteMapping("/{id}")
-    @Operation(summary = "Delete user", description = "Deletes a user by their ID.")
-    @ApiResponse(responseCode = "204", description = "User deleted successfully")
+    @Operation(summary = "Delete user", description = "Disables the user at once and deletes their data in the background.")
+    @ApiResponse(responseCode = "202", description = "User disabled, deletion scheduled")
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
         userService.deleteUser(id);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.accepted().build();
     }
     @DeleteMapping("/profile/avatar")
     public ResponseEntity<Void> deleteAvatar(Authentication authentication) {
@@ -399,8 +425,12 @@ public class UserController {
     @ApiResponse(responseCode = "200", description = "Favorite recipes retrieved successfully",
             content = @Content(mediaType = "application/json",
                     schema = @Schema(implementation = FavoriteRecipeDTO.class)))
-    public ResponseEntity<List<FavoriteRecipeDTO>> getFavoriteRecipes(Authentication authentication) {
+    public ResponseEntity<List<?>> getFavoriteRecipes(Authentication authentication,
+                                                      @RequestParam(defaultValue = "full") String view) {
         String userEmail = authentication.getName();
+        if (RecipeView.parse(view) == RecipeView.CARD) {
+            return ResponseEntity.ok(recipeService.getFavoriteRecipeCards(userEmail));
+        }
         List<FavoriteRecipeDTO> favoriteRecipes = userService.getFavoriteRecipes(userEmail);
         return ResponseEntity.ok(favoriteRecipes);
     }
@@ -0,0 +1,37 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the admin user directory. Built by a projection query, so it carries no
+ * credentials and loads none of the user's collections.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdminUserDTO {
+    private Long id;
+    private String email;
+    private String username;
+    private String role;
+    private String subscriptionType;
+    private LocalDateTime subscriptionExpiry;
+    private boolean verified;
+    private String imageUri;
+    private int recipeGenerationCount;
+    private long followerCount;
+    private long followingCount;
+
+    // Used by UserRepository.findAdminPage.
+    public AdminUserDTO(Long id, String email, String username, String role, User.SubscriptionType subscriptionType,
+                        LocalDateTime subscriptionExpiry, boolean verified, String imageUri,
+                        int recipeGenerationCount, int followerCount, int followingCount) {
+        this(id, email, username, role, subscriptionType.name(), subscriptionExpiry, verified, imageUri,
+                recipeGenerationCount, (long) followerCount, (long) followingCount);
+    }
+}
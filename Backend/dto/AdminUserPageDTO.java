@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdminUserPageDTO {
+    private List<AdminUserDTO> items;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+}
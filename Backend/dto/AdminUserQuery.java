@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Query parameters of the paged admin user directory. Every filter is optional.
+ */
+@Data
+@NoArgsConstructor
+public class AdminUserQuery {
+    // id, username, email, role, tier, expiry or followers
+    private String sort = "id";
+    // asc or desc
+    private String direction = "asc";
+    private Integer page;
+    private Integer size;
+    private String role;
+    private String tier;
+    private Boolean verified;
+    // Prefix of the username or email
+    private String q;
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowPageDTO {
+    private List<FollowUserDTO> items;
+    // Pass back as ?cursor= to get the next page; null on the last page.
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+// One entry of a follower/following list.
+public class FollowUserDTO {
+    private Long id;
+    private String username;
+    private String imageUri;
+    private int followerCount;
+}
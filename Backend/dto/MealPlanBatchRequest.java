@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recipes to add to and remove from the caller's meal plans, across any number of dates.
+ * Removals are applied after additions.
+ */
+@Data
+@NoArgsConstructor
+public class MealPlanBatchRequest {
+    private List<Entry> add = new ArrayList<>();
+    private List<Entry> remove = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private LocalDate date;
+        private Long recipeId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ModerationJobDTO {
+    private String jobId;
+    // PENDING, DONE or FAILED
+    private String status;
+    // Null until the job is DONE.
+    private Boolean isAppropriate;
+    // True if the verdict came from an earlier check of the same image content.
+    private boolean cached;
+    private String error;
+}
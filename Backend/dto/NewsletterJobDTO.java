@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NewsletterJobDTO {
+    private Long id;
+    // QUEUED, RUNNING, DONE or FAILED
+    private String status;
+    // Subscribers when the job was created.
+    private int total;
+    private int sent;
+    // Recipients the SMTP server rejected; they are not retried.
+    private int failed;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
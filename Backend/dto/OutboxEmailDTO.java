@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbox message as shown to admins. The body is left out: it can hold one-time codes and
+ * password reset links.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEmailDTO {
+    private Long id;
+    private String recipient;
+    private String subject;
+    // PENDING, SENT or DEAD
+    private String status;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QuotaDTO {
+    // -1 when the tier has no limit (limit and remaining).
+    private int limit;
+    private int used;
+    private int remaining;
+    private boolean allowed;
+    // When usage goes back to zero; null for quotas that don't reset (recipes, cookbooks).
+    private LocalDateTime resetsAt;
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QuotaSummaryDTO {
+    private String subscriptionType;
+    // Keyed by resource: recipes, books, generations.
+    private Map<String, QuotaDTO> quotas;
+}
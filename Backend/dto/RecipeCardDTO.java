@@ -0,0 +1,52 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * What a recipe tile in a list shows. Built straight from a JPQL constructor expression, so
+ * instructions, notes, nutrition, tags and reviews are never loaded for list views.
+ */
+@Data
+@NoArgsConstructor
+public class RecipeCardDTO {
+    private Long id;
+    private String title;
+    private String imageUri;
+    private Long authorId;
+    private String authorUsername;
+    private int likes;
+    private boolean likedByUser;
+    private String cuisine;
+    private String difficulty;
+    private String prepTime;
+    private String cookTime;
+    // Same JSON name as RecipeDTO.
+    @JsonProperty("public")
+    private Boolean isPublic;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+    private OffsetDateTime createdAt;
+    private Boolean isAiGenerated;
+
+    public RecipeCardDTO(Long id, String title, String imageUri, Long authorId, String authorUsername, int likes,
+                         String cuisine, String difficulty, String prepTime, String cookTime, Boolean isPublic,
+                         OffsetDateTime createdAt, Boolean isAiGenerated) {
+        this.id = id;
+        this.title = title;
+        this.imageUri = imageUri;
+        this.authorId = authorId;
+        this.authorUsername = authorUsername;
+        this.likes = likes;
+        this.cuisine = cuisine;
+        this.difficulty = difficulty;
+        this.prepTime = prepTime;
+        this.cookTime = cookTime;
+        this.isPublic = isPublic;
+        this.createdAt = createdAt;
+        this.isAiGenerated = isAiGenerated;
+    }
+}
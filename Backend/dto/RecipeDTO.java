@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.util.List;
 
-public class RecipeDTO {
+public class RecipeDTO implements Cloneable {
     private Long id;
     private String title;
 
@@ -250,6 +250,26 @@ public class RecipeDTO {
 
     private List<ReviewDTO> reviews;
 
+    // Totals over all reviews; list views only embed the newest page in `reviews`.
+    private long reviewCount;
+    private Double averageRating;
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(long reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(Double averageRating) {
+        this.averageRating = averageRating;
+    }
+
     public List<ReviewDTO> getReviews() {
         return reviews;
     }
@@ -266,4 +286,15 @@ public class RecipeDTO {
         return authorId;
     }
 
+    /**
+     * Shallow copy; the tag and review lists are shared with the original.
+     */
+    public RecipeDTO copy() {
+        try {
+            return (RecipeDTO) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
 }
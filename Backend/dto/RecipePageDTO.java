@@ -0,0 +1,18 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+// T is RecipeDTO or RecipeCardDTO, depending on the requested view.
+public class RecipePageDTO<T> {
+    private List<T> items;
+    // Pass back as ?cursor= to get the next page; null on the last page.
+    private String nextCursor;
+    private boolean hasMore;
+}
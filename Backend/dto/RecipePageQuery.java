@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Query parameters of the paged recipe listing/search. Every filter is optional.
+ */
+@Data
+@NoArgsConstructor
+public class RecipePageQuery {
+    // "recent" (createdAt, id) or "likes" (likes, id), both descending
+    private String sort = "recent";
+    private String cursor;
+    private Integer limit;
+    private Boolean isPublic;
+    private Long authorId;
+    private String cuisine;
+    private String tag;
+    private String title;
+}
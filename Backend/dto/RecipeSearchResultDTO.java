@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecipeSearchResultDTO {
+    private List<RecipeDTO> items;
+    private long total;
+    private int page;
+    private int size;
+    // facet name (cuisine, difficulty, tags) -> value -> number of matching recipes
+    private Map<String, Map<String, Long>> facets;
+}
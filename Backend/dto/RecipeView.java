@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The {@code view} query parameter of recipe list endpoints: compact cards or full DTOs.
+ */
+public enum RecipeView {
+    CARD, FULL;
+
+    public static RecipeView parse(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "card":
+                return CARD;
+            case "full":
+                return FULL;
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown view: " + value);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.JobRun;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScheduledJobDTO {
+    private String name;
+    // True while some node holds the job's lease.
+    private boolean locked;
+    private String lockedBy;
+    private LocalDateTime lockedUntil;
+    private JobRun lastRun;
+}
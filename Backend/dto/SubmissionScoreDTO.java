@@ -0,0 +1,46 @@
+package com.example.demo.dto;
+
+public class SubmissionScoreDTO {
+    private Long submissionId;
+    private Long challengeId;
+    private int challengePoints;
+    private Long userId;
+    private Long recipeId;
+    private int likes;
+
+    public SubmissionScoreDTO(Long submissionId, Long challengeId, int challengePoints,
+                              Long userId, Long recipeId, int likes) {
+        this.submissionId = submissionId;
+        this.challengeId = challengeId;
+        this.challengePoints = challengePoints;
+        this.userId = userId;
+        this.recipeId = recipeId;
+        this.likes = likes;
+    }
+
+    public SubmissionScoreDTO() {}
+
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public Long getChallengeId() {
+        return challengeId;
+    }
+
+    public int getChallengePoints() {
+        return challengePoints;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getRecipeId() {
+        return recipeId;
+    }
+
+    public int getLikes() {
+        return likes;
+    }
+}
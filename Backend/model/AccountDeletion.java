@@ -0,0 +1,109 @@
+package com.example.demo.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of deleting one user account. Every chunk of work commits together with this row,
+ * so after a crash the deletion resumes at the step and chunk where it stopped. The row
+ * outlives the user and serves as the record that the account was deleted. See
+ * AccountDeletionService.
+ */
+@Entity
+@Table(name = "account_deletions")
+public class AccountDeletion {
+
+    // In execution order; the ordinal doubles as the progress indicator.
+    public enum Step {
+        LIKES, FAVORITES, REVIEWS, REPORTS, SUBMISSIONS, MEAL_PLANS, SHOPPING_LIST, BOOKS, RECIPES,
+        FOLLOWS, LEADERBOARD, ACCOUNT, REBUILD_LEADERBOARD, DONE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private Long userId;
+
+    // Captured up front; the leaderboard and code store are keyed by email.
+    @Column(nullable = false)
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Step step = Step.LIKES;
+
+    private long deletedRows;
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime requestedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+
+    public AccountDeletion() {}
+
+    public AccountDeletion(Long userId, String email) {
+        this.userId = userId;
+        this.email = email;
+        this.requestedAt = LocalDateTime.now();
+        this.updatedAt = requestedAt;
+    }
+
+    public void advance(Step next) {
+        step = next;
+        updatedAt = LocalDateTime.now();
+        if (next == Step.DONE) {
+            finishedAt = updatedAt;
+        }
+    }
+
+    public void addDeleted(int rows) {
+        deletedRows += rows;
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void recordFailure(String error) {
+        attempts++;
+        lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Completed steps out of all steps, 0-100.
+    public int getProgress() {
+        return step.ordinal() * 100 / Step.DONE.ordinal();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public Step getStep() { return step; }
+    public void setStep(Step step) { this.step = step; }
+
+    public long getDeletedRows() { return deletedRows; }
+    public void setDeletedRows(long deletedRows) { this.deletedRows = deletedRows; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getRequestedAt() { return requestedAt; }
+    public void setRequestedAt(LocalDateTime requestedAt) { this.requestedAt = requestedAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -22,6 +22,10 @@ public class Challenge {
     private LocalDate deadline;
     private int points;
 
+    // Bumped by CounterService on every vote, so an edit from a stale copy cannot reset the points.
+    @Version
+    private long version;
+
     private boolean active;
 
     @OneToMany(fetch = FetchType.EAGER)
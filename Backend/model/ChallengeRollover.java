@@ -0,0 +1,92 @@
+package com.example.demo.model;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one nightly challenge rollover, keyed by the day it rolls over. Each step commits
+ * together with the move to the next one, so a rerun after a crash resumes where it stopped
+ * instead of starting over. See ChallengeRolloverJob.
+ */
+@Entity
+@Table(name = "challenge_rollovers")
+public class ChallengeRollover {
+
+    public enum Step { PURGE_EXPIRED, AWARD_WINNERS, PURGE_FEATURED, ROTATE_FEATURED, REBUILD_LEADERBOARD, DONE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private LocalDate rolloverDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Step step = Step.PURGE_EXPIRED;
+
+    // The featured challenge that ended, captured when the rollover started; null if none did.
+    private Long featuredChallengeId;
+
+    // Last submission id deleted by the current purge step.
+    private long cursor;
+
+    private int deletedSubmissions;
+    private int awardedBadges;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+
+    public ChallengeRollover() {}
+
+    public ChallengeRollover(LocalDate rolloverDate, Long featuredChallengeId) {
+        this.rolloverDate = rolloverDate;
+        this.featuredChallengeId = featuredChallengeId;
+        this.startedAt = LocalDateTime.now();
+        this.updatedAt = startedAt;
+    }
+
+    /**
+     * Moves to {@code next} and resets the chunk cursor.
+     */
+    public void advance(Step next) {
+        step = next;
+        cursor = 0;
+        updatedAt = LocalDateTime.now();
+        if (next == Step.DONE) {
+            finishedAt = updatedAt;
+        }
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getRolloverDate() { return rolloverDate; }
+    public void setRolloverDate(LocalDate rolloverDate) { this.rolloverDate = rolloverDate; }
+
+    public Step getStep() { return step; }
+    public void setStep(Step step) { this.step = step; }
+
+    public Long getFeaturedChallengeId() { return featuredChallengeId; }
+    public void setFeaturedChallengeId(Long featuredChallengeId) { this.featuredChallengeId = featuredChallengeId; }
+
+    public long getCursor() { return cursor; }
+    public void setCursor(long cursor) { this.cursor = cursor; }
+
+    public int getDeletedSubmissions() { return deletedSubmissions; }
+    public void setDeletedSubmissions(int deletedSubmissions) { this.deletedSubmissions = deletedSubmissions; }
+
+    public int getAwardedBadges() { return awardedBadges; }
+    public void setAwardedBadges(int awardedBadges) { this.awardedBadges = awardedBadges; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -11,12 +11,19 @@ public class GlobalLeaderboardEntry {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(name = "user_id", unique = true)
+    private Long userId;
+
     private String userEmail;
 
     private String username;
 
     private int totalPoints;
 
+    // Oldest scoring submission; breaks ties between users with equal points.
+    @Column(name = "earliest_submission_id")
+    private Long earliestSubmissionId;
+
     @Transient
     private LocalDate earliestSubmission;
     public GlobalLeaderboardEntry() {
@@ -44,6 +51,12 @@ public class GlobalLeaderboardEntry {
     }
 
     public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getEarliestSubmissionId() { return earliestSubmissionId; }
+    public void setEarliestSubmissionId(Long earliestSubmissionId) { this.earliestSubmissionId = earliestSubmissionId; }
+
     public String getUserEmail() { return userEmail; }
     public void setUserEmail(String userEmail) { this.userEmail = userEmail; }
 
@@ -0,0 +1,76 @@
+package com.example.demo.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One execution of a cluster-wide job, written when it starts and completed when it ends.
+ */
+@Entity
+@Table(name = "job_runs", indexes = @Index(name = "idx_job_runs_name", columnList = "jobName, id"))
+public class JobRun {
+
+    public enum Outcome { RUNNING, SUCCEEDED, FAILED }
+
+    public enum Trigger { SCHEDULED, MANUAL }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String jobName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Trigger triggeredBy;
+
+    private String node;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Outcome outcome = Outcome.RUNNING;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long durationMs;
+
+    @Column(length = 1000)
+    private String error;
+
+    public JobRun() {}
+
+    public JobRun(String jobName, Trigger triggeredBy, String node) {
+        this.jobName = jobName;
+        this.triggeredBy = triggeredBy;
+        this.node = node;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getJobName() { return jobName; }
+    public void setJobName(String jobName) { this.jobName = jobName; }
+
+    public Trigger getTriggeredBy() { return triggeredBy; }
+    public void setTriggeredBy(Trigger triggeredBy) { this.triggeredBy = triggeredBy; }
+
+    public String getNode() { return node; }
+    public void setNode(String node) { this.node = node; }
+
+    public Outcome getOutcome() { return outcome; }
+    public void setOutcome(Outcome outcome) { this.outcome = outcome; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public Long getDurationMs() { return durationMs; }
+    public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
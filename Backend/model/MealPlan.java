@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_mealplan_user_date", columnList = "user_id, date"))
 public class MealPlan {
 
     @Id
@@ -0,0 +1,105 @@
+package com.example.demo.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One newsletter broadcast. Subscribers are sent to in ascending id order and
+ * {@code lastSubscriberId} records how far delivery got, so an interrupted job resumes there.
+ */
+@Entity
+@Table(name = "newsletter_jobs")
+public class NewsletterJob {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Lob
+    @Column(nullable = false)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.QUEUED;
+
+    // Highest subscriber id whose batch has been handed to SMTP.
+    private Long lastSubscriberId = 0L;
+
+    private int total;
+    private int sent;
+    private int failed;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    // The node delivering the job and until when; set only through NewsletterJobRepository.claim
+    // and renewClaim, so saving the entity never overwrites another node's claim.
+    @Column(insertable = false, updatable = false)
+    private String claimedBy;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime claimedUntil;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public NewsletterJob() {}
+
+    public NewsletterJob(String subject, String body, int total) {
+        this.subject = subject;
+        this.body = body;
+        this.total = total;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public Long getLastSubscriberId() { return lastSubscriberId; }
+    public void setLastSubscriberId(Long lastSubscriberId) { this.lastSubscriberId = lastSubscriberId; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getSent() { return sent; }
+    public void setSent(int sent) { this.sent = sent; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public String getClaimedBy() { return claimedBy; }
+
+    public LocalDateTime getClaimedUntil() { return claimedUntil; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -12,6 +12,10 @@ import java.util.Set;
 
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_recipe_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_recipe_likes_id", columnList = "likes, id")
+})
 @JsonIdentityInfo(
         generator = ObjectIdGenerators.PropertyGenerator.class,
         property = "id")
@@ -43,7 +47,7 @@ public class Recipe {
     private String video;
 
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id", nullable = false)
     private User author;
 
@@ -56,6 +60,8 @@ public class Recipe {
     public Set<Book> getBooks() {
         return books;
     }
+    // Only written through CounterService so entity saves never clobber concurrent likes.
+    @Column(updatable = false)
     private int likes = 0;
     public void setBooks(Set<Book> books) {
         this.books = books;
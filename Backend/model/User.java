@@ -3,6 +3,7 @@ package com.example.demo.model;
 import com.fasterxml.jackson.annotation.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import javax.validation.constraints.Email;
@@ -15,8 +16,13 @@ import java.util.*;
         generator = ObjectIdGenerators.PropertyGenerator.class,
         property = "id"
 )
+// Only changed columns are written, so a save never overwrites counters kept by CounterService.
 @Entity
-@Table(name = "users")
+@DynamicUpdate
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_username", columnList = "username"),
+        @Index(name = "idx_users_top_creators", columnList = "follower_count, public_recipe_count, id")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
 
@@ -285,4 +291,28 @@ public class User {
     public boolean isVerified() { return isVerified; }
     public void setVerified(boolean verified) { isVerified = verified; }
 
+    // Denormalized from user_following and recipe; only written through CounterService and
+    // SocialService.reconcile.
+    @Column(name = "follower_count", nullable = false, updatable = false, columnDefinition = "INT default 0")
+    private int followerCount = 0;
+
+    @Column(name = "following_count", nullable = false, updatable = false, columnDefinition = "INT default 0")
+    private int followingCount = 0;
+
+    @Column(name = "public_recipe_count", nullable = false, updatable = false, columnDefinition = "INT default 0")
+    private int publicRecipeCount = 0;
+
+    public int getFollowerCount() { return followerCount; }
+
+    public int getFollowingCount() { return followingCount; }
+
+    public int getPublicRecipeCount() { return publicRecipeCount; }
+
+    // Set when account deletion is requested; a disabled user can neither log in nor use a token.
+    @Column(name = "disabled", nullable = false, columnDefinition = "TINYINT(1) default 0")
+    private boolean disabled = false;
+
+    public boolean isDisabled() { return disabled; }
+    public void setDisabled(boolean disabled) { this.disabled = disabled; }
+
 }
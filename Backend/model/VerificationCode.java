@@ -0,0 +1,50 @@
+package com.example.demo.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A one-time code in the database-backed code store, keyed by purpose and email
+ * (e.g. {@code otp:alice@example.com}).
+ */
+@Entity
+@Table(name = "verification_codes", indexes = @Index(name = "idx_verification_codes_expiry", columnList = "expiresAt"))
+public class VerificationCode {
+
+    @Id
+    @Column(name = "code_key", length = 191)
+    private String codeKey;
+
+    @Column(nullable = false, length = 16)
+    private String code;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    private int attempts;
+
+    private boolean verified;
+
+    public VerificationCode() {}
+
+    public VerificationCode(String codeKey, String code, LocalDateTime expiresAt) {
+        this.codeKey = codeKey;
+        this.code = code;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getCodeKey() { return codeKey; }
+    public void setCodeKey(String codeKey) { this.codeKey = codeKey; }
+
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public boolean isVerified() { return verified; }
+    public void setVerified(boolean verified) { this.verified = verified; }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.AccountDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AccountDeletionRepository extends JpaRepository<AccountDeletion, Long> {
+
+    Optional<AccountDeletion> findByUserId(Long userId);
+
+    boolean existsByStepNot(AccountDeletion.Step step);
+
+    List<AccountDeletion> findByStepNotOrderByIdAsc(AccountDeletion.Step step);
+}
@@ -3,10 +3,12 @@ package com.example.demo.repositories;
 import com.example.demo.model.Book;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,4 +19,16 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b FROM Book b JOIN b.recipes r WHERE r.id = :recipeId")
     List<Book> findBooksByRecipeId(@Param("recipeId") Long recipeId);
     List<Book> findByAuthorAndIsPublicTrue(User author);
+
+    // Account deletion, see AccountDeletionService.
+    @Query("SELECT b.id FROM Book b WHERE b.author.id = :authorId")
+    List<Long> findIdsByAuthorId(@Param("authorId") Long authorId);
+
+    @Modifying
+    @Query(value = "DELETE FROM book_recipes WHERE book_id IN :ids", nativeQuery = true)
+    int deleteRecipeLinksByBookIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
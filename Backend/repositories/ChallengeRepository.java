@@ -3,13 +3,38 @@ package com.example.demo.repositories;
 
 import com.example.demo.model.Challenge;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ChallengeRepository extends JpaRepository<Challenge, Long> {
 
     List<Challenge> findByFeaturedTrue();
 
+    boolean existsByFeaturedTrue();
+
+    // The featured challenge whose deadline has been reached, oldest first.
+    Optional<Challenge> findFirstByFeaturedTrueAndDeadlineLessThanEqualOrderByIdAsc(LocalDate date);
+
+    Optional<Challenge> findFirstByFeaturedFalseAndDeadlineAfterOrderByDeadlineAscIdAsc(LocalDate date);
+
+    @Query("SELECT c.id FROM Challenge c WHERE c.featured = false AND c.deadline < :date")
+    List<Long> findExpiredIds(@Param("date") LocalDate date);
+
+    @Modifying
+    @Query("UPDATE Challenge c SET c.active = false WHERE c.id IN :ids AND c.active = true")
+    int deactivate(@Param("ids") Collection<Long> ids);
+
+    // Leaves the version alone; featuring a challenge must not conflict with votes on it.
+    @Modifying
+    @Query("UPDATE Challenge c SET c.featured = :featured WHERE c.id = :id")
+    int setFeatured(@Param("id") Long id, @Param("featured") boolean featured);
+
 }
@@ -0,0 +1,15 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.ChallengeRollover;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface ChallengeRolloverRepository extends JpaRepository<ChallengeRollover, Long> {
+
+    Optional<ChallengeRollover> findByRolloverDate(LocalDate rolloverDate);
+
+    List<ChallengeRollover> findByStepNotOrderByIdAsc(ChallengeRollover.Step step);
+}
@@ -9,6 +9,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface GlobalLeaderboardRepository extends JpaRepository<GlobalLeaderboardEntry, Long> {
@@ -18,4 +20,28 @@ public interface GlobalLeaderboardRepository extends JpaRepository<GlobalLeaderb
     @Query("DELETE FROM GlobalLeaderboardEntry e WHERE e.userEmail = :userEmail")
     void deleteByUserEmail(@Param("userEmail") String userEmail);
     GlobalLeaderboardEntry findByUsername(String username);
+
+    List<GlobalLeaderboardEntry> findByUserIdIn(Collection<Long> userIds);
+
+    List<GlobalLeaderboardEntry> findAllByOrderByTotalPointsDescEarliestSubmissionIdAsc();
+
+    // Relative updates from LeaderboardEngine; a new row starts at the delta.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO global_leaderboard (user_id, user_email, username, total_points, earliest_submission_id) " +
+            "VALUES (:userId, :email, :username, :delta, :earliest) " +
+            "ON DUPLICATE KEY UPDATE total_points = total_points + :delta, earliest_submission_id = :earliest",
+            nativeQuery = true)
+    int upsertPoints(@Param("userId") Long userId, @Param("email") String email, @Param("username") String username,
+                     @Param("delta") int delta, @Param("earliest") long earliest);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE GlobalLeaderboardEntry e SET e.totalPoints = e.totalPoints + :delta WHERE e.userId = :userId")
+    int addPoints(@Param("userId") Long userId, @Param("delta") int delta);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GlobalLeaderboardEntry e WHERE e.userId = :userId AND e.totalPoints <= 0")
+    int deleteIfNoPoints(@Param("userId") Long userId);
 }
@@ -0,0 +1,16 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.JobRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+    List<JobRun> findByJobNameOrderByIdDesc(String jobName, Pageable pageable);
+
+    Optional<JobRun> findFirstByJobNameOrderByIdDesc(String jobName);
+}
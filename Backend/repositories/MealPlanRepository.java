@@ -2,9 +2,14 @@ package com.example.demo.repositories;
 
 import com.example.demo.model.MealPlan;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,5 +19,48 @@ public interface MealPlanRepository extends JpaRepository<MealPlan, Long> {
     List<MealPlan> findByUserId(Long userId);
     List<MealPlan> findByRecipes_Id(Long recipeId);
 
+    // Plans with their recipes and authors in one query; a null bound leaves that side open.
+    // Notes are a second collection and cannot be fetched in the same query, see findNotesInRange.
+    @Query("SELECT DISTINCT m FROM MealPlan m LEFT JOIN FETCH m.recipes r LEFT JOIN FETCH r.author " +
+            "WHERE m.user.id = :userId AND (:from IS NULL OR m.date >= :from) AND (:to IS NULL OR m.date <= :to) " +
+            "ORDER BY m.date")
+    List<MealPlan> findWithRecipesInRange(@Param("userId") Long userId,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to);
 
+    // Rows of {mealPlanId, noteId, content}.
+    @Query("SELECT n.mealPlan.id, n.id, n.content FROM Note n " +
+            "WHERE n.mealPlan.user.id = :userId AND (:from IS NULL OR n.mealPlan.date >= :from) " +
+            "AND (:to IS NULL OR n.mealPlan.date <= :to) ORDER BY n.id")
+    List<Object[]> findNotesInRange(@Param("userId") Long userId,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to);
+
+    // Rows of {date, mealPlanId}.
+    @Query("SELECT m.date, m.id FROM MealPlan m WHERE m.user.id = :userId AND m.date IN :dates")
+    List<Object[]> findIdsByUserIdAndDates(@Param("userId") Long userId, @Param("dates") Collection<LocalDate> dates);
+
+    // The join table has no key, so the existence check keeps a recipe from being planned twice.
+    @Modifying
+    @Query(value = "INSERT INTO mealplan_recipes (mealplan_id, recipe_id) SELECT :mealPlanId, :recipeId FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM mealplan_recipes WHERE mealplan_id = :mealPlanId AND recipe_id = :recipeId)",
+            nativeQuery = true)
+    int insertRecipeLink(@Param("mealPlanId") Long mealPlanId, @Param("recipeId") Long recipeId);
+
+    @Modifying
+    @Query(value = "DELETE FROM mealplan_recipes WHERE mealplan_id = :mealPlanId AND recipe_id = :recipeId",
+            nativeQuery = true)
+    int deleteRecipeLink(@Param("mealPlanId") Long mealPlanId, @Param("recipeId") Long recipeId);
+
+    // Account deletion, see AccountDeletionService.
+    @Query("SELECT m.id FROM MealPlan m WHERE m.user.id = :userId ORDER BY m.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "DELETE FROM mealplan_recipes WHERE mealplan_id IN :ids", nativeQuery = true)
+    int deleteRecipeLinksByMealPlanIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM MealPlan m WHERE m.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
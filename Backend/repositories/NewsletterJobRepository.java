@@ -0,0 +1,32 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.NewsletterJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NewsletterJobRepository extends JpaRepository<NewsletterJob, Long> {
+    List<NewsletterJob> findByStatusInOrderByIdAsc(Collection<NewsletterJob.Status> statuses);
+
+    // Takes an unfinished job whose claim is free or has lapsed; 0 means another node is delivering it.
+    @Modifying
+    @Transactional
+    @Query("UPDATE NewsletterJob j SET j.claimedBy = :node, j.claimedUntil = :until " +
+            "WHERE j.id = :id AND j.status IN :statuses AND (j.claimedUntil IS NULL OR j.claimedUntil <= :now)")
+    int claim(@Param("id") Long id, @Param("statuses") Collection<NewsletterJob.Status> statuses,
+              @Param("now") LocalDateTime now, @Param("until") LocalDateTime until, @Param("node") String node);
+
+    // Extends our own claim; 0 means it lapsed and another node took the job over.
+    @Modifying
+    @Transactional
+    @Query("UPDATE NewsletterJob j SET j.claimedUntil = :until WHERE j.id = :id AND j.claimedBy = :node")
+    int renewClaim(@Param("id") Long id, @Param("until") LocalDateTime until, @Param("node") String node);
+}
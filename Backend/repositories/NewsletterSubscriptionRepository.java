@@ -1,12 +1,20 @@
 package com.example.demo.repositories;
 
 import com.example.demo.model.NewsletterSubscription;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface NewsletterSubscriptionRepository extends JpaRepository<NewsletterSubscription, Long> {
     Optional<NewsletterSubscription> findByEmail(String email);
+
+    // Keyset page of {id, email} rows after the given id; no entities are loaded.
+    @Query("SELECT s.id, s.email FROM NewsletterSubscription s WHERE s.id > :afterId ORDER BY s.id ASC")
+    List<Object[]> findRecipientsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -2,6 +2,15 @@ package com.example.demo.repositories;
 
 import com.example.demo.model.Note;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 
 public interface NoteRepository extends JpaRepository<Note, Long> {
+
+    @Modifying
+    @Query("DELETE FROM Note n WHERE n.mealPlan.id IN :mealPlanIds")
+    int deleteByMealPlanIds(@Param("mealPlanIds") Collection<Long> mealPlanIds);
 }
@@ -0,0 +1,42 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.OutboxEmail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    boolean existsByDedupKeyAndStatus(String dedupKey, OutboxEmail.Status status);
+
+    List<OutboxEmail> findByStatusOrderByIdDesc(OutboxEmail.Status status, Pageable pageable);
+
+    long countByStatus(OutboxEmail.Status status);
+
+    @Query("SELECT e.id FROM OutboxEmail e WHERE e.status = com.example.demo.model.OutboxEmail.Status.PENDING " +
+            "AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt ASC")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Takes a lease on a due message; 0 means another worker got it first.
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEmail e SET e.nextAttemptAt = :leaseUntil WHERE e.id = :id " +
+            "AND e.status = com.example.demo.model.OutboxEmail.Status.PENDING AND e.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Blanks the bodies of messages sent before the cutoff; they may hold one-time codes and reset links.
+    // The column is NOT NULL, so the body becomes an empty string.
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEmail e SET e.body = '' WHERE e.status = com.example.demo.model.OutboxEmail.Status.SENT " +
+            "AND e.sentAt < :sentBefore AND e.body <> ''")
+    int purgeSentBodies(@Param("sentBefore") LocalDateTime sentBefore);
+}
@@ -4,11 +4,22 @@ import com.example.demo.model.Recipe;
 import com.example.demo.model.RecipeReport;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface RecipeReportRepository extends JpaRepository<RecipeReport, Long> {
     Optional<RecipeReport> findByRecipeAndReporter(Recipe recipe, User reporter);
     void deleteAllByReporter(User reporter);
 
+    @Modifying
+    @Query("DELETE FROM RecipeReport rr WHERE rr.recipe.id IN :recipeIds")
+    int deleteByRecipeIds(@Param("recipeIds") Collection<Long> recipeIds);
+
+    @Modifying
+    @Query("DELETE FROM RecipeReport rr WHERE rr.reporter.id = :userId")
+    int deleteByReporterId(@Param("userId") Long userId);
 }
@@ -1,13 +1,18 @@
 package com.example.demo.repositories;
 
 
-import com.example.demo.dto.UserActivityDTO;
+import com.example.demo.dto.FavoriteRecipeDTO;
+import com.example.demo.dto.RecipeCardDTO;
 import com.example.demo.model.Recipe;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
@@ -22,12 +27,178 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
     long sumAllLikes();
     @Query("SELECT r FROM Recipe r JOIN r.likedBy u WHERE u.id = :userId")
     List<Recipe> findRecipesLikedByUser(@Param("userId") Long userId);
-    @Query("SELECT new com.example.demo.dto.UserActivityDTO(" +
-            "u.id, u.username, CAST(SIZE(u.followers) AS long), CAST(COUNT(r) AS long)) " +
-            "FROM User u LEFT JOIN Recipe r ON r.author = u AND r.isPublic = true " +
-            "GROUP BY u.id, u.username " +
-            "ORDER BY SIZE(u.followers) DESC")
-    List<UserActivityDTO> findTopFollowedUsers();
+
+    // Set-based lookups used by RecipeDTOAssembler to map a whole list in a fixed number of queries.
+    @Query("SELECT r.id, a.id, a.username FROM Recipe r JOIN r.author a WHERE r.id IN :ids")
+    List<Object[]> findAuthorsByRecipeIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT r.id, t FROM Recipe r JOIN r.tags t WHERE r.id IN :ids")
+    List<Object[]> findTagsByRecipeIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT r.id FROM Recipe r JOIN r.likedBy u WHERE u.email = :email AND r.id IN :ids")
+    List<Long> findIdsLikedByUser(@Param("email") String email, @Param("ids") Collection<Long> ids);
+
+    // Keyset pages for the paged listing; a null filter/cursor parameter disables that condition.
+    String PAGE_FILTERS = "(:isPublic IS NULL OR r.isPublic = :isPublic) " +
+            "AND (:authorId IS NULL OR r.author.id = :authorId) " +
+            "AND (:cuisine IS NULL OR r.cuisine = :cuisine) " +
+            "AND (:tag IS NULL OR :tag MEMBER OF r.tags) " +
+            "AND (:title IS NULL OR LOWER(r.title) LIKE LOWER(CONCAT('%', :title, '%'))) ";
+
+    @Query("SELECT r FROM Recipe r WHERE " + PAGE_FILTERS +
+            "AND (:afterId IS NULL OR r.createdAt < :afterCreatedAt " +
+            "OR (r.createdAt = :afterCreatedAt AND r.id < :afterId)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Recipe> findPageByRecent(@Param("isPublic") Boolean isPublic,
+                                  @Param("authorId") Long authorId,
+                                  @Param("cuisine") String cuisine,
+                                  @Param("tag") String tag,
+                                  @Param("title") String title,
+                                  @Param("afterCreatedAt") OffsetDateTime afterCreatedAt,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+
+    @Query("SELECT r FROM Recipe r WHERE " + PAGE_FILTERS +
+            "AND (:afterId IS NULL OR r.likes < :afterLikes " +
+            "OR (r.likes = :afterLikes AND r.id < :afterId)) " +
+            "ORDER BY r.likes DESC, r.id DESC")
+    List<Recipe> findPageByLikes(@Param("isPublic") Boolean isPublic,
+                                 @Param("authorId") Long authorId,
+                                 @Param("cuisine") String cuisine,
+                                 @Param("tag") String tag,
+                                 @Param("title") String title,
+                                 @Param("afterLikes") Integer afterLikes,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    // Card projections for ?view=card; only the columns of RecipeCardDTO are selected.
+    String CARD_SELECT = "SELECT new com.example.demo.dto.RecipeCardDTO(" +
+            "r.id, r.title, r.imageUri, a.id, a.username, r.likes, r.cuisine, r.difficulty, " +
+            "r.prepTime, r.cookTime, r.isPublic, r.createdAt, r.isAiGenerated) ";
+
+    @Query(CARD_SELECT + "FROM Recipe r JOIN r.author a")
+    List<RecipeCardDTO> findAllCards();
+
+    @Query(CARD_SELECT + "FROM Recipe r JOIN r.author a WHERE LOWER(r.title) LIKE LOWER(CONCAT('%', :title, '%'))")
+    List<RecipeCardDTO> findCardsByTitle(@Param("title") String title);
+
+    @Query(CARD_SELECT + "FROM Recipe r JOIN r.author a WHERE " + PAGE_FILTERS +
+            "AND (:afterId IS NULL OR r.createdAt < :afterCreatedAt " +
+            "OR (r.createdAt = :afterCreatedAt AND r.id < :afterId)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<RecipeCardDTO> findCardPageByRecent(@Param("isPublic") Boolean isPublic,
+                                             @Param("authorId") Long authorId,
+                                             @Param("cuisine") String cuisine,
+                                             @Param("tag") String tag,
+                                             @Param("title") String title,
+                                             @Param("afterCreatedAt") OffsetDateTime afterCreatedAt,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Query(CARD_SELECT + "FROM Recipe r JOIN r.author a WHERE " + PAGE_FILTERS +
+            "AND (:afterId IS NULL OR r.likes < :afterLikes " +
+            "OR (r.likes = :afterLikes AND r.id < :afterId)) " +
+            "ORDER BY r.likes DESC, r.id DESC")
+    List<RecipeCardDTO> findCardPageByLikes(@Param("isPublic") Boolean isPublic,
+                                            @Param("authorId") Long authorId,
+                                            @Param("cuisine") String cuisine,
+                                            @Param("tag") String tag,
+                                            @Param("title") String title,
+                                            @Param("afterLikes") Integer afterLikes,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+
+    @Query(CARD_SELECT + "FROM Challenge c JOIN c.submittedRecipes r JOIN r.author a WHERE c.id = :challengeId")
+    List<RecipeCardDTO> findCardsByChallengeId(@Param("challengeId") Long challengeId);
+
+    @Query(CARD_SELECT + "FROM Book b JOIN b.recipes r JOIN r.author a WHERE b.id = :bookId")
+    List<RecipeCardDTO> findCardsByBookId(@Param("bookId") Long bookId);
+
+    @Query(CARD_SELECT + "FROM User u JOIN u.favoriteRecipes r JOIN r.author a WHERE u.email = :email")
+    List<RecipeCardDTO> findFavoriteCardsByUserEmail(@Param("email") String email);
+
+    @Query("SELECT new com.example.demo.dto.FavoriteRecipeDTO(r.id, r.title, r.imageUri, r.author.id) " +
+            "FROM User u JOIN u.favoriteRecipes r WHERE u.email = :email")
+    List<FavoriteRecipeDTO> findFavoritesByUserEmail(@Param("email") String email);
+
+    @Query("SELECT new com.example.demo.dto.FavoriteRecipeDTO(r.id, r.title, r.imageUri, r.author.id) " +
+            "FROM User u JOIN u.favoriteRecipes r WHERE u.id = :userId")
+    List<FavoriteRecipeDTO> findFavoritesByUserId(@Param("userId") Long userId);
+
+    // Like toggles go straight to the join table; Recipe.likes is maintained by LikeCounterService.
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO recipe_likes (recipe_id, user_id) VALUES (:recipeId, :userId)", nativeQuery = true)
+    int insertLike(@Param("recipeId") Long recipeId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM recipe_likes WHERE recipe_id = :recipeId AND user_id = :userId", nativeQuery = true)
+    int deleteLike(@Param("recipeId") Long recipeId, @Param("userId") Long userId);
+
+    @Query("SELECT MAX(r.id) FROM Recipe r")
+    Long findMaxId();
+
+    // Rows of {recipeId, likes in recipe_likes minus Recipe.likes} for recipes in the range that disagree.
+    @Query(value = "SELECT r.id, (SELECT COUNT(*) FROM recipe_likes l WHERE l.recipe_id = r.id) - r.likes " +
+            "FROM recipe r WHERE r.id BETWEEN :fromId AND :toId " +
+            "AND r.likes <> (SELECT COUNT(*) FROM recipe_likes l WHERE l.recipe_id = r.id)", nativeQuery = true)
+    List<Object[]> findLikeDrift(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Applies a drift found earlier only if it is still exactly the same, i.e. no flush landed since.
+    @Modifying
+    @Query(value = "UPDATE recipe r SET r.likes = r.likes + :drift WHERE r.id = :id " +
+            "AND r.likes + :drift = (SELECT COUNT(*) FROM recipe_likes l WHERE l.recipe_id = :id)", nativeQuery = true)
+    int correctLikes(@Param("id") Long id, @Param("drift") int drift);
+
+    // Rows of {recipeId, authorEmail}; the ownership check for (bulk) deletion.
+    @Query("SELECT r.id, a.email FROM Recipe r JOIN r.author a WHERE r.id IN :ids")
+    List<Object[]> findAuthorEmailsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT r.author.id FROM Recipe r WHERE r.id IN :ids")
+    List<Long> findAuthorIdsByIds(@Param("ids") Collection<Long> ids);
+
+    // Rows of {authorId, count} of the public recipes among ids.
+    @Query("SELECT r.author.id, COUNT(r) FROM Recipe r WHERE r.id IN :ids AND r.isPublic = true GROUP BY r.author.id")
+    List<Object[]> countPublicByAuthorForIds(@Param("ids") Collection<Long> ids);
+
+    // Bulk deletion of a batch of recipes; see RecipeDeletionService for the order.
+    @Modifying
+    @Query(value = "DELETE FROM user_favorites WHERE recipe_id IN :ids", nativeQuery = true)
+    int deleteFavoritesByRecipeIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM recipe_likes WHERE recipe_id IN :ids", nativeQuery = true)
+    int deleteLikesByRecipeIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM book_recipes WHERE recipe_id IN :ids", nativeQuery = true)
+    int deleteBookLinksByRecipeIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM mealplan_recipes WHERE recipe_id IN :ids", nativeQuery = true)
+    int deleteMealPlanLinksByRecipeIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM recipe_tags WHERE recipe_id IN :ids", nativeQuery = true)
+    int deleteTagsByRecipeIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Recipe r WHERE r.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // Account deletion, see AccountDeletionService.
+    @Query("SELECT r.id FROM Recipe r WHERE r.author.id = :authorId ORDER BY r.id")
+    List<Long> findIdsByAuthorId(@Param("authorId") Long authorId, Pageable pageable);
+
+    @Query("SELECT r.id FROM Recipe r JOIN r.likedBy u WHERE u.id = :userId ORDER BY r.id")
+    List<Long> findIdsLikedByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "DELETE FROM recipe_likes WHERE user_id = :userId AND recipe_id IN :recipeIds", nativeQuery = true)
+    int deleteLikesByUser(@Param("userId") Long userId, @Param("recipeIds") Collection<Long> recipeIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_favorites WHERE user_id = :userId LIMIT :limit", nativeQuery = true)
+    int deleteFavoritesByUser(@Param("userId") Long userId, @Param("limit") int limit);
 
 
 
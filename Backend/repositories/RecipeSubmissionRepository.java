@@ -1,12 +1,18 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dto.SubmissionScoreDTO;
 import com.example.demo.model.Challenge;
 import com.example.demo.model.Recipe;
 import com.example.demo.model.RecipeSubmission;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,6 +28,32 @@ public interface RecipeSubmissionRepository extends JpaRepository<RecipeSubmissi
     List<RecipeSubmission> findByUser(User user);
     List<RecipeSubmission> findByRecipe_Id(Long recipeId);
 
+    @Modifying
+    @Query("DELETE FROM RecipeSubmission s WHERE s.recipe.id IN :recipeIds")
+    int deleteByRecipeIds(@Param("recipeIds") Collection<Long> recipeIds);
+
     void deleteByChallenge(Challenge challenge);
 
+    // Next chunk of submission ids for the given challenges, in id order after the cursor.
+    @Query("SELECT s.id FROM RecipeSubmission s WHERE s.challenge.id IN :challengeIds AND s.id > :afterId ORDER BY s.id")
+    List<Long> findIdsByChallengeIdsAfter(@Param("challengeIds") Collection<Long> challengeIds,
+                                          @Param("afterId") long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM RecipeSubmission s WHERE s.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.example.demo.dto.SubmissionScoreDTO(" +
+            "s.id, s.challenge.id, s.challenge.points, s.user.id, s.recipe.id, s.recipe.likes) " +
+            "FROM RecipeSubmission s")
+    List<SubmissionScoreDTO> findAllScores();
+
+    // Rows of {challengeId, Recipe}, in submission order.
+    @Query("SELECT s.challenge.id, s.recipe FROM RecipeSubmission s " +
+            "WHERE s.challenge.id IN :challengeIds ORDER BY s.id")
+    List<Object[]> findRecipesByChallengeIds(@Param("challengeIds") Collection<Long> challengeIds);
+
+    @Modifying
+    @Query("DELETE FROM RecipeSubmission s WHERE s.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
 }
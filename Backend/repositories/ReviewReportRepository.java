@@ -5,7 +5,11 @@ import com.example.demo.model.Review;
 import com.example.demo.model.ReviewReport;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -14,4 +18,17 @@ public interface ReviewReportRepository extends JpaRepository<ReviewReport, Long
     void deleteByReviewId(Long reviewId);
 
     Optional<ReviewReport> findByReviewAndReporter(Review review, User reporter);
+
+    @Modifying
+    @Query("DELETE FROM ReviewReport rr WHERE rr.review.id IN " +
+            "(SELECT rv.id FROM Review rv WHERE rv.recipe.id IN :recipeIds)")
+    int deleteByRecipeIds(@Param("recipeIds") Collection<Long> recipeIds);
+
+    @Modifying
+    @Query("DELETE FROM ReviewReport rr WHERE rr.review.id IN :reviewIds")
+    int deleteByReviewIds(@Param("reviewIds") Collection<Long> reviewIds);
+
+    @Modifying
+    @Query("DELETE FROM ReviewReport rr WHERE rr.reporter.id = :userId")
+    int deleteByReporterId(@Param("userId") Long userId);
 }
@@ -3,9 +3,14 @@ package com.example.demo.repositories;
 import com.example.demo.model.Review;
 import com.example.demo.model.Recipe;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,4 +21,30 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     Review findByUserAndRecipe(User user, Recipe recipe);
     List<Review> findByRecipeIdOrderByCreatedAtDesc(Long recipeId);
 
+    // Rows of {recipeId, count, average rating}.
+    @Query("SELECT rv.recipe.id, COUNT(rv), AVG(rv.rating) FROM Review rv " +
+            "WHERE rv.recipe.id IN :recipeIds GROUP BY rv.recipe.id")
+    List<Object[]> findStatsByRecipeIds(@Param("recipeIds") Collection<Long> recipeIds);
+
+    // Newest `perRecipe` reviews of each recipe, as rows of
+    // {id, recipe_id, user_id, username, rating, comment, created_at}.
+    @Query(value = "SELECT x.id, x.recipe_id, x.user_id, x.username, x.rating, x.comment, x.created_at FROM (" +
+            "SELECT rv.id, rv.recipe_id, rv.user_id, u.username, rv.rating, rv.comment, rv.created_at, " +
+            "ROW_NUMBER() OVER (PARTITION BY rv.recipe_id ORDER BY rv.created_at DESC, rv.id DESC) AS rn " +
+            "FROM review rv JOIN users u ON u.id = rv.user_id WHERE rv.recipe_id IN (:recipeIds)) x " +
+            "WHERE x.rn <= :perRecipe ORDER BY x.recipe_id, x.rn", nativeQuery = true)
+    List<Object[]> findLatestByRecipeIds(@Param("recipeIds") Collection<Long> recipeIds,
+                                         @Param("perRecipe") int perRecipe);
+
+    @Modifying
+    @Query("DELETE FROM Review rv WHERE rv.recipe.id IN :recipeIds")
+    int deleteByRecipeIds(@Param("recipeIds") Collection<Long> recipeIds);
+
+    // Account deletion, see AccountDeletionService.
+    @Query("SELECT rv.id FROM Review rv WHERE rv.user.id = :userId ORDER BY rv.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Review rv WHERE rv.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
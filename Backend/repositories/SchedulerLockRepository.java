@@ -0,0 +1,38 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    // Creates the lease row, already expired, the first time a job name is seen.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO scheduler_locks (name, locked_until) VALUES (:name, '1970-01-01 00:00:00')",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    // Takes the lease if it has expired; 0 means another node holds it.
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :until, l.lockedAt = :now, l.lockedBy = :node " +
+            "WHERE l.name = :name AND l.lockedUntil <= :now")
+    int acquire(@Param("name") String name, @Param("now") LocalDateTime now,
+                @Param("until") LocalDateTime until, @Param("node") String node);
+
+    // Shortens our own lease; a no-op if it already expired and another node took over.
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :until " +
+            "WHERE l.name = :name AND l.lockedBy = :node AND l.lockedAt = :lockedAt")
+    int release(@Param("name") String name, @Param("lockedAt") LocalDateTime lockedAt,
+                @Param("until") LocalDateTime until, @Param("node") String node);
+}
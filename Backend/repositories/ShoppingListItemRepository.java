@@ -4,6 +4,9 @@ package com.example.demo.repositories;
 import com.example.demo.model.ShoppingListItem;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,5 +14,7 @@ public interface ShoppingListItemRepository extends JpaRepository<ShoppingListIt
     List<ShoppingListItem> findByUser(User user);
     Optional<ShoppingListItem> findByIdAndUser(Long id, User user);
 
-
-}
\ No newline at end of file
+    @Modifying
+    @Query("DELETE FROM ShoppingListItem i WHERE i.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -1,16 +1,27 @@
 package com.example.demo.repositories;
 
 
+import com.example.demo.dto.AdminUserDTO;
+import com.example.demo.dto.FollowUserDTO;
+import com.example.demo.dto.UserActivityDTO;
 import com.example.demo.model.Recipe;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+    boolean existsByEmail(String email);
     Optional<User> findByUsername(String username);
 
     @EntityGraph(attributePaths = "favoriteRecipes")
@@ -18,6 +29,154 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmailIgnoreCase(String email);
 
-}
+    // Rows of {id, email, username}; avoids hydrating users (and their EAGER badges) just for display names.
+    @Query("SELECT u.id, u.email, u.username FROM User u WHERE u.id IN :ids")
+    List<Object[]> findIdentitiesByIds(@Param("ids") Collection<Long> ids);
+
+    // Rows of {id, role}; resolves a caller whose Authentication carries only the email.
+    @Query("SELECT u.id, u.role FROM User u WHERE u.email = :email")
+    List<Object[]> findPrincipalByEmail(@Param("email") String email);
+
+    @Query("SELECT u.subscriptionType FROM User u WHERE u.id = :id")
+    Optional<User.SubscriptionType> findSubscriptionTypeById(@Param("id") Long id);
+
+    @Query("SELECT u.username FROM User u WHERE u.id = :id")
+    Optional<String> findUsernameById(@Param("id") Long id);
+
+    // Row of {subscriptionType, recipeGenerationCount, recipeGenerationCycleStart, recipe count, book count}.
+    @Query("SELECT u.subscriptionType, u.recipeGenerationCount, u.recipeGenerationCycleStart, " +
+            "(SELECT COUNT(r) FROM Recipe r WHERE r.author = u), (SELECT COUNT(b) FROM Book b WHERE b.author = u) " +
+            "FROM User u WHERE u.id = :id")
+    List<Object[]> findQuotaUsageById(@Param("id") Long id);
+
+    // Quota checks for recipes and books (QuotaService.consume): the user's row is locked until
+    // commit so creations by the same user are serialized across nodes, and the counts are
+    // locking reads so they see rows committed after this transaction's snapshot was taken.
+    @Query(value = "SELECT id FROM users WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockForQuota(@Param("id") Long id);
+
+    @Query(value = "SELECT COUNT(*) FROM recipe WHERE author_id = :id LOCK IN SHARE MODE", nativeQuery = true)
+    long countRecipesForQuota(@Param("id") Long id);
+
+    @Query(value = "SELECT COUNT(*) FROM books WHERE author_id = :id LOCK IN SHARE MODE", nativeQuery = true)
+    long countBooksForQuota(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.recipeGenerationCount = 0, u.recipeGenerationCycleStart = :now WHERE u.id = :id " +
+            "AND (u.recipeGenerationCycleStart IS NULL OR u.recipeGenerationCycleStart < :cycleStartedBefore)")
+    int resetGenerationCycle(@Param("id") Long id, @Param("now") LocalDateTime now,
+                             @Param("cycleStartedBefore") LocalDateTime cycleStartedBefore);
+
+    @Query("SELECT u.id FROM User u WHERE u.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+
+    @Query("SELECT u.email FROM User u WHERE u.id = :id")
+    Optional<String> findEmailById(@Param("id") Long id);
+
+    @Query("SELECT u.disabled FROM User u WHERE u.id = :id")
+    Optional<Boolean> findDisabledById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.disabled = true WHERE u.id = :id")
+    int markDisabled(@Param("id") Long id);
+
+    // Last step of account deletion; everything referencing the user is gone by then.
+    @Modifying
+    @Query(value = "DELETE FROM user_badges WHERE user_id = :id", nativeQuery = true)
+    int deleteBadgesOf(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteAccountRow(@Param("id") Long id);
+
+    @Query("SELECT u.isVerified FROM User u WHERE u.email = :email")
+    Optional<Boolean> findVerifiedByEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("UPDATE User u SET u.isVerified = true WHERE u.email = :email")
+    int markVerified(@Param("email") String email);
 
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePassword(@Param("email") String email, @Param("password") String password);
 
+    // Admin directory; a null filter parameter disables that condition. '!' escapes LIKE wildcards in the prefix.
+    String ADMIN_FILTERS = "(:role IS NULL OR u.role = :role) " +
+            "AND (:tier IS NULL OR u.subscriptionType = :tier) " +
+            "AND (:verified IS NULL OR u.isVerified = :verified) " +
+            "AND (:prefix IS NULL OR u.username LIKE :prefix ESCAPE '!' OR u.email LIKE :prefix ESCAPE '!')";
+
+    @Query(value = "SELECT new com.example.demo.dto.AdminUserDTO(u.id, u.email, u.username, u.role, " +
+            "u.subscriptionType, u.subscriptionExpiry, u.isVerified, u.imageUri, u.recipeGenerationCount, " +
+            "u.followerCount, u.followingCount) " +
+            "FROM User u WHERE " + ADMIN_FILTERS,
+            countQuery = "SELECT COUNT(u) FROM User u WHERE " + ADMIN_FILTERS)
+    Page<AdminUserDTO> findAdminPage(@Param("role") String role,
+                                     @Param("tier") User.SubscriptionType tier,
+                                     @Param("verified") Boolean verified,
+                                     @Param("prefix") String prefix,
+                                     Pageable pageable);
+
+    // Follow edges go straight to the join table; the counters are kept by SocialService.
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_following (follower_id, followed_id) VALUES (:followerId, :followedId)",
+            nativeQuery = true)
+    int insertFollow(@Param("followerId") Long followerId, @Param("followedId") Long followedId);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_following WHERE follower_id = :followerId AND followed_id = :followedId",
+            nativeQuery = true)
+    int deleteFollow(@Param("followerId") Long followerId, @Param("followedId") Long followedId);
+
+    @Query("SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END FROM User u JOIN u.following f " +
+            "WHERE u.id = :followerId AND f.id = :followedId")
+    boolean existsFollow(@Param("followerId") Long followerId, @Param("followedId") Long followedId);
+
+    @Query("SELECT f.id FROM User u JOIN u.followers f WHERE u.id = :id")
+    List<Long> findFollowerIds(@Param("id") Long id);
+
+    @Query("SELECT f.id FROM User u JOIN u.following f WHERE u.id = :id")
+    List<Long> findFollowingIds(@Param("id") Long id);
+
+    // Keyset pages of follow lists, by user id.
+    @Query("SELECT new com.example.demo.dto.FollowUserDTO(f.id, f.username, f.imageUri, f.followerCount) " +
+            "FROM User u JOIN u.followers f WHERE u.id = :id AND (:afterId IS NULL OR f.id > :afterId) ORDER BY f.id")
+    List<FollowUserDTO> findFollowerPage(@Param("id") Long id, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.demo.dto.FollowUserDTO(f.id, f.username, f.imageUri, f.followerCount) " +
+            "FROM User u JOIN u.following f WHERE u.id = :id AND (:afterId IS NULL OR f.id > :afterId) ORDER BY f.id")
+    List<FollowUserDTO> findFollowingPage(@Param("id") Long id, @Param("afterId") Long afterId, Pageable pageable);
+
+    // When a user goes away, the users on the other side of their follow edges lose one each.
+    @Modifying
+    @Query(value = "UPDATE users SET follower_count = follower_count - 1 " +
+            "WHERE id IN (SELECT followed_id FROM user_following WHERE follower_id = :id)", nativeQuery = true)
+    int decrementFollowerCountsFollowedBy(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE users SET following_count = following_count - 1 " +
+            "WHERE id IN (SELECT follower_id FROM user_following WHERE followed_id = :id)", nativeQuery = true)
+    int decrementFollowingCountsFollowing(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_following WHERE follower_id = :id OR followed_id = :id", nativeQuery = true)
+    int deleteFollowsOf(@Param("id") Long id);
+
+    @Query("SELECT new com.example.demo.dto.UserActivityDTO(u.id, u.username, " +
+            "CAST(u.followerCount AS long), CAST(u.publicRecipeCount AS long)) " +
+            "FROM User u ORDER BY u.followerCount DESC, u.publicRecipeCount DESC, u.id DESC")
+    List<UserActivityDTO> findTopCreators(Pageable pageable);
+
+    @Query("SELECT MAX(u.id) FROM User u")
+    Long findMaxId();
+
+    // Recomputes the denormalized counters of a range of users from the source tables.
+    @Modifying
+    @Query(value = "UPDATE users u SET " +
+            "u.follower_count = (SELECT COUNT(*) FROM user_following f WHERE f.followed_id = u.id), " +
+            "u.following_count = (SELECT COUNT(*) FROM user_following f WHERE f.follower_id = u.id), " +
+            "u.public_recipe_count = (SELECT COUNT(*) FROM recipe r WHERE r.author_id = u.id AND r.is_public = true) " +
+            "WHERE u.id BETWEEN :fromId AND :toId", nativeQuery = true)
+    int reconcileSocialCounters(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+}
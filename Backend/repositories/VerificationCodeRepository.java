@@ -0,0 +1,36 @@
+package com.example.demo.repositories;
+
+import com.example.demo.model.VerificationCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface VerificationCodeRepository extends JpaRepository<VerificationCode, String> {
+
+    boolean existsByCodeKeyAndVerifiedTrueAndExpiresAtAfter(String codeKey, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE VerificationCode c SET c.verified = true " +
+            "WHERE c.codeKey = :key AND c.code = :code AND c.expiresAt > :now")
+    int markVerified(@Param("key") String key, @Param("code") String code, @Param("now") LocalDateTime now);
+
+    // Counts a wrong guess against a live code.
+    @Modifying
+    @Query("UPDATE VerificationCode c SET c.attempts = c.attempts + 1 WHERE c.codeKey = :key AND c.expiresAt > :now")
+    int recordFailedAttempt(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM VerificationCode c WHERE c.codeKey = :key AND c.attempts >= :maxAttempts")
+    int deleteIfExhausted(@Param("key") String key, @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("DELETE FROM VerificationCode c WHERE c.codeKey = :key")
+    int deleteByKey(@Param("key") String key);
+
+    @Modifying
+    @Query("DELETE FROM VerificationCode c WHERE c.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,316 @@
+package com.example.demo.service;
+
+import com.example.demo.config.AccountStatusCache;
+import com.example.demo.model.AccountDeletion;
+import com.example.demo.repositories.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deletes user accounts in the background, as a sequence of small transactions.
+ *
+ * {@link #request} disables the account at once (sign-in is refused and existing tokens stop
+ * working, see AccountStatusCache) and records an {@link AccountDeletion} row; the
+ * {@link ClusterJobs#ACCOUNT_DELETIONS} job then removes the user's data one dependency type
+ * at a time, in the order of {@link AccountDeletion.Step}. Each step is one bulk statement, or
+ * one chunk of {@code accounts.deletion.chunk-size} ids, committed together with the row's
+ * step, so after a crash or a failed step the next run continues where the last commit left
+ * off. Recipes go through {@link RecipeDeletionService}. The users row itself is removed in the
+ * ACCOUNT step, once nothing references it.
+ */
+@Service
+public class AccountDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountDeletionService.class);
+
+    @Autowired
+    private AccountDeletionRepository deletionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ReviewReportRepository reviewReportRepository;
+
+    @Autowired
+    private RecipeReportRepository recipeReportRepository;
+
+    @Autowired
+    private RecipeSubmissionRepository recipeSubmissionRepository;
+
+    @Autowired
+    private MealPlanRepository mealPlanRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private ShoppingListItemRepository shoppingListItemRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private GlobalLeaderboardRepository leaderboardRepository;
+
+    @Autowired
+    private RecipeDeletionService recipeDeletionService;
+
+    @Autowired
+    private SocialService socialService;
+
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    @Autowired
+    private LeaderboardEngine leaderboardEngine;
+
+    @Autowired
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @Autowired
+    private RecipeDetailCache recipeDetailCache;
+
+    @Autowired
+    private VerificationCodeStore verificationCodes;
+
+    @Autowired
+    private AccountStatusCache accountStatus;
+
+    @Autowired
+    private ScheduledJobRunner jobRunner;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Rows (likes, favorites, reviews, meal plans, recipes) deleted per transaction.
+    @Value("${accounts.deletion.chunk-size:500}")
+    private int chunkSize;
+
+    private TransactionTemplate transaction;
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Disables the account and schedules its deletion. Asking again for an account that is
+     * already being deleted returns the existing deletion.
+     */
+    @Transactional
+    public AccountDeletion request(Long userId) {
+        AccountDeletion existing = deletionRepository.findByUserId(userId).orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+        String email = userRepository.findEmailById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        userRepository.markDisabled(userId);
+        accountStatus.markDisabled(userId);
+        AccountDeletion deletion = deletionRepository.save(new AccountDeletion(userId, email));
+        log.info("Account {} disabled, deletion {} scheduled", userId, deletion.getId());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    jobRunner.trigger(ClusterJobs.ACCOUNT_DELETIONS);
+                }
+            });
+        } else {
+            jobRunner.trigger(ClusterJobs.ACCOUNT_DELETIONS);
+        }
+        return deletion;
+    }
+
+    public AccountDeletion getStatus(Long userId) {
+        return deletionRepository.findByUserId(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No deletion for user " + userId));
+    }
+
+    public boolean hasPending() {
+        return deletionRepository.existsByStepNot(AccountDeletion.Step.DONE);
+    }
+
+    /**
+     * Runs every unfinished deletion to completion, including ones requested while this runs.
+     * A deletion whose step fails is recorded and left for the next run.
+     */
+    public void runPending() {
+        Set<Long> failed = new HashSet<>();
+        while (true) {
+            List<AccountDeletion> pending = deletionRepository.findByStepNotOrderByIdAsc(AccountDeletion.Step.DONE);
+            pending.removeIf(deletion -> failed.contains(deletion.getId()));
+            if (pending.isEmpty()) {
+                return;
+            }
+            for (AccountDeletion deletion : pending) {
+                log.info("Deleting account {} from {}", deletion.getUserId(), deletion.getStep());
+                if (!execute(deletion.getId())) {
+                    failed.add(deletion.getId());
+                }
+            }
+        }
+    }
+
+    private boolean execute(Long deletionId) {
+        AccountDeletion.Step step;
+        try {
+            do {
+                step = transaction.execute(status -> step(deletionId));
+            } while (step != AccountDeletion.Step.DONE);
+        } catch (RuntimeException e) {
+            log.error("Deletion {} failed, will resume on the next run", deletionId, e);
+            transaction.executeWithoutResult(status -> deletionRepository.findById(deletionId).ifPresent(deletion -> {
+                deletion.recordFailure(String.valueOf(e.getMessage()));
+                deletionRepository.save(deletion);
+            }));
+            return false;
+        }
+        AccountDeletion done = deletionRepository.findById(deletionId).orElseThrow();
+        log.info("Account {} deleted: {} rows removed", done.getUserId(), done.getDeletedRows());
+        return true;
+    }
+
+    /**
+     * Does one chunk or step of work and records it.
+     *
+     * @return the step to run next
+     */
+    private AccountDeletion.Step step(Long deletionId) {
+        AccountDeletion deletion = deletionRepository.findById(deletionId)
+                .orElseThrow(() -> new IllegalStateException("Deletion " + deletionId + " disappeared"));
+        Long userId = deletion.getUserId();
+        PageRequest chunk = PageRequest.of(0, chunkSize);
+
+        switch (deletion.getStep()) {
+            case LIKES:
+                List<Long> liked = recipeRepository.findIdsLikedByUserId(userId, chunk);
+                if (liked.isEmpty()) {
+                    deletion.advance(AccountDeletion.Step.FAVORITES);
+                    break;
+                }
+                deletion.addDeleted(recipeRepository.deleteLikesByUser(userId, liked));
+                counterService.addAll(CounterService.Counter.RECIPE_LIKES, liked, -1);
+                unlikeAfterCommit(liked);
+                break;
+            case FAVORITES:
+                int favorites = recipeRepository.deleteFavoritesByUser(userId, chunkSize);
+                deletion.addDeleted(favorites);
+                if (favorites < chunkSize) {
+                    deletion.advance(AccountDeletion.Step.REVIEWS);
+                }
+                break;
+            case REVIEWS:
+                List<Long> reviews = reviewRepository.findIdsByUserId(userId, chunk);
+                if (reviews.isEmpty()) {
+                    deletion.advance(AccountDeletion.Step.REPORTS);
+                    break;
+                }
+                reviewReportRepository.deleteByReviewIds(reviews);
+                deletion.addDeleted(reviewRepository.deleteByIds(reviews));
+                break;
+            case REPORTS:
+                deletion.addDeleted(recipeReportRepository.deleteByReporterId(userId)
+                        + reviewReportRepository.deleteByReporterId(userId));
+                deletion.advance(AccountDeletion.Step.SUBMISSIONS);
+                break;
+            case SUBMISSIONS:
+                deletion.addDeleted(recipeSubmissionRepository.deleteByUserId(userId));
+                deletion.advance(AccountDeletion.Step.MEAL_PLANS);
+                break;
+            case MEAL_PLANS:
+                List<Long> mealPlans = mealPlanRepository.findIdsByUserId(userId, chunk);
+                if (mealPlans.isEmpty()) {
+                    deletion.advance(AccountDeletion.Step.SHOPPING_LIST);
+                    break;
+                }
+                noteRepository.deleteByMealPlanIds(mealPlans);
+                mealPlanRepository.deleteRecipeLinksByMealPlanIds(mealPlans);
+                deletion.addDeleted(mealPlanRepository.deleteByIds(mealPlans));
+                break;
+            case SHOPPING_LIST:
+                deletion.addDeleted(shoppingListItemRepository.deleteByUserId(userId));
+                deletion.advance(AccountDeletion.Step.BOOKS);
+                break;
+            case BOOKS:
+                List<Long> books = bookRepository.findIdsByAuthorId(userId);
+                if (!books.isEmpty()) {
+                    bookRepository.deleteRecipeLinksByBookIds(books);
+                    deletion.addDeleted(bookRepository.deleteByIds(books));
+                }
+                deletion.advance(AccountDeletion.Step.RECIPES);
+                break;
+            case RECIPES:
+                List<Long> recipes = recipeRepository.findIdsByAuthorId(userId, chunk);
+                if (recipes.isEmpty()) {
+                    deletion.advance(AccountDeletion.Step.FOLLOWS);
+                    break;
+                }
+                deletion.addDeleted(recipeDeletionService.deleteRecipes(recipes));
+                break;
+            case FOLLOWS:
+                socialService.removeAllFollows(userId);
+                deletion.advance(AccountDeletion.Step.LEADERBOARD);
+                break;
+            case LEADERBOARD:
+                leaderboardRepository.deleteByUserEmail(deletion.getEmail());
+                deletion.advance(AccountDeletion.Step.ACCOUNT);
+                break;
+            case ACCOUNT:
+                userRepository.deleteBadgesOf(userId);
+                userRepository.deleteAccountRow(userId);
+                verificationCodes.remove(UserServiceImpl.otpKey(deletion.getEmail()));
+                verificationCodes.remove(UserServiceImpl.resetKey(deletion.getEmail()));
+                quotaService.invalidateAfterCommit(userId);
+                // Their reviews and likes may still sit in cached recipe details.
+                recipeDetailCache.invalidateAllAfterCommit();
+                deletion.advance(AccountDeletion.Step.REBUILD_LEADERBOARD);
+                break;
+            case REBUILD_LEADERBOARD:
+                // Reconciles the table here; other nodes reload on their next refresh.
+                leaderboardEngine.rebuild();
+                deletion.advance(AccountDeletion.Step.DONE);
+                break;
+            default:
+                break;
+        }
+        deletionRepository.save(deletion);
+        return deletion.getStep();
+    }
+
+    private void unlikeAfterCommit(List<Long> recipeIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recipeIds.forEach(id -> recipeSearchIndex.adjustLikes(id, -1));
+            }
+        });
+    }
+}
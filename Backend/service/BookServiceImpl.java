@@ -28,6 +28,12 @@ public class BookServiceImpl implements BookService {
     @Autowired
     private RecipeRepository recipeRepository;
 
+    @Autowired
+    private CurrentUser currentUser;
+
+    @Autowired
+    private QuotaService quotaService;
+
     @Override
     @Transactional
     public BookDTO createBook(BookDTO bookDTO) {
@@ -35,32 +41,10 @@ public class BookServiceImpl implements BookService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
 
-        User author = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User author = currentUser.referenceFor(userEmail);
 
         // Check subscription limits
-        switch(author.getSubscriptionType()) {
-            case FREE:
-                long freeBookCount = bookRepository.countByAuthor(author);
-                if(freeBookCount >= 3) {
-                    throw new SubscriptionLimitException("Free tier limited to 3 cookbooks");
-                }
-                break;
-
-            case PLUS:
-                long plusBookCount = bookRepository.countByAuthor(author);
-                if(plusBookCount >= 10) {
-                    throw new SubscriptionLimitException("Plus tier limited to 10 cookbooks");
-                }
-                break;
-
-            case PRO:
-                // Unlimited books
-                break;
-
-            default:
-                throw new SubscriptionLimitException("Invalid subscription type");
-        }
+        quotaService.consume(currentUser.getId(), QuotaService.Resource.BOOKS);
 
         Book book = new Book();
         book.setTitle(bookDTO.getTitle());
@@ -74,7 +58,7 @@ public class BookServiceImpl implements BookService {
             for (Long recipeId : bookDTO.getRecipeIds()) {
                 Recipe recipe = recipeRepository.findById(recipeId)
                         .orElseThrow(() -> new RuntimeException("Recipe not found with ID: " + recipeId));
-                if (!recipe.getAuthor().getEmail().equals(userEmail)) {
+                if (!recipe.getAuthor().getId().equals(author.getId())) {
                     throw new RuntimeException("Cannot add recipe not owned by the user: " + recipeId);
                 }
                 recipes.add(recipe);
@@ -203,6 +187,7 @@ public class BookServiceImpl implements BookService {
         }
 
         bookRepository.deleteById(id);
+        quotaService.invalidateAfterCommit(existingBook.getAuthor().getId());
     }
 
     @Override
@@ -236,8 +221,7 @@ public class BookServiceImpl implements BookService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
 
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = currentUser.referenceFor(userEmail);
 
         return bookRepository.findByAuthor(user).stream()
                 .map(this::mapEntityToDTO)
@@ -0,0 +1,228 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Challenge;
+import com.example.demo.model.ChallengeRollover;
+import com.example.demo.model.FeaturedWinner;
+import com.example.demo.model.GlobalLeaderboardEntry;
+import com.example.demo.repositories.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The nightly challenge rollover, run as a sequence of small transactions.
+ *
+ * Progress lives in a {@link ChallengeRollover} row per day. Every unit of work (one chunk of
+ * submission deletes, or one whole step) commits in the same transaction as the row's step and
+ * cursor, so after a crash the next run picks up exactly where the last commit left off:
+ * <ol>
+ *   <li>PURGE_EXPIRED: delete submissions of expired non-featured challenges in chunks, then
+ *       mark those challenges inactive;</li>
+ *   <li>AWARD_WINNERS: rebuild the leaderboard, then record its top three and award their badges;</li>
+ *   <li>PURGE_FEATURED: delete the ended featured challenge's submissions in chunks;</li>
+ *   <li>ROTATE_FEATURED: unfeature it and feature the next upcoming challenge;</li>
+ *   <li>REBUILD_LEADERBOARD: reconcile the leaderboard table with the remaining submissions; the
+ *       other nodes reload their rankings from it on their next LeaderboardEngine.refresh().</li>
+ * </ol>
+ * Badges are only awarded in the transaction that moves past AWARD_WINNERS, so rerunning the
+ * job never awards them twice. Scheduled through {@link ClusterJobs}.
+ */
+@Service
+public class ChallengeRolloverJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ChallengeRolloverJob.class);
+
+    private static final String[] BADGES = {"Master Chef", "Elite Cook", "Challenger Star"};
+
+    @Autowired
+    private ChallengeRolloverRepository rolloverRepository;
+
+    @Autowired
+    private ChallengeRepository challengeRepository;
+
+    @Autowired
+    private RecipeSubmissionRepository recipeSubmissionRepository;
+
+    @Autowired
+    private FeaturedWinnerRepository featuredWinnerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Lazy
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LeaderboardEngine leaderboardEngine;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Submissions deleted per transaction.
+    @Value("${challenges.rollover.chunk-size:500}")
+    private int chunkSize;
+
+    private TransactionTemplate transaction;
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Finishes any interrupted rollover, then rolls over today unless that already happened.
+     */
+    public void run() {
+        for (ChallengeRollover unfinished : rolloverRepository.findByStepNotOrderByIdAsc(ChallengeRollover.Step.DONE)) {
+            log.info("Resuming challenge rollover of {} at {}", unfinished.getRolloverDate(), unfinished.getStep());
+            execute(unfinished.getId());
+        }
+
+        LocalDate today = LocalDate.now();
+        if (rolloverRepository.findByRolloverDate(today).isPresent()) {
+            log.info("Challenge rollover of {} already done", today);
+            return;
+        }
+        ChallengeRollover rollover = transaction.execute(status -> rolloverRepository.save(new ChallengeRollover(today,
+                challengeRepository.findFirstByFeaturedTrueAndDeadlineLessThanEqualOrderByIdAsc(today)
+                        .map(Challenge::getId)
+                        .orElse(null))));
+        execute(rollover.getId());
+    }
+
+    private void execute(Long rolloverId) {
+        ChallengeRollover.Step step;
+        do {
+            step = transaction.execute(status -> step(rolloverId));
+        } while (step != ChallengeRollover.Step.DONE);
+        ChallengeRollover done = rolloverRepository.findById(rolloverId).orElseThrow();
+        log.info("Challenge rollover of {} finished: {} submissions deleted, {} badges awarded",
+                done.getRolloverDate(), done.getDeletedSubmissions(), done.getAwardedBadges());
+    }
+
+    /**
+     * Does one chunk or step of work and records it.
+     *
+     * @return the step to run next
+     */
+    private ChallengeRollover.Step step(Long rolloverId) {
+        ChallengeRollover rollover = rolloverRepository.findById(rolloverId)
+                .orElseThrow(() -> new IllegalStateException("Rollover " + rolloverId + " disappeared"));
+        Long featuredId = rollover.getFeaturedChallengeId();
+
+        switch (rollover.getStep()) {
+            case PURGE_EXPIRED:
+                List<Long> expired = challengeRepository.findExpiredIds(rollover.getRolloverDate());
+                if (!purgeChunk(rollover, expired)) {
+                    if (!expired.isEmpty()) {
+                        challengeRepository.deactivate(expired);
+                    }
+                    rollover.advance(featuredId != null
+                            ? ChallengeRollover.Step.AWARD_WINNERS
+                            : ChallengeRollover.Step.ROTATE_FEATURED);
+                }
+                break;
+            case AWARD_WINNERS:
+                awardWinners(rollover);
+                rollover.advance(ChallengeRollover.Step.PURGE_FEATURED);
+                break;
+            case PURGE_FEATURED:
+                if (!purgeChunk(rollover, Collections.singletonList(featuredId))) {
+                    rollover.advance(ChallengeRollover.Step.ROTATE_FEATURED);
+                }
+                break;
+            case ROTATE_FEATURED:
+                rotateFeatured(rollover);
+                rollover.advance(ChallengeRollover.Step.REBUILD_LEADERBOARD);
+                break;
+            case REBUILD_LEADERBOARD:
+                leaderboardEngine.rebuild();
+                rollover.advance(ChallengeRollover.Step.DONE);
+                break;
+            default:
+                break;
+        }
+        rolloverRepository.save(rollover);
+        return rollover.getStep();
+    }
+
+    /**
+     * Deletes the next chunk of submissions of the given challenges.
+     *
+     * @return false once there is nothing left to delete
+     */
+    private boolean purgeChunk(ChallengeRollover rollover, List<Long> challengeIds) {
+        if (challengeIds.isEmpty()) {
+            return false;
+        }
+        List<Long> ids = recipeSubmissionRepository.findIdsByChallengeIdsAfter(challengeIds, rollover.getCursor(),
+                PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return false;
+        }
+        int deleted = recipeSubmissionRepository.deleteByIds(ids);
+        rollover.setCursor(ids.get(ids.size() - 1));
+        rollover.setDeletedSubmissions(rollover.getDeletedSubmissions() + deleted);
+        rollover.setUpdatedAt(LocalDateTime.now());
+        return true;
+    }
+
+    private void awardWinners(ChallengeRollover rollover) {
+        featuredWinnerRepository.deleteAllInBatch();
+
+        // Ranked from a fresh rebuild rather than the table, which nodes update from their own
+        // possibly stale rankings between rebuilds.
+        List<GlobalLeaderboardEntry> standings = leaderboardEngine.rebuildTop(BADGES.length);
+        List<FeaturedWinner> winners = new ArrayList<>();
+        for (int i = 0; i < Math.min(BADGES.length, standings.size()); i++) {
+            GlobalLeaderboardEntry entry = standings.get(i);
+            String email = entry.getUserEmail();
+            String username = Optional.ofNullable(entry.getUserId())
+                    .flatMap(userRepository::findUsernameById)
+                    .orElse(email);
+            winners.add(new FeaturedWinner(email, username, entry.getTotalPoints()));
+
+            if (userRepository.existsByEmail(email)) {
+                userService.awardBadgeToUser(email, BADGES[i]);
+                rollover.setAwardedBadges(rollover.getAwardedBadges() + 1);
+            } else {
+                log.warn("Winner {} of challenge {} no longer exists, no badge awarded", email,
+                        rollover.getFeaturedChallengeId());
+            }
+        }
+        featuredWinnerRepository.saveAll(winners);
+        log.info("Featured challenge {} ended with {} winners", rollover.getFeaturedChallengeId(), winners.size());
+    }
+
+    private void rotateFeatured(ChallengeRollover rollover) {
+        if (rollover.getFeaturedChallengeId() != null) {
+            challengeRepository.setFeatured(rollover.getFeaturedChallengeId(), false);
+        }
+        if (challengeRepository.existsByFeaturedTrue()) {
+            return;
+        }
+        Optional<Challenge> next = challengeRepository
+                .findFirstByFeaturedFalseAndDeadlineAfterOrderByDeadlineAscIdAsc(rollover.getRolloverDate());
+        if (next.isPresent()) {
+            challengeRepository.setFeatured(next.get().getId(), true);
+            log.info("New featured challenge: {}", next.get().getTitle());
+        } else {
+            log.warn("No upcoming challenge to feature");
+        }
+    }
+}
@@ -23,6 +23,8 @@ public interface ChallengeService {
     void voteChallenge(Long id, int voteValue);
     // ✅ Add this method declaration
     void recalculateLeaderboard();
+    // Closes expired challenges and, when the featured one ends, records its winners.
+    void resetExpiredChallengesAndLeaderboard();
     List<ChallengeDTO> getFeaturedChallenges();
     ChallengeDTO featureChallenge(Long challengeId);
     void unfeatureChallenge(Long challengeId);
@@ -2,14 +2,16 @@ package com.example.demo.service;
 
 import com.example.demo.dto.ChallengeDTO;
 import com.example.demo.dto.RecipeDTO;
+import com.example.demo.dto.SubmissionScoreDTO;
 import com.example.demo.model.*;
 import com.example.demo.repositories.*;
 import com.example.demo.service.ChallengeService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
@@ -40,11 +42,15 @@ public class ChallengeServiceImpl implements ChallengeService {
     @Autowired
     private UserRepository userRepository;
 
-    @Lazy
     @Autowired
-    private UserService userService;
+    private CounterService counterService;
+
     @Autowired
     private FeaturedChallengeRepository featuredChallengeRepository;
+    @Autowired
+    private LeaderboardEngine leaderboardEngine;
+    @Autowired
+    private ChallengeRolloverJob challengeRolloverJob;
 
     @Override
     public List<ChallengeDTO> getAllChallenges() {
@@ -53,14 +59,14 @@ public class ChallengeServiceImpl implements ChallengeService {
             boolean isActive = !LocalDate.now().isAfter(challenge.getDeadline());
             challenge.setActive(isActive);
         });
-        return challenges.stream().map(this::mapToDTO).collect(Collectors.toList());
+        return mapToDTOs(challenges);
     }
     @Override
     public List<ChallengeDTO> getFeaturedChallenges() {
         List<FeaturedChallenge> featuredChallenges = featuredChallengeRepository.findAll();
-        return featuredChallenges.stream()
-                .map(fc -> mapToDTO(fc.getChallenge()))
-                .collect(Collectors.toList());
+        return mapToDTOs(featuredChallenges.stream()
+                .map(FeaturedChallenge::getChallenge)
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -85,122 +91,11 @@ public class ChallengeServiceImpl implements ChallengeService {
         featuredChallengeRepository.findByChallenge(challenge)
                 .ifPresent(featuredChallengeRepository::delete);
     }
-    //@Scheduled(fixedRate = 15000)
-    @Scheduled(cron = "0 0 0 * * ?") // Runs daily at midnight
-    @Transactional
+    // Runs daily at midnight on one instance, see ClusterJobs. Commits step by step, so it must
+    // not run inside a surrounding transaction.
+    @Override
     public void resetExpiredChallengesAndLeaderboard() {
-        LocalDate today = LocalDate.now();
-        List<Challenge> challenges = challengeRepository.findAll();
-
-
-        for (Challenge challenge : challenges) {
-            if (!challenge.isFeatured() && challenge.getDeadline().isBefore(today)) {
-                List<RecipeSubmission> submissionsToDelete = challenge.getRecipeSubmissions();
-
-                if (!submissionsToDelete.isEmpty()) {
-                    recipeSubmissionRepository.deleteAll(submissionsToDelete);
-                    challenge.getRecipeSubmissions().clear();
-                    challengeRepository.save(challenge);
-                    System.out.println("❌ Deleted submissions for Expired Weekly Challenge ID: " + challenge.getId());
-                }
-
-                challenge.setActive(false);
-                challengeRepository.save(challenge);
-            }
-        }
-
-        Challenge featuredChallenge = challenges.stream()
-                .filter(Challenge::isFeatured)
-                .filter(ch -> ch.getDeadline().isBefore(today) || ch.getDeadline().isEqual(today))
-                .findFirst()
-                .orElse(null);
-
-        if (featuredChallenge != null) {
-            featuredWinnerRepository.deleteAll();
-
-            // Retrieve global leaderboard entries and compute the top 3
-            List<GlobalLeaderboardEntry> topThree = leaderboardRepository.findAll().stream()
-                    .sorted(Comparator.comparingInt(GlobalLeaderboardEntry::getTotalPoints).reversed())
-                    .limit(3)
-                    .collect(Collectors.toList());
-
-            // Map them to FeaturedWinner entities
-            List<FeaturedWinner> winnersToSave = topThree.stream()
-                    .map(entry -> {
-                        User user = userRepository.findByEmailIgnoreCase(entry.getUserEmail()).orElse(null);
-                        String username = (user != null && user.getUsername() != null) ? user.getUsername() : entry.getUserEmail();
-                        return new FeaturedWinner(entry.getUserEmail(), username, entry.getTotalPoints());
-                    })
-                    .collect(Collectors.toList());
-
-            // Save the top three winners to the FeaturedWinner table
-            featuredWinnerRepository.saveAll(winnersToSave);
-            System.out.println("Saved Featured Winners: ");
-            for (FeaturedWinner winner : winnersToSave) {
-                System.out.println("Winner: " + winner.getUserEmail() + " with " + winner.getTotalPoints() + " points");
-            }
-            List<GlobalLeaderboardEntry> leaderboardEntries = leaderboardRepository.findAll()
-                    .stream()
-                    .sorted(Comparator.comparingInt(GlobalLeaderboardEntry::getTotalPoints).reversed())
-                    .collect(Collectors.toList());
-
-            if (leaderboardEntries.isEmpty()) {
-                System.out.println("⚠️ No leaderboard entries found. Skipping badge awards.");
-            } else {
-                if (leaderboardEntries.size() >= 1) {
-                    System.out.println("Awarding Master Chef to: " + leaderboardEntries.get(0).getUserEmail());
-                    userService.awardBadgeToUser(leaderboardEntries.get(0).getUserEmail(), "Master Chef");
-                }
-                if (leaderboardEntries.size() >= 2) {
-                    System.out.println("Awarding Elite Cook to: " + leaderboardEntries.get(1).getUserEmail());
-                    userService.awardBadgeToUser(leaderboardEntries.get(1).getUserEmail(), "Elite Cook");
-                }
-                if (leaderboardEntries.size() >= 3) {
-                    System.out.println("Awarding Challenger Star to: " + leaderboardEntries.get(2).getUserEmail());
-                    userService.awardBadgeToUser(leaderboardEntries.get(2).getUserEmail(), "Challenger Star");
-                }
-            }
-
-
-            leaderboardRepository.deleteAll();
-            System.out.println("✅ Global leaderboard has been reset.");
-
-            System.out.println("Global leaderboard has been reset.");
-
-            // Delete submissions for the featured challenge.
-            List<RecipeSubmission> featuredSubmissions = featuredChallenge.getRecipeSubmissions();
-            if (!featuredSubmissions.isEmpty()) {
-                recipeSubmissionRepository.deleteAll(featuredSubmissions);
-                featuredChallenge.getRecipeSubmissions().clear();
-                challengeRepository.save(featuredChallenge);
-                System.out.println("Deleted submissions for Featured Challenge ID: " + featuredChallenge.getId());
-            }
-            leaderboardRepository.deleteAll();
-        }
-
-        // Remove "featured" status from expired challenge
-        featuredChallenge.setFeatured(false);
-        challengeRepository.save(featuredChallenge);
-
-        // Automatically feature the next challenge with the nearest deadline
-        Optional<Challenge> nextFeatured = challenges.stream()
-                .filter(ch -> ch.getDeadline().isAfter(today) && !ch.isFeatured())
-                .min(Comparator.comparing(Challenge::getDeadline));
-
-        if (nextFeatured.isPresent()) {
-            Challenge newFeatured = nextFeatured.get();
-            newFeatured.setFeatured(true);
-            challengeRepository.save(newFeatured);
-            System.out.println("🎉 New Featured Challenge: " + newFeatured.getTitle());
-        } else {
-            System.out.println("⚠️ No upcoming challenges found!");
-        }
-
-        recalculateLeaderboard();
-        System.out.println("✅ Leaderboard recalculated after reset.");
-
-
-
+        challengeRolloverJob.run();
     }
 
     @Override
@@ -214,110 +109,7 @@ public class ChallengeServiceImpl implements ChallengeService {
     @Transactional
     public void recalculateLeaderboard() {
         System.out.println("🔄 Recalculating global leaderboard...");
-
-        List<Challenge> challenges = challengeRepository.findAll();
-        Map<String, Integer> globalUserPoints = new HashMap<>();
-        // Map to record each user's earliest submission id (smaller id means older)
-        Map<String, Long> userEarliestSubmissionId = new HashMap<>();
-
-        for (Challenge challenge : challenges) {
-            int maxPoints = challenge.getPoints();
-            List<RecipeSubmission> submissions = challenge.getSubmissions();
-            if (submissions == null || submissions.isEmpty()) continue;
-
-            Map<String, RecipeSubmission> bestSubmissionByUser = new HashMap<>();
-            for (RecipeSubmission sub : submissions) {
-                String userEmail = sub.getUser().getEmail();
-                // Compare likes first; if equal, choose the one with the smaller (older) id.
-                bestSubmissionByUser.merge(userEmail, sub, (existing, newSub) ->
-                        (newSub.getRecipe().getLikes() > existing.getRecipe().getLikes()) ||
-                                (newSub.getRecipe().getLikes() == existing.getRecipe().getLikes() &&
-                                        newSub.getId() < existing.getId())
-                                ? newSub : existing
-                );
-            }
-
-            List<RecipeSubmission> bestSubmissions = new ArrayList<>(bestSubmissionByUser.values());
-            bestSubmissions.sort(
-                    Comparator.comparingInt((RecipeSubmission s) -> s.getRecipe().getLikes()).reversed()
-                            .thenComparing(RecipeSubmission::getId) // Tie-breaker: lower id wins
-            );
-
-            Map<String, Integer> challengePoints = new HashMap<>();
-            for (int i = 0; i < bestSubmissions.size(); i++) {
-                RecipeSubmission sub = bestSubmissions.get(i);
-                String userEmail = sub.getUser().getEmail();
-                if (sub.getRecipe().getLikes() > 0) {  // Only users with likes get points
-                    int pointsEarned;
-                    switch (i) {
-                        case 0:
-                            pointsEarned = maxPoints;
-                            break;
-                        case 1:
-                            pointsEarned = (int) (maxPoints * 0.7);
-                            break;
-                        case 2:
-                            pointsEarned = (int) (maxPoints * 0.5);
-                            break;
-                        default:
-                            pointsEarned = (int) (maxPoints * 0.1);
-                            break;
-                    }
-                    challengePoints.put(userEmail, pointsEarned);
-                    // Record earliest submission id for tie-breaking.
-                    Long subId = sub.getId();
-                    if (!userEarliestSubmissionId.containsKey(userEmail) ||
-                            subId < userEarliestSubmissionId.get(userEmail)) {
-                        userEarliestSubmissionId.put(userEmail, subId);
-                    }
-                }
-            }
-            // Sum challenge points into the global points.
-            for (var entry : challengePoints.entrySet()) {
-                globalUserPoints.merge(entry.getKey(), entry.getValue(), Integer::sum);
-            }
-        }
-
-        System.out.println("🔥 Updated Leaderboard:");
-        globalUserPoints.forEach((user, points) ->
-                System.out.println("User: " + user + " - Points: " + points)
-        );
-
-        // Build a list of leaderboard entries along with their earliest submission ids.
-        List<Map.Entry<GlobalLeaderboardEntry, Long>> leaderboardEntriesWithIds =
-                globalUserPoints.entrySet().stream()
-                        .map(entry -> {
-                            User user = userRepository.findByEmail(entry.getKey()).orElse(null);
-                            String username = user != null ? user.getUsername() : entry.getKey();
-                            GlobalLeaderboardEntry gle = new GlobalLeaderboardEntry(entry.getKey(), username, entry.getValue());
-                            // Look up the earliest submission id for this user (may be null if not recorded)
-                            Long earliestId = userEarliestSubmissionId.get(entry.getKey());
-                            return new AbstractMap.SimpleEntry<>(gle, earliestId);
-                        })
-                        .collect(Collectors.toList());
-
-        // Sort by total points descending; if tied, the one with the smaller (older) id wins.
-        leaderboardEntriesWithIds.sort((e1, e2) -> {
-            int cmp = Integer.compare(e2.getKey().getTotalPoints(), e1.getKey().getTotalPoints());
-            if (cmp == 0) {
-                Long id1 = e1.getValue();
-                Long id2 = e2.getValue();
-                if (id1 == null && id2 == null) return 0;
-                if (id1 == null) return 1;
-                if (id2 == null) return -1;
-                return id1.compareTo(id2);
-            } else {
-                return cmp;
-            }
-        });
-
-        List<GlobalLeaderboardEntry> newLeaderboard = leaderboardEntriesWithIds.stream()
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-
-        // Replace the leaderboard with the new ordering.
-        leaderboardRepository.deleteAll();
-        leaderboardRepository.saveAll(newLeaderboard);
+        leaderboardEngine.rebuild();
     }
 
 
@@ -362,6 +154,8 @@ public class ChallengeServiceImpl implements ChallengeService {
         submission.setUser(user);
         submission.setSubmissionDate(LocalDate.now());
         recipeSubmissionRepository.save(submission);
+        leaderboardEngine.onSubmissionAdded(new SubmissionScoreDTO(submission.getId(), challenge.getId(),
+                challenge.getPoints(), user.getId(), recipe.getId(), recipe.getLikes()));
 
         System.out.println("Recipe submitted successfully for Challenge ID: " + challengeId);
 
@@ -377,16 +171,8 @@ public class ChallengeServiceImpl implements ChallengeService {
         boolean isActive = !LocalDate.now().isAfter(challenge.getDeadline());
         challenge.setActive(isActive);
 
-        // Convert Challenge entity to DTO
-        ChallengeDTO dto = mapToDTO(challenge);
-
-        // Ensure submitted recipes are included
-        List<Recipe> submittedRecipes = challenge.getSubmittedRecipes();
-        List<RecipeDTO> recipeDTOs = submittedRecipes.stream()
-                .map(recipeService::mapEntityToDTO)
-                .collect(Collectors.toList());
-        dto.setSubmittedRecipes(recipeDTOs);
-        return dto;
+        // Convert Challenge entity to DTO, including its submitted recipes
+        return mapToDTO(challenge);
     }
 
 
@@ -412,10 +198,7 @@ public class ChallengeServiceImpl implements ChallengeService {
 
     @Override
     public List<GlobalLeaderboardEntry> getGlobalLeaderboard() {
-        return leaderboardRepository.findAll()
-                .stream()
-                .sorted(Comparator.comparingInt(GlobalLeaderboardEntry::getTotalPoints).reversed())
-                .collect(Collectors.toList());
+        return leaderboardRepository.findAllByOrderByTotalPointsDescEarliestSubmissionIdAsc();
     }
 
 
@@ -433,8 +216,13 @@ public class ChallengeServiceImpl implements ChallengeService {
         boolean wasFeatured = challenge.isFeatured();  // Store old featured status
         challenge.setFeatured(challengeDTO.isFeatured());
 
-        // Save changes first
-        Challenge updatedChallenge = challengeRepository.save(challenge);
+        // Save changes first; fails if a vote changed the points since the challenge was loaded
+        Challenge updatedChallenge;
+        try {
+            updatedChallenge = challengeRepository.save(challenge);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw concurrentChange();
+        }
 
         // Handle featured/unfeatured logic
         if (challengeDTO.isFeatured()) {
@@ -456,10 +244,8 @@ public class ChallengeServiceImpl implements ChallengeService {
 
     @Override
     public void voteChallenge(Long id, int voteValue) {
-        Challenge challenge = challengeRepository.findById(id)
+        counterService.add(CounterService.Counter.CHALLENGE_POINTS, id, voteValue)
                 .orElseThrow(() -> new RuntimeException("Challenge not found"));
-        challenge.setPoints(challenge.getPoints() + voteValue);
-        challengeRepository.save(challenge);
     }
 
     @Override
@@ -482,30 +268,66 @@ public class ChallengeServiceImpl implements ChallengeService {
             // Remove related recipe submissions
             recipeSubmissionRepository.deleteByChallenge(challenge);
 
-            // Finally, delete the challenge
-            challengeRepository.deleteById(id);
+            // Finally, delete the challenge. The delete checks the version, so flush here to
+            // turn a vote that landed since the load into a 409 rather than a failed commit.
+            try {
+                challengeRepository.deleteById(id);
+                challengeRepository.flush();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                throw concurrentChange();
+            }
         }
     }
 
+    // Challenge.version is bumped by every vote (CounterService), so versioned writes from a
+    // loaded copy can lose to a concurrent vote.
+    private static ResponseStatusException concurrentChange() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Challenge was changed by someone else, reload it and try again");
+    }
+
 
     // Helper methods to map between entity and DTO.
     private ChallengeDTO mapToDTO(Challenge challenge) {
-        ChallengeDTO dto = new ChallengeDTO();
-        dto.setId(challenge.getId());
-        dto.setTitle(challenge.getTitle());
-        dto.setDescription(challenge.getDescription());
-        dto.setImageUrl(challenge.getImageUrl());
-        dto.setDeadline(challenge.getDeadline().toString());
-        dto.setPoints(challenge.getPoints());
-        dto.setActive(challenge.isActive());
-        dto.setMaxSubmissions(challenge.getMaxSubmissions());
-        dto.setFeatured(challenge.isFeatured());
-        List<Recipe> recipes = challenge.getSubmittedRecipes();
-        List<RecipeDTO> recipeDTOs = recipes.stream()
-                .map(recipeService::mapEntityToDTO) // Or your custom method
-                .collect(Collectors.toList());
-        dto.setSubmittedRecipes(recipeDTOs);
-        return dto;
+        return mapToDTOs(List.of(challenge)).get(0);
+    }
+
+    // Loads the submitted recipes of all challenges in one query and maps them in one batch.
+    private List<ChallengeDTO> mapToDTOs(List<Challenge> challenges) {
+        if (challenges.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> challengeIds = challenges.stream().map(Challenge::getId).collect(Collectors.toList());
+        Map<Long, List<Recipe>> recipesByChallenge = new HashMap<>();
+        Map<Long, Recipe> distinctRecipes = new LinkedHashMap<>();
+        for (Object[] row : recipeSubmissionRepository.findRecipesByChallengeIds(challengeIds)) {
+            Recipe recipe = (Recipe) row[1];
+            recipesByChallenge.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(recipe);
+            distinctRecipes.putIfAbsent(recipe.getId(), recipe);
+        }
+        Map<Long, RecipeDTO> recipeDTOs = recipeService.mapEntitiesToDTOs(new ArrayList<>(distinctRecipes.values()))
+                .stream()
+                .collect(Collectors.toMap(RecipeDTO::getId, dto -> dto));
+
+        List<ChallengeDTO> dtos = new ArrayList<>(challenges.size());
+        for (Challenge challenge : challenges) {
+            ChallengeDTO dto = new ChallengeDTO();
+            dto.setId(challenge.getId());
+            dto.setTitle(challenge.getTitle());
+            dto.setDescription(challenge.getDescription());
+            dto.setImageUrl(challenge.getImageUrl());
+            dto.setDeadline(challenge.getDeadline().toString());
+            dto.setPoints(challenge.getPoints());
+            dto.setActive(challenge.isActive());
+            dto.setMaxSubmissions(challenge.getMaxSubmissions());
+            dto.setFeatured(challenge.isFeatured());
+            dto.setSubmittedRecipes(recipesByChallenge.getOrDefault(challenge.getId(), Collections.emptyList())
+                    .stream()
+                    .map(recipe -> recipeDTOs.get(recipe.getId()))
+                    .collect(Collectors.toList()));
+            dtos.add(dto);
+        }
+        return dtos;
     }
 
     private Challenge mapToEntity(ChallengeDTO dto) {
@@ -0,0 +1,101 @@
+package com.example.demo.service;
+
+import com.example.demo.model.JobRun;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+
+/**
+ * Schedules for work that must run once per cluster rather than once per instance. Each tick
+ * goes through {@link ScheduledJobRunner}, so only the node that wins the lease runs it; the
+ * same names can be triggered from /api/admin/jobs. Only the parts that write shared tables run
+ * here; node-local state (such as LeaderboardEngine's in-memory rankings) refreshes itself on
+ * every node.
+ */
+@Component
+public class ClusterJobs {
+
+    public static final String CHALLENGE_ROLLOVER = "challenge-rollover";
+    public static final String LEADERBOARD_VERIFY = "leaderboard-verify";
+    public static final String SOCIAL_COUNTERS_RECONCILE = "social-counters-reconcile";
+    public static final String LIKES_RECONCILE = "likes-reconcile";
+    public static final String ACCOUNT_DELETIONS = "account-deletions";
+    public static final String OUTBOX_PURGE = "outbox-purge";
+
+    @Autowired
+    private ScheduledJobRunner jobRunner;
+
+    @Autowired
+    private ChallengeService challengeService;
+
+    @Autowired
+    private LeaderboardEngine leaderboardEngine;
+
+    @Autowired
+    private SocialService socialService;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    @Autowired
+    private AccountDeletionService accountDeletionService;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @PostConstruct
+    public void register() {
+        jobRunner.register(CHALLENGE_ROLLOVER, Duration.ofHours(1), Duration.ofMinutes(5),
+                challengeService::resetExpiredChallengesAndLeaderboard);
+        jobRunner.register(LEADERBOARD_VERIFY, Duration.ofMinutes(30), Duration.ofMinutes(1),
+                leaderboardEngine::verify);
+        jobRunner.register(SOCIAL_COUNTERS_RECONCILE, Duration.ofHours(1), Duration.ofMinutes(5),
+                socialService::reconcile);
+        jobRunner.register(LIKES_RECONCILE, Duration.ofHours(1), Duration.ofMinutes(5),
+                likeCounterService::reconcile);
+        // No minimum lease: a deletion requested right after a run must be able to start one.
+        jobRunner.register(ACCOUNT_DELETIONS, Duration.ofHours(1), Duration.ZERO,
+                accountDeletionService::runPending);
+        jobRunner.register(OUTBOX_PURGE, Duration.ofMinutes(30), Duration.ofMinutes(1),
+                emailOutboxService::purgeSentBodies);
+    }
+
+    @Scheduled(cron = "${jobs.challenge-rollover.cron:0 0 0 * * ?}") // daily at midnight
+    public void challengeRollover() {
+        jobRunner.run(CHALLENGE_ROLLOVER, JobRun.Trigger.SCHEDULED);
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.rebuild-interval-ms:900000}",
+            initialDelayString = "${leaderboard.rebuild-interval-ms:900000}")
+    public void leaderboardVerify() {
+        jobRunner.run(LEADERBOARD_VERIFY, JobRun.Trigger.SCHEDULED);
+    }
+
+    @Scheduled(cron = "${jobs.social-counters-reconcile.cron:0 30 3 * * ?}") // daily at 03:30
+    public void socialCountersReconcile() {
+        jobRunner.run(SOCIAL_COUNTERS_RECONCILE, JobRun.Trigger.SCHEDULED);
+    }
+
+    @Scheduled(cron = "${jobs.likes-reconcile.cron:0 45 3 * * ?}") // daily at 03:45
+    public void likesReconcile() {
+        jobRunner.run(LIKES_RECONCILE, JobRun.Trigger.SCHEDULED);
+    }
+
+    // Picks up deletions whose immediate trigger was skipped or that were interrupted.
+    @Scheduled(fixedDelayString = "${accounts.deletion.resume-interval-ms:60000}",
+            initialDelayString = "${accounts.deletion.resume-interval-ms:60000}")
+    public void accountDeletions() {
+        if (accountDeletionService.hasPending()) {
+            jobRunner.run(ACCOUNT_DELETIONS, JobRun.Trigger.SCHEDULED);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.purge-interval-ms:600000}",
+            initialDelayString = "${mail.outbox.purge-interval-ms:600000}")
+    public void outboxPurge() {
+        jobRunner.run(OUTBOX_PURGE, JobRun.Trigger.SCHEDULED);
+    }
+}
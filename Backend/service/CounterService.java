@@ -0,0 +1,130 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Counters that change with one relative UPDATE instead of load, modify and save, so
+ * concurrent increments are never lost and no other column of the row is written.
+ *
+ * A change is {@code UPDATE ... SET x = x + :delta WHERE id = :id}, optionally with
+ * {@code AND x + :delta BETWEEN :min AND :max}, followed by a read of the new value in the same
+ * transaction. The UPDATE keeps the row locked until commit, so the value read is exactly the
+ * one this change produced. Challenge points are also edited by admins through a full entity
+ * save; Challenge carries a {@code @Version} that these updates bump, so such a save based on a
+ * stale copy fails instead of overwriting votes cast in the meantime.
+ */
+@Service
+public class CounterService {
+
+    public enum Counter {
+        RECIPE_LIKES("Recipe", "likes", false),
+        CHALLENGE_POINTS("Challenge", "points", true),
+        RECIPE_GENERATIONS("User", "recipeGenerationCount", false),
+        USER_FOLLOWERS("User", "followerCount", false),
+        USER_FOLLOWING("User", "followingCount", false),
+        USER_PUBLIC_RECIPES("User", "publicRecipeCount", false);
+
+        final String update;
+        final String boundedUpdate;
+        final String bulkUpdate;
+        final String select;
+
+        Counter(String entity, String field, boolean versioned) {
+            update = "UPDATE " + entity + " e SET e." + field + " = e." + field + " + :delta"
+                    + (versioned ? ", e.version = e.version + 1" : "") + " WHERE e.id = :id";
+            boundedUpdate = update + " AND e." + field + " + :delta BETWEEN :min AND :max";
+            bulkUpdate = update.replace("e.id = :id", "e.id IN :ids");
+            select = "SELECT e." + field + " FROM " + entity + " e WHERE e.id = :id";
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @return the new value, or empty if there is no such row
+     */
+    @Transactional
+    public OptionalInt add(Counter counter, Long id, int delta) {
+        int updated = entityManager.createQuery(counter.update)
+                .setParameter("delta", delta)
+                .setParameter("id", id)
+                .executeUpdate();
+        return updated == 1 ? OptionalInt.of(read(counter, id)) : OptionalInt.empty();
+    }
+
+    /**
+     * Adds {@code delta} only if the result stays within {@code [min, max]}.
+     *
+     * @return the new value, or empty if there is no such row or the bound would be crossed
+     */
+    @Transactional
+    public OptionalInt addWithin(Counter counter, Long id, int delta, int min, int max) {
+        int updated = entityManager.createQuery(counter.boundedUpdate)
+                .setParameter("delta", delta)
+                .setParameter("id", id)
+                .setParameter("min", min)
+                .setParameter("max", max)
+                .executeUpdate();
+        return updated == 1 ? OptionalInt.of(read(counter, id)) : OptionalInt.empty();
+    }
+
+    /**
+     * Adds the same {@code delta} to the counter of every row in {@code ids} with one UPDATE,
+     * without reading the new values back.
+     *
+     * @return number of rows changed
+     */
+    @Transactional
+    public int addAll(Counter counter, Collection<Long> ids, int delta) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createQuery(counter.bulkUpdate)
+                .setParameter("delta", delta)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * Awards one more of a badge, creating the user_badges row on the first one.
+     *
+     * @return the user's new count for the badge
+     */
+    @Transactional
+    public int incrementBadge(Long userId, String badge) {
+        entityManager.createNativeQuery("INSERT INTO user_badges (user_id, badge, count) VALUES (:userId, :badge, 1) " +
+                        "ON DUPLICATE KEY UPDATE count = count + 1")
+                .setParameter("userId", userId)
+                .setParameter("badge", badge)
+                .executeUpdate();
+        return ((Number) entityManager.createNativeQuery("SELECT count FROM user_badges WHERE user_id = :userId AND badge = :badge")
+                .setParameter("userId", userId)
+                .setParameter("badge", badge)
+                .getSingleResult()).intValue();
+    }
+
+    @Transactional
+    public void setBadge(Long userId, String badge, int count) {
+        entityManager.createNativeQuery("INSERT INTO user_badges (user_id, badge, count) VALUES (:userId, :badge, :count) " +
+                        "ON DUPLICATE KEY UPDATE count = VALUES(count)")
+                .setParameter("userId", userId)
+                .setParameter("badge", badge)
+                .setParameter("count", count)
+                .executeUpdate();
+    }
+
+    private int read(Counter counter, Long id) {
+        List<?> values = entityManager.createQuery(counter.select)
+                .setParameter("id", id)
+                .getResultList();
+        return ((Number) values.get(0)).intValue();
+    }
+}
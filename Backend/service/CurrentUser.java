@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+import com.example.demo.config.UserPrincipal;
+import com.example.demo.model.User;
+import com.example.demo.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * The authenticated caller, resolved without loading the {@link User} entity.
+ *
+ * Requests authenticated by JWT already carry a {@link UserPrincipal} built from the token's
+ * claims, so id and role cost nothing. Other authentications (form or Google login) only carry
+ * the email; those are resolved with one {id, role} projection and memoized for the rest of the
+ * request. Services that need to write a relation use {@link #reference()}, an uninitialized
+ * proxy that only hits the database if one of its fields is read.
+ *
+ * The token's subscription claim is not trusted: tiers change without a new token being issued,
+ * so {@link #getSubscriptionType()} reads the current value once per request.
+ */
+@Component
+public class CurrentUser {
+
+    private static final String PRINCIPAL_ATTRIBUTE = CurrentUser.class.getName() + ".principal";
+    private static final String TIER_ATTRIBUTE = CurrentUser.class.getName() + ".tier";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @throws RuntimeException if nobody is authenticated or the account no longer exists
+     */
+    public UserPrincipal get() {
+        UserPrincipal principal = find();
+        if (principal == null) {
+            throw new RuntimeException("User not found");
+        }
+        return principal;
+    }
+
+    /**
+     * @return the caller, or null for anonymous requests
+     */
+    public UserPrincipal find() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof UserPrincipal) {
+            UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+            if (principal.getId() != null) {
+                return principal;
+            }
+        }
+
+        String email = authentication.getName();
+        UserPrincipal memoized = (UserPrincipal) getRequestAttribute(PRINCIPAL_ATTRIBUTE);
+        if (memoized != null && memoized.getEmail().equals(email)) {
+            return memoized;
+        }
+        List<Object[]> rows = userRepository.findPrincipalByEmail(email);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        UserPrincipal principal = new UserPrincipal((Long) rows.get(0)[0], email, (String) rows.get(0)[1]);
+        setRequestAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        return principal;
+    }
+
+    public Long getId() {
+        return get().getId();
+    }
+
+    public String getEmail() {
+        return get().getEmail();
+    }
+
+    /**
+     * Lazy reference to the caller's row, for setting relations or as a query parameter.
+     */
+    public User reference() {
+        return entityManager.getReference(User.class, getId());
+    }
+
+    /**
+     * Lazy reference when {@code email} is the caller (the usual case for services handed the
+     * email by a controller); otherwise loads the user by email as before.
+     */
+    public User referenceFor(String email) {
+        UserPrincipal principal = find();
+        if (principal != null && principal.getEmail().equals(email)) {
+            return entityManager.getReference(User.class, principal.getId());
+        }
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    /**
+     * The caller's current tier, read once per request.
+     */
+    public User.SubscriptionType getSubscriptionType() {
+        Long id = getId();
+        User.SubscriptionType memoized = (User.SubscriptionType) getRequestAttribute(TIER_ATTRIBUTE + id);
+        if (memoized != null) {
+            return memoized;
+        }
+        User.SubscriptionType tier = userRepository.findSubscriptionTypeById(id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        setRequestAttribute(TIER_ATTRIBUTE + id, tier);
+        return tier;
+    }
+
+    public boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(auth -> auth.getAuthority().equals("ADMIN") || auth.getAuthority().equals("ROLE_ADMIN"));
+    }
+
+    // Outside a web request (schedulers, workers) nothing is memoized.
+    private static Object getRequestAttribute(String name) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null ? attributes.getAttribute(name, RequestAttributes.SCOPE_REQUEST) : null;
+    }
+
+    private static void setRequestAttribute(String name, Object value) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(name, value, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.service;
+
+import com.example.demo.model.VerificationCode;
+import com.example.demo.repositories.VerificationCodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * {@link VerificationCodeStore} on the verification_codes table, for running several nodes.
+ * Guesses are checked with conditional UPDATEs, so concurrent attempts on different nodes are
+ * all counted, and each guess commits on its own whatever the caller does afterwards. Every
+ * node sweeps; deleting expired rows twice is harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "codes.store", havingValue = "database")
+public class DatabaseVerificationCodeStore implements VerificationCodeStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseVerificationCodeStore.class);
+
+    @Autowired
+    private VerificationCodeRepository codeRepository;
+
+    @Value("${codes.max-attempts:5}")
+    private int maxAttempts;
+
+    @Override
+    @Transactional
+    public void put(String key, String code, Duration ttl) {
+        codeRepository.save(new VerificationCode(key, code, LocalDateTime.now().plus(ttl)));
+    }
+
+    @Override
+    public String find(String key) {
+        return codeRepository.findById(key)
+                .filter(stored -> stored.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(VerificationCode::getCode)
+                .orElse(null);
+    }
+
+    // In its own transaction: callers reject a wrong guess by throwing, which would otherwise
+    // roll back the attempt just counted and leave the code open to unlimited guessing.
+    @Override
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public Result verify(String key, String code) {
+        LocalDateTime now = LocalDateTime.now();
+        if (codeRepository.markVerified(key, code, now) == 1) {
+            return Result.MATCH;
+        }
+        if (codeRepository.recordFailedAttempt(key, now) == 0) {
+            return Result.EXPIRED;
+        }
+        return codeRepository.deleteIfExhausted(key, maxAttempts) == 1 ? Result.LOCKED : Result.MISMATCH;
+    }
+
+    @Override
+    public boolean isVerified(String key) {
+        return codeRepository.existsByCodeKeyAndVerifiedTrueAndExpiresAtAfter(key, LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional
+    public void remove(String key) {
+        codeRepository.deleteByKey(key);
+    }
+
+    @Scheduled(fixedDelayString = "${codes.sweep-interval-ms:60000}")
+    @Transactional
+    public void sweep() {
+        int deleted = codeRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("Swept {} expired verification codes", deleted);
+        }
+    }
+}
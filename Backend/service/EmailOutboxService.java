@@ -0,0 +1,251 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OutboxEmailDTO;
+import com.example.demo.model.OutboxEmail;
+import com.example.demo.repositories.OutboxEmailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox for user-facing email (OTP, password reset, feedback, newsletter
+ * confirmations).
+ *
+ * {@link #enqueue} only inserts a row, joining the caller's transaction, so a request never
+ * waits on SMTP and no mail is sent for a change that rolled back. Once the transaction commits
+ * the dispatcher is woken; it also polls on an interval. Each due row is leased with a
+ * conditional UPDATE before a worker sends it, so concurrent dispatchers (or instances) never
+ * send the same row twice. A failed send is retried with exponential backoff and, after
+ * {@code mail.outbox.max-attempts}, marked DEAD and left for an admin to inspect or retry.
+ * Bodies of SENT messages are blanked after {@code mail.outbox.sent-body-retention-ms} by the
+ * {@link ClusterJobs#OUTBOX_PURGE} job, since they may contain one-time codes and reset links.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    @Autowired
+    private OutboxEmailRepository outboxRepository;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${mail.outbox.workers:2}")
+    private int workers;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff-base-ms:30000}")
+    private long backoffBaseMs;
+
+    @Value("${mail.outbox.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    // How long a claimed row stays invisible to other dispatchers while it is being sent.
+    @Value("${mail.outbox.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${mail.outbox.sent-body-retention-ms:3600000}")
+    private long sentBodyRetentionMs;
+
+    private ExecutorService dispatcher;
+    private ExecutorService senders;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    @PostConstruct
+    public void start() {
+        dispatcher = Executors.newSingleThreadExecutor();
+        senders = Executors.newFixedThreadPool(workers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Queues a plain-text email. Runs in the caller's transaction when there is one.
+     *
+     * @param dedupKey identifies the logical message; while one with the same key is still
+     *                 pending, the call is a no-op. May be null.
+     */
+    @Transactional
+    public void enqueue(String to, String subject, String body, String dedupKey) {
+        if (dedupKey != null && outboxRepository.existsByDedupKeyAndStatus(dedupKey, OutboxEmail.Status.PENDING)) {
+            return;
+        }
+        outboxRepository.save(new OutboxEmail(to, subject, body, dedupKey));
+        wakeUpAfterCommit();
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:10000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (OutboxEmail.Status status : OutboxEmail.Status.values()) {
+            stats.put(status.name().toLowerCase(), outboxRepository.countByStatus(status));
+        }
+        return stats;
+    }
+
+    public List<OutboxEmailDTO> getDeadLetters(int limit) {
+        return outboxRepository.findByStatusOrderByIdDesc(OutboxEmail.Status.DEAD, PageRequest.of(0, limit)).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    public void purgeSentBodies() {
+        int purged = outboxRepository.purgeSentBodies(
+                LocalDateTime.now().minusNanos(sentBodyRetentionMs * 1_000_000L));
+        if (purged > 0) {
+            log.info("Cleared the bodies of {} sent outbox emails", purged);
+        }
+    }
+
+    /**
+     * Puts a dead message back in the queue with a fresh attempt budget.
+     */
+    @Transactional
+    public void retry(Long id) {
+        OutboxEmail email = outboxRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown outbox email: " + id));
+        if (email.getStatus() != OutboxEmail.Status.DEAD) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Only dead emails can be retried");
+        }
+        email.setStatus(OutboxEmail.Status.PENDING);
+        email.setAttempts(0);
+        email.setNextAttemptAt(LocalDateTime.now());
+        outboxRepository.save(email);
+        wakeUpAfterCommit();
+    }
+
+    private void wakeUpAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            wakeUp();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wakeUp();
+            }
+        });
+    }
+
+    // Coalesces wake-ups: at most one drain is waiting to start at any time.
+    private void wakeUp() {
+        if (!wakeUpPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                wakeUpPending.set(false);
+                drain();
+            });
+        } catch (RejectedExecutionException e) {
+            wakeUpPending.set(false);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> due = outboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+                if (due.isEmpty()) {
+                    return;
+                }
+                LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000L);
+                List<Future<?>> sends = new ArrayList<>();
+                for (Long id : due) {
+                    if (outboxRepository.claim(id, now, leaseUntil) == 1) {
+                        sends.add(senders.submit(() -> send(id)));
+                    }
+                }
+                for (Future<?> send : sends) {
+                    send.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Email outbox drain failed", e);
+        }
+    }
+
+    private void send(Long id) {
+        OutboxEmail email = outboxRepository.findById(id).orElse(null);
+        if (email == null || email.getStatus() != OutboxEmail.Status.PENDING) {
+            return;
+        }
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(email.getRecipient());
+        message.setSubject(email.getSubject());
+        message.setText(email.getBody());
+        try {
+            mailSender.send(message);
+            email.setStatus(OutboxEmail.Status.SENT);
+            email.setSentAt(LocalDateTime.now());
+            email.setLastError(null);
+        } catch (MailException e) {
+            int attempts = email.getAttempts() + 1;
+            email.setAttempts(attempts);
+            email.setLastError(truncate(e.getMessage()));
+            if (attempts >= maxAttempts) {
+                email.setStatus(OutboxEmail.Status.DEAD);
+                log.error("Giving up on outbox email {} to {} after {} attempts", id, email.getRecipient(), attempts, e);
+            } else {
+                email.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMs(attempts) * 1_000_000L));
+                log.warn("Outbox email {} failed (attempt {}), retrying later: {}", id, attempts, e.getMessage());
+            }
+        }
+        outboxRepository.save(email);
+    }
+
+    private OutboxEmailDTO toDTO(OutboxEmail email) {
+        return new OutboxEmailDTO(email.getId(), email.getRecipient(), email.getSubject(), email.getStatus().name(),
+                email.getAttempts(), email.getLastError(), email.getCreatedAt(), email.getNextAttemptAt(),
+                email.getSentAt());
+    }
+
+    private long backoffMs(int attempts) {
+        long delay = backoffBaseMs << Math.min(attempts - 1, 30);
+        return delay > 0 ? Math.min(delay, backoffMaxMs) : backoffMaxMs;
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+
+/**
+ * Remote (or local) image classifier used by {@link ImageModerationService}. Implementations
+ * return scores in Sightengine's response layout; only the nudity, weapon, offensive, violence
+ * and gore sections are read. Select one with {@code moderation.provider}.
+ *
+ * The image is passed as the bytes {@link ImageModerationService} downloaded and hashed, never
+ * as a URL, so the provider judges exactly the content the verdict is cached for.
+ */
+public interface ImageModerationProvider {
+
+    JsonNode classify(byte[] image) throws IOException;
+}
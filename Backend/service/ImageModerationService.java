@@ -0,0 +1,391 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ModerationJobDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs image moderation off the request thread.
+ *
+ * A submitted image is downloaded once and hashed (SHA-256 of its bytes). If the same content
+ * was judged before, the cached verdict is returned without calling the provider; otherwise
+ * those same bytes are uploaded to the provider, so a verdict always belongs to the content it
+ * is cached under. Jobs are queued on a bounded worker pool and their status can be polled by
+ * id. When the queue is full, submissions are rejected with 503 instead of piling up threads.
+ *
+ * The URL comes from the client, so the download only goes to public hosts: https only, every
+ * address the host resolves to must be public (no loopback, private, link-local/metadata,
+ * carrier-grade NAT or multicast ranges), redirects are followed by hand with the same check on
+ * each hop, and the body is capped at {@code moderation.max-image-bytes}.
+ */
+@Service
+public class ImageModerationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageModerationService.class);
+
+    private static final String PENDING = "PENDING";
+    private static final String DONE = "DONE";
+    private static final String FAILED = "FAILED";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Autowired
+    private ImageModerationProvider provider;
+
+    @Value("${moderation.workers:4}")
+    private int workers;
+
+    @Value("${moderation.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${moderation.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${moderation.job-ttl-ms:3600000}")
+    private long jobTtlMs;
+
+    @Value("${moderation.max-image-bytes:10485760}")
+    private long maxImageBytes;
+
+    @Value("${moderation.http.timeout-ms:15000}")
+    private long timeoutMs;
+
+    // Verdict thresholds: a score above its threshold makes the image inappropriate.
+    @Value("${moderation.threshold.nudity:0.3}")
+    private double nudityThreshold;
+
+    @Value("${moderation.threshold.weapon:0.05}")
+    private double weaponThreshold;
+
+    @Value("${moderation.threshold.offensive:0.3}")
+    private double offensiveThreshold;
+
+    @Value("${moderation.threshold.violence:0.3}")
+    private double violenceThreshold;
+
+    @Value("${moderation.threshold.gore:0.3}")
+    private double goreThreshold;
+
+    @Value("${moderation.max-redirects:3}")
+    private int maxRedirects;
+
+    private ThreadPoolExecutor executor;
+    // Redirects are followed in download() so that every hop is checked.
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // content hash -> verdict, least recently used first
+    private final Map<String, Boolean> verdicts = Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > cacheMaxEntries;
+                }
+            });
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues moderation of the image at {@code imageUrl}.
+     *
+     * @throws ResponseStatusException 503 if the worker queue is full
+     */
+    public ModerationJobDTO submit(String imageUrl) {
+        try {
+            checkScheme(parse(imageUrl));
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        Job job = new Job(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        try {
+            job.future = executor.submit(() -> run(job, imageUrl));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Moderation queue is full, retry later");
+        }
+        return job.toDTO();
+    }
+
+    public ModerationJobDTO getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown moderation job: " + jobId);
+        }
+        return job.toDTO();
+    }
+
+    /**
+     * Submits and waits up to {@code waitMs} for the verdict; for the legacy blocking endpoint.
+     */
+    public ModerationJobDTO moderateAndWait(String imageUrl, long waitMs) {
+        ModerationJobDTO submitted = submit(imageUrl);
+        Job job = jobs.get(submitted.getJobId());
+        try {
+            job.future.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Moderation job {} still running after {} ms", job.id, waitMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // run() records its own failures on the job.
+        }
+        return job.toDTO();
+    }
+
+    @Scheduled(fixedDelayString = "${moderation.job-ttl-ms:3600000}")
+    public void expireJobs() {
+        long cutoff = System.currentTimeMillis() - jobTtlMs;
+        jobs.values().removeIf(job -> !PENDING.equals(job.status) && job.finishedAt < cutoff);
+    }
+
+    private void run(Job job, String imageUrl) {
+        try {
+            byte[] image = download(imageUrl);
+            String hash = sha256(image);
+            Boolean cached = verdicts.get(hash);
+            if (cached != null) {
+                job.finish(cached, true);
+                return;
+            }
+            boolean appropriate = isAppropriate(provider.classify(image));
+            verdicts.put(hash, appropriate);
+            job.finish(appropriate, false);
+            log.info("Moderated {}: isAppropriate={}", imageUrl, appropriate);
+        } catch (Exception e) {
+            log.error("Moderation failed for {}", imageUrl, e);
+            job.fail(e.getMessage());
+        }
+    }
+
+    private byte[] download(String imageUrl) throws IOException, InterruptedException {
+        URI uri = parse(imageUrl);
+        for (int hop = 0; ; hop++) {
+            checkScheme(uri);
+            checkPublicHost(uri.getHost());
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .GET()
+                    .build();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            int status = response.statusCode();
+            if (status == 301 || status == 302 || status == 303 || status == 307 || status == 308) {
+                response.body().close();
+                if (hop >= maxRedirects) {
+                    throw new IOException("Too many redirects");
+                }
+                String location = response.headers().firstValue("Location")
+                        .orElseThrow(() -> new IOException("Redirect without a Location header"));
+                uri = uri.resolve(location);
+                continue;
+            }
+            if (status != 200) {
+                response.body().close();
+                throw new IOException("Image download returned HTTP " + status);
+            }
+            if (response.headers().firstValueAsLong("Content-Length").orElse(0) > maxImageBytes) {
+                response.body().close();
+                throw new IOException("Image exceeds " + maxImageBytes + " bytes");
+            }
+            return readCapped(response.body());
+        }
+    }
+
+    private byte[] readCapped(InputStream body) throws IOException {
+        try (InputStream in = body) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (out.size() + read > maxImageBytes) {
+                    throw new IOException("Image exceeds " + maxImageBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static URI parse(String imageUrl) throws IOException {
+        try {
+            return new URI(imageUrl);
+        } catch (URISyntaxException | NullPointerException e) {
+            throw new IOException("Invalid image URL");
+        }
+    }
+
+    private static void checkScheme(URI uri) throws IOException {
+        if (!"https".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            throw new IOException("Image URL must be an https URL");
+        }
+    }
+
+    // Every address of the host must be public; otherwise the server could be steered at itself
+    // or its network (cloud metadata lives at 169.254.169.254 and fd00:ec2::254).
+    private static void checkPublicHost(String host) throws IOException {
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new IOException("Unknown image host: " + host);
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw new IOException("Image host is not allowed: " + host);
+            }
+        }
+    }
+
+    private static boolean isPublic(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 4) {
+            int first = bytes[0] & 0xFF;
+            int second = bytes[1] & 0xFF;
+            // 0.0.0.0/8, 100.64.0.0/10 (carrier-grade NAT), 192.0.0.0/24, 198.18.0.0/15, 240.0.0.0/4
+            return first != 0 && !(first == 100 && second >= 64 && second < 128)
+                    && !(first == 192 && second == 0 && (bytes[2] & 0xFF) == 0)
+                    && !(first == 198 && (second == 18 || second == 19)) && first < 240;
+        }
+        // fc00::/7 unique local (incl. fd00:ec2::254), and IPv4-mapped/compatible forms.
+        if ((bytes[0] & 0xFE) == 0xFC) {
+            return false;
+        }
+        boolean embedsIpv4 = true;
+        for (int i = 0; i < 10; i++) {
+            embedsIpv4 &= bytes[i] == 0;
+        }
+        if (embedsIpv4) {
+            try {
+                return isPublic(InetAddress.getByAddress(Arrays.copyOfRange(bytes, 12, 16)));
+            } catch (UnknownHostException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean isAppropriate(JsonNode root) {
+        boolean appropriate = true;
+
+        JsonNode nudity = root.path("nudity");
+        for (String field : new String[]{"sexual_activity", "sexual_display", "erotica",
+                "very_suggestive", "suggestive", "mildly_suggestive"}) {
+            if (nudity.path(field).asDouble(0.0) > nudityThreshold) {
+                log.warn("High nudity level detected: {}={}", field, nudity.path(field).asDouble(0.0));
+                appropriate = false;
+            }
+        }
+
+        JsonNode weapons = root.path("weapon").path("classes");
+        for (String field : new String[]{"firearm", "firearm_toy", "firearm_gesture", "knife"}) {
+            if (weapons.path(field).asDouble(0.0) > weaponThreshold) {
+                log.warn("Detected a weapon: {}={}", field, weapons.path(field).asDouble(0.0));
+                appropriate = false;
+            }
+        }
+
+        for (JsonNode value : root.path("offensive")) {
+            if (value.asDouble(0.0) > offensiveThreshold) {
+                log.warn("High offensive content detected.");
+                appropriate = false;
+                break;
+            }
+        }
+
+        double violence = root.at("/violence/prob").asDouble(0.0);
+        double gore = root.at("/gore/prob").asDouble(0.0);
+        if (violence > violenceThreshold || gore > goreThreshold) {
+            log.warn("High violence/gore detected: violence_prob={}, gore_prob={}", violence, gore);
+            appropriate = false;
+        }
+        return appropriate;
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            out[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            out[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(out);
+    }
+
+    private static final class Job {
+        final String id;
+        volatile String status = PENDING;
+        volatile Boolean appropriate;
+        volatile boolean cached;
+        volatile String error;
+        volatile long finishedAt;
+        volatile Future<?> future;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        void finish(boolean appropriate, boolean cached) {
+            this.appropriate = appropriate;
+            this.cached = cached;
+            this.finishedAt = System.currentTimeMillis();
+            this.status = DONE;
+        }
+
+        void fail(String error) {
+            this.error = error;
+            this.finishedAt = System.currentTimeMillis();
+            this.status = FAILED;
+        }
+
+        ModerationJobDTO toDTO() {
+            return new ModerationJobDTO(id, status, appropriate, cached, error);
+        }
+    }
+}
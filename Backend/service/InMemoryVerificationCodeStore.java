@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local {@link VerificationCodeStore}. Holds at most {@code codes.max-entries} codes; when
+ * full, expired codes are swept first and then the one closest to expiry is dropped.
+ */
+@Component
+@ConditionalOnProperty(name = "codes.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryVerificationCodeStore.class);
+
+    @Value("${codes.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${codes.max-attempts:5}")
+    private int maxAttempts;
+
+    private final Map<String, Entry> codes = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String key, String code, Duration ttl) {
+        if (codes.size() >= maxEntries && !codes.containsKey(key)) {
+            sweep();
+            if (codes.size() >= maxEntries) {
+                codes.entrySet().stream()
+                        .min(Comparator.comparingLong(e -> e.getValue().expiresAt))
+                        .ifPresent(oldest -> {
+                            codes.remove(oldest.getKey());
+                            log.warn("Verification code store is full ({} codes), dropped the oldest", maxEntries);
+                        });
+            }
+        }
+        codes.put(key, new Entry(code, System.currentTimeMillis() + ttl.toMillis(), 0, false));
+    }
+
+    @Override
+    public String find(String key) {
+        Entry entry = codes.get(key);
+        return entry != null && entry.isLive(System.currentTimeMillis()) ? entry.code : null;
+    }
+
+    @Override
+    public Result verify(String key, String code) {
+        long now = System.currentTimeMillis();
+        Result[] result = {Result.EXPIRED};
+        codes.computeIfPresent(key, (k, entry) -> {
+            if (!entry.isLive(now)) {
+                return null;
+            }
+            if (entry.code.equals(code)) {
+                result[0] = Result.MATCH;
+                return new Entry(entry.code, entry.expiresAt, entry.attempts, true);
+            }
+            if (entry.attempts + 1 >= maxAttempts) {
+                result[0] = Result.LOCKED;
+                return null;
+            }
+            result[0] = Result.MISMATCH;
+            return new Entry(entry.code, entry.expiresAt, entry.attempts + 1, entry.verified);
+        });
+        return result[0];
+    }
+
+    @Override
+    public boolean isVerified(String key) {
+        Entry entry = codes.get(key);
+        return entry != null && entry.verified && entry.isLive(System.currentTimeMillis());
+    }
+
+    @Override
+    public void remove(String key) {
+        codes.remove(key);
+    }
+
+    @Scheduled(fixedDelayString = "${codes.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        codes.values().removeIf(entry -> !entry.isLive(now));
+    }
+
+    private static final class Entry {
+        final String code;
+        final long expiresAt;
+        final int attempts;
+        final boolean verified;
+
+        Entry(String code, long expiresAt, int attempts, boolean verified) {
+            this.code = code;
+            this.expiresAt = expiresAt;
+            this.attempts = attempts;
+            this.verified = verified;
+        }
+
+        boolean isLive(long now) {
+            return now < expiresAt;
+        }
+    }
+}
@@ -0,0 +1,568 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SubmissionScoreDTO;
+import com.example.demo.model.GlobalLeaderboardEntry;
+import com.example.demo.repositories.GlobalLeaderboardRepository;
+import com.example.demo.repositories.RecipeSubmissionRepository;
+import com.example.demo.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps the global leaderboard up to date without recomputing it from scratch.
+ *
+ * All submissions are loaded once into per-challenge rankings keyed by user id. A like or
+ * unlike only re-ranks the challenges the recipe was submitted to, and only the users whose
+ * awarded points changed are written back, each as a relative change to their own row, so the
+ * leaderboard table is never emptied while readers are looking at it.
+ *
+ * {@link #rebuild()} recomputes everything from the database and writes absolute totals; it
+ * also runs periodically to correct any drift (e.g. a rolled back like, or nodes whose rankings
+ * disagreed when they applied their likes).
+ *
+ * Likes and submissions are applied after the caller commits, on a single background thread, so
+ * the request thread neither waits for the lock nor holds its own connection while a second one
+ * is opened. Likes on recipes that are in no challenge are dropped before that. Every change runs
+ * under this object's lock in its own transaction that commits before the lock is released, so
+ * no thread ever ranks on top of state that is not yet committed.
+ *
+ * Each node keeps its own rankings. Only the table writes that reconcile the whole leaderboard
+ * ({@link #rebuild()}) run once per cluster; every node reloads its rankings on its own every
+ * {@code leaderboard.local-refresh-ms} ({@link #refresh()}), so no node ranks on a stale view
+ * for longer than that. Because likes are written as relative changes, a node with a stale view
+ * never overwrites the points that other nodes added in the meantime.
+ */
+@Component
+public class LeaderboardEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardEngine.class);
+
+    // Higher likes first; on equal likes the older (smaller id) submission wins.
+    private static final Comparator<Entry> RANK_ORDER =
+            Comparator.comparingInt((Entry e) -> -e.likes).thenComparingLong(e -> e.submissionId);
+
+    @Autowired
+    private RecipeSubmissionRepository recipeSubmissionRepository;
+
+    @Autowired
+    private GlobalLeaderboardRepository leaderboardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    private final Map<Long, ChallengeRanking> challenges = new HashMap<>();
+    private final Map<Long, Set<Long>> challengesByRecipe = new HashMap<>();
+    // userId -> (challengeId -> points awarded in that challenge)
+    private final Map<Long, Map<Long, Award>> awardsByUser = new HashMap<>();
+    private volatile boolean loaded = false;
+    // Recipes submitted to any challenge; read without the lock to drop irrelevant likes early.
+    private volatile Set<Long> submittedRecipes = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Every change runs in a fresh transaction inside the monitor, so the lock is only released
+    // after the rows it wrote are committed. A plain @Transactional synchronized method would
+    // release the lock before its proxy commits.
+    private TransactionTemplate writes;
+
+    // Applies likes and submissions one at a time, off the request threads.
+    private ExecutorService updates;
+
+    @PostConstruct
+    public void init() {
+        writes = new TransactionTemplate(transactionManager);
+        writes.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        updates = Executors.newSingleThreadExecutor();
+    }
+
+    @PreDestroy
+    public void stop() {
+        updates.shutdownNow();
+    }
+
+    /**
+     * Applies a like (+1) or unlike (-1) on a recipe to every challenge it was submitted to,
+     * once the caller's transaction has committed.
+     */
+    public void applyLikeDelta(Long recipeId, int delta) {
+        if (delta == 0 || (loaded && !submittedRecipes.contains(recipeId))) {
+            return;
+        }
+        afterCommit(() -> applyLikeDeltaNow(recipeId, delta));
+    }
+
+    /**
+     * Registers a new challenge submission once the caller's transaction has committed. A
+     * submission only scores once its recipe has likes.
+     */
+    public void onSubmissionAdded(SubmissionScoreDTO submission) {
+        afterCommit(() -> onSubmissionAddedNow(submission));
+    }
+
+    private synchronized void applyLikeDeltaNow(Long recipeId, int delta) {
+        if (!loaded) {
+            // The like is committed and counted by now, so the fresh load already includes it.
+            inOwnTransaction(() -> {
+                load();
+                persistAll();
+            });
+            return;
+        }
+        Set<Long> challengeIds = challengesByRecipe.get(recipeId);
+        if (challengeIds == null) {
+            return;
+        }
+        inOwnTransaction(() -> {
+            Map<Long, Integer> pointDeltas = new HashMap<>();
+            for (Long challengeId : challengeIds) {
+                ChallengeRanking ranking = challenges.get(challengeId);
+                Entry entry = ranking.byRecipe.get(recipeId);
+                ranking.removeBest(entry.userId);
+                entry.likes += delta;
+                ranking.addBest(entry.userId);
+                reaward(challengeId, ranking).forEach((userId, points) -> pointDeltas.merge(userId, points, Integer::sum));
+            }
+            persistDeltas(pointDeltas);
+        });
+    }
+
+    private synchronized void onSubmissionAddedNow(SubmissionScoreDTO submission) {
+        inOwnTransaction(() -> {
+            if (!loaded) {
+                // The submission is committed, so the fresh load already contains it.
+                load();
+                persistAll();
+                return;
+            }
+            ChallengeRanking ranking = challenges.computeIfAbsent(submission.getChallengeId(),
+                    id -> new ChallengeRanking(submission.getChallengePoints()));
+            ranking.removeBest(submission.getUserId());
+            index(ranking, submission);
+            ranking.addBest(submission.getUserId());
+            persistDeltas(reaward(submission.getChallengeId(), ranking));
+        });
+    }
+
+    /**
+     * Recomputes every ranking from the database and reconciles the stored leaderboard with it.
+     * Runs in its own transaction, committed before the lock is released.
+     *
+     * @return number of users whose stored standing differed from the recomputed one
+     */
+    public synchronized int rebuild() {
+        Integer drift = writes.execute(status -> {
+            load();
+            return persistAll();
+        });
+        return drift != null ? drift : 0;
+    }
+
+    /**
+     * Rebuilds (see {@link #rebuild()}) and returns the top {@code limit} users of the rankings it
+     * just computed, ordered like the table. Reading the table instead could see totals written
+     * from another node's stale view, and a caller whose transaction started earlier would not see
+     * the rebuild's commit at all.
+     *
+     * @return unsaved entries carrying user id, email, username and total points
+     */
+    public synchronized List<GlobalLeaderboardEntry> rebuildTop(int limit) {
+        rebuild();
+        List<GlobalLeaderboardEntry> top = new ArrayList<>();
+        Map<Long, Long> earliestByUser = new HashMap<>();
+        Map<Long, Integer> totalByUser = new HashMap<>();
+        for (Map.Entry<Long, Map<Long, Award>> user : awardsByUser.entrySet()) {
+            int total = 0;
+            long earliest = Long.MAX_VALUE;
+            for (Award award : user.getValue().values()) {
+                total += award.points;
+                earliest = Math.min(earliest, award.submissionId);
+            }
+            totalByUser.put(user.getKey(), total);
+            earliestByUser.put(user.getKey(), earliest);
+        }
+        List<Long> ranked = new ArrayList<>(totalByUser.keySet());
+        ranked.sort(Comparator.comparingInt((Long userId) -> -totalByUser.get(userId))
+                .thenComparingLong(earliestByUser::get));
+        ranked = ranked.subList(0, Math.min(limit, ranked.size()));
+        if (ranked.isEmpty()) {
+            return top;
+        }
+        Map<Long, Object[]> identities = new HashMap<>();
+        for (Object[] identity : userRepository.findIdentitiesByIds(ranked)) {
+            identities.put((Long) identity[0], identity);
+        }
+        for (Long userId : ranked) {
+            Object[] identity = identities.get(userId);
+            if (identity == null) {
+                continue;
+            }
+            String email = (String) identity[1];
+            GlobalLeaderboardEntry entry = new GlobalLeaderboardEntry(email,
+                    identity[2] != null ? (String) identity[2] : email, totalByUser.get(userId));
+            entry.setUserId(userId);
+            entry.setEarliestSubmissionId(earliestByUser.get(userId));
+            top.add(entry);
+        }
+        return top;
+    }
+
+    /**
+     * Reloads this node's rankings from the database without writing anything. The rankings
+     * live in memory on every node, while likes on other nodes, the challenge rollover, account
+     * deletion and {@link #verify()} change the data on just one of them, so every node runs
+     * this to pick those changes up.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.local-refresh-ms:60000}",
+            initialDelayString = "${leaderboard.local-refresh-ms:60000}")
+    public synchronized void refresh() {
+        if (loaded) {
+            writes.executeWithoutResult(status -> load());
+        }
+    }
+
+    // Writes the leaderboard table, so it is scheduled once per cluster by ClusterJobs; the
+    // other nodes pick the result up with refresh().
+    public void verify() {
+        int drift = rebuild();
+        if (drift > 0) {
+            log.warn("Leaderboard drift detected and corrected for {} users", drift);
+        }
+    }
+
+    private void load() {
+        challenges.clear();
+        challengesByRecipe.clear();
+        awardsByUser.clear();
+
+        for (SubmissionScoreDTO submission : recipeSubmissionRepository.findAllScores()) {
+            ChallengeRanking ranking = challenges.computeIfAbsent(submission.getChallengeId(),
+                    id -> new ChallengeRanking(submission.getChallengePoints()));
+            index(ranking, submission);
+        }
+        for (Map.Entry<Long, ChallengeRanking> challenge : challenges.entrySet()) {
+            ChallengeRanking ranking = challenge.getValue();
+            ranking.byUser.keySet().forEach(ranking::addBest);
+            reaward(challenge.getKey(), ranking);
+        }
+        Set<Long> recipes = ConcurrentHashMap.newKeySet();
+        recipes.addAll(challengesByRecipe.keySet());
+        submittedRecipes = recipes;
+        loaded = true;
+    }
+
+    // Writes every ranked user and every stored row back, so the table matches the rankings.
+    private int persistAll() {
+        List<GlobalLeaderboardEntry> rows = leaderboardRepository.findAll();
+        Set<Long> users = new HashSet<>(awardsByUser.keySet());
+        List<GlobalLeaderboardEntry> orphans = new ArrayList<>();
+        for (GlobalLeaderboardEntry row : rows) {
+            if (row.getUserId() == null) {
+                // Rows written before entries were keyed by user id.
+                orphans.add(row);
+            } else {
+                users.add(row.getUserId());
+            }
+        }
+        if (!orphans.isEmpty()) {
+            leaderboardRepository.deleteAllInBatch(orphans);
+        }
+        int drift = persist(users) + orphans.size();
+        log.debug("Leaderboard rebuilt: {} ranked users, {} corrected", awardsByUser.size(), drift);
+        return drift;
+    }
+
+    private void inOwnTransaction(Runnable work) {
+        writes.executeWithoutResult(status -> work.run());
+    }
+
+    // Changes made on behalf of a caller are applied once the caller's data is committed;
+    // applying them inside its transaction would let others see rankings it may roll back.
+    private void afterCommit(Runnable work) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(work);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(work);
+            }
+        });
+    }
+
+    private void submit(Runnable work) {
+        try {
+            updates.execute(() -> {
+                try {
+                    work.run();
+                } catch (RuntimeException e) {
+                    // The caller's change is already committed; the next verify catches up.
+                    log.warn("Failed to update the leaderboard after commit", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the next rebuild picks the change up.
+        }
+    }
+
+    private void index(ChallengeRanking ranking, SubmissionScoreDTO submission) {
+        // Stored likes lag behind by whatever LikeCounterService hasn't flushed yet.
+        Entry entry = new Entry(submission.getSubmissionId(), submission.getUserId(), submission.getRecipeId(),
+                likeCounterService.currentLikes(submission.getRecipeId(), submission.getLikes()));
+        ranking.byRecipe.put(entry.recipeId, entry);
+        ranking.byUser.computeIfAbsent(entry.userId, id -> new ArrayList<>()).add(entry);
+        challengesByRecipe.computeIfAbsent(entry.recipeId, id -> new HashSet<>())
+                .add(submission.getChallengeId());
+        submittedRecipes.add(entry.recipeId);
+    }
+
+    /**
+     * Walks one challenge's ranking and updates the awards of users whose points changed.
+     *
+     * @return userId -> change in points, for every user whose award changed (0 if only the
+     *         scoring submission did)
+     */
+    private Map<Long, Integer> reaward(Long challengeId, ChallengeRanking ranking) {
+        Map<Long, Award> awards = new HashMap<>();
+        int position = 0;
+        for (Entry best : ranking.ordered) {
+            if (best.likes <= 0) {
+                break;
+            }
+            awards.put(best.userId, new Award(pointsFor(position++, ranking.maxPoints), best.submissionId));
+        }
+
+        Map<Long, Integer> changed = new HashMap<>();
+        for (Long userId : ranking.awarded) {
+            if (!awards.containsKey(userId)) {
+                Map<Long, Award> userAwards = awardsByUser.get(userId);
+                Award removed = userAwards.remove(challengeId);
+                if (userAwards.isEmpty()) {
+                    awardsByUser.remove(userId);
+                }
+                changed.put(userId, -removed.points);
+            }
+        }
+        for (Map.Entry<Long, Award> award : awards.entrySet()) {
+            Award previous = awardsByUser.computeIfAbsent(award.getKey(), id -> new HashMap<>())
+                    .put(challengeId, award.getValue());
+            if (!award.getValue().equals(previous)) {
+                changed.put(award.getKey(), award.getValue().points - (previous != null ? previous.points : 0));
+            }
+        }
+        ranking.awarded = awards.keySet();
+        return changed;
+    }
+
+    private static int pointsFor(int position, int maxPoints) {
+        switch (position) {
+            case 0:
+                return maxPoints;
+            case 1:
+                return (int) (maxPoints * 0.7);
+            case 2:
+                return (int) (maxPoints * 0.5);
+            default:
+                return (int) (maxPoints * 0.1);
+        }
+    }
+
+    /**
+     * Adds each user's change in points to their stored total rather than overwriting it. Every
+     * node applies its own likes from rankings that may be up to one refresh old, so writing
+     * absolute totals would undo what other nodes committed meanwhile; relative updates keep
+     * them, and {@link #rebuild()} reconciles whatever the nodes' views disagreed on.
+     */
+    private void persistDeltas(Map<Long, Integer> pointDeltas) {
+        if (pointDeltas.isEmpty()) {
+            return;
+        }
+        Map<Long, Object[]> identities = new HashMap<>();
+        List<Long> scoring = new ArrayList<>();
+        for (Long userId : pointDeltas.keySet()) {
+            if (awardsByUser.containsKey(userId)) {
+                scoring.add(userId);
+            }
+        }
+        if (!scoring.isEmpty()) {
+            for (Object[] identity : userRepository.findIdentitiesByIds(scoring)) {
+                identities.put((Long) identity[0], identity);
+            }
+        }
+        for (Map.Entry<Long, Integer> change : pointDeltas.entrySet()) {
+            Long userId = change.getKey();
+            Map<Long, Award> awards = awardsByUser.get(userId);
+            if (awards == null) {
+                leaderboardRepository.addPoints(userId, change.getValue());
+                leaderboardRepository.deleteIfNoPoints(userId);
+                continue;
+            }
+            Object[] identity = identities.get(userId);
+            if (identity == null) {
+                // The account is gone; its deletion removes the row.
+                continue;
+            }
+            String email = (String) identity[1];
+            String username = identity[2] != null ? (String) identity[2] : email;
+            long earliest = awards.values().stream().mapToLong(award -> award.submissionId).min().getAsLong();
+            leaderboardRepository.upsertPoints(userId, email, username, change.getValue(), earliest);
+        }
+    }
+
+    /**
+     * Upserts (or removes) the leaderboard rows of the given users.
+     *
+     * @return number of rows that were inserted, changed or removed
+     */
+    private int persist(Set<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        Map<Long, GlobalLeaderboardEntry> rows = new HashMap<>();
+        for (GlobalLeaderboardEntry row : leaderboardRepository.findByUserIdIn(userIds)) {
+            rows.put(row.getUserId(), row);
+        }
+
+        List<Long> newUsers = new ArrayList<>();
+        for (Long userId : userIds) {
+            if (!rows.containsKey(userId) && awardsByUser.containsKey(userId)) {
+                newUsers.add(userId);
+            }
+        }
+        if (!newUsers.isEmpty()) {
+            for (Object[] identity : userRepository.findIdentitiesByIds(newUsers)) {
+                Long userId = (Long) identity[0];
+                String email = (String) identity[1];
+                String username = identity[2] != null ? (String) identity[2] : email;
+                GlobalLeaderboardEntry row = new GlobalLeaderboardEntry(email, username, 0);
+                row.setUserId(userId);
+                rows.put(userId, row);
+            }
+        }
+
+        List<GlobalLeaderboardEntry> toSave = new ArrayList<>();
+        List<GlobalLeaderboardEntry> toDelete = new ArrayList<>();
+        for (Long userId : userIds) {
+            GlobalLeaderboardEntry row = rows.get(userId);
+            Map<Long, Award> awards = awardsByUser.get(userId);
+            if (row == null) {
+                continue;
+            }
+            if (awards == null) {
+                if (row.getId() != null) {
+                    toDelete.add(row);
+                }
+                continue;
+            }
+            int total = 0;
+            long earliest = Long.MAX_VALUE;
+            for (Award award : awards.values()) {
+                total += award.points;
+                earliest = Math.min(earliest, award.submissionId);
+            }
+            if (row.getId() == null || row.getTotalPoints() != total
+                    || !Long.valueOf(earliest).equals(row.getEarliestSubmissionId())) {
+                row.setTotalPoints(total);
+                row.setEarliestSubmissionId(earliest);
+                toSave.add(row);
+            }
+        }
+        if (!toSave.isEmpty()) {
+            leaderboardRepository.saveAll(toSave);
+        }
+        if (!toDelete.isEmpty()) {
+            leaderboardRepository.deleteAllInBatch(toDelete);
+        }
+        return toSave.size() + toDelete.size();
+    }
+
+    private static final class Entry {
+        final long submissionId;
+        final long userId;
+        final long recipeId;
+        int likes;
+
+        Entry(long submissionId, long userId, long recipeId, int likes) {
+            this.submissionId = submissionId;
+            this.userId = userId;
+            this.recipeId = recipeId;
+            this.likes = likes;
+        }
+    }
+
+    private static final class Award {
+        final int points;
+        final long submissionId;
+
+        Award(int points, long submissionId) {
+            this.points = points;
+            this.submissionId = submissionId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Award)) return false;
+            Award other = (Award) o;
+            return points == other.points && submissionId == other.submissionId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(points, submissionId);
+        }
+    }
+
+    /**
+     * One challenge's ranking: each user's best submission, ordered by {@link #RANK_ORDER}.
+     */
+    private static final class ChallengeRanking {
+        final int maxPoints;
+        final Map<Long, Entry> byRecipe = new HashMap<>();
+        final Map<Long, List<Entry>> byUser = new HashMap<>();
+        final TreeSet<Entry> ordered = new TreeSet<>(RANK_ORDER);
+        final Map<Long, Entry> bestByUser = new HashMap<>();
+        Set<Long> awarded = Collections.emptySet();
+
+        ChallengeRanking(int maxPoints) {
+            this.maxPoints = maxPoints;
+        }
+
+        // Must be called before an entry's likes change, since the TreeSet orders by likes.
+        void removeBest(long userId) {
+            Entry best = bestByUser.remove(userId);
+            if (best != null) {
+                ordered.remove(best);
+            }
+        }
+
+        void addBest(long userId) {
+            List<Entry> entries = byUser.get(userId);
+            if (entries == null || entries.isEmpty()) {
+                return;
+            }
+            Entry best = Collections.min(entries, RANK_ORDER);
+            bestByUser.put(userId, best);
+            ordered.add(best);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.service;
+
+import com.example.demo.repositories.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind aggregation of recipe like counts.
+ *
+ * A like toggle only touches the recipe_likes join table. The resulting +1/-1 goes into a
+ * per-recipe LongAdder (striped, so a viral recipe doesn't serialize its likers), and
+ * {@link #flush()} periodically folds each recipe's accumulated delta into Recipe.likes with a
+ * single relative UPDATE. Readers add the pending delta to the stored value via
+ * {@link #currentLikes}, so the API still reports the up-to-date count.
+ *
+ * A delta whose flush fails is added back and retried on the next tick, but one held in memory
+ * when a node dies is lost. {@link #reconcile()} (the {@link ClusterJobs#LIKES_RECONCILE} job)
+ * repairs Recipe.likes from recipe_likes: it finds the recipes that disagree, waits
+ * {@code likes.reconcile.settle-ms} so that deltas still pending on any node get flushed, and
+ * corrects only those whose difference is unchanged after that.
+ */
+@Component
+public class LikeCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeCounterService.class);
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Recipes checked per query by reconcile().
+    @Value("${likes.reconcile.chunk-size:1000}")
+    private int reconcileChunkSize;
+
+    // Must comfortably exceed likes.flush-interval-ms on every node.
+    @Value("${likes.reconcile.settle-ms:5000}")
+    private long reconcileSettleMs;
+
+    private TransactionTemplate transaction;
+
+    // One adder per recipe that has been liked since startup; bounded by the catalogue size.
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Likes the recipe if the user hasn't liked it yet, otherwise unlikes it.
+     *
+     * @return +1 for a like, -1 for an unlike, 0 if a concurrent toggle by the same user won
+     */
+    public int toggle(Long recipeId, Long userId) {
+        int delta;
+        if (recipeRepository.deleteLike(recipeId, userId) > 0) {
+            delta = -1;
+        } else {
+            delta = recipeRepository.insertLike(recipeId, userId) > 0 ? 1 : 0;
+        }
+        if (delta != 0) {
+            recordAfterCommit(recipeId, delta);
+        }
+        return delta;
+    }
+
+    /**
+     * Stored like count plus whatever hasn't been flushed yet.
+     */
+    public int currentLikes(Long recipeId, int persistedLikes) {
+        return persistedLikes + pendingDelta(recipeId);
+    }
+
+    public int pendingDelta(Long recipeId) {
+        LongAdder adder = pending.get(recipeId);
+        return adder != null ? (int) adder.sum() : 0;
+    }
+
+    /**
+     * Drops any unflushed delta for a recipe that is being deleted.
+     */
+    public void forget(Long recipeId) {
+        pending.remove(recipeId);
+    }
+
+    @Scheduled(fixedDelayString = "${likes.flush-interval-ms:250}")
+    public void flush() {
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            // Subtracts what it read rather than sumThenReset(), which can drop an add that
+            // races with the reset.
+            int delta = (int) entry.getValue().sum();
+            if (delta == 0) {
+                continue;
+            }
+            entry.getValue().add(-delta);
+            try {
+                counterService.add(CounterService.Counter.RECIPE_LIKES, entry.getKey(), delta);
+            } catch (RuntimeException e) {
+                // Put it back; the next tick retries.
+                entry.getValue().add(delta);
+                log.warn("Failed to flush {} likes for recipe {}", delta, entry.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * Recomputes Recipe.likes from recipe_likes for recipes whose count drifted, e.g. because a
+     * node died with unflushed likes.
+     */
+    public void reconcile() {
+        Long maxId = recipeRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+        List<Object[]> drifted = new ArrayList<>();
+        for (long from = 1; from <= maxId; from += reconcileChunkSize) {
+            drifted.addAll(recipeRepository.findLikeDrift(from, from + reconcileChunkSize - 1));
+        }
+        if (drifted.isEmpty()) {
+            log.info("Recipe like counts are consistent");
+            return;
+        }
+        try {
+            Thread.sleep(reconcileSettleMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        int corrected = 0;
+        for (Object[] row : drifted) {
+            Long recipeId = ((Number) row[0]).longValue();
+            int drift = ((Number) row[1]).intValue();
+            Integer updated = transaction.execute(status -> recipeRepository.correctLikes(recipeId, drift));
+            corrected += updated != null ? updated : 0;
+        }
+        log.info("Reconciled like counts of {} recipes ({} found drifting)", corrected, drifted.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // The join-table row only becomes visible on commit, so the count follows it.
+    private void recordAfterCommit(Long recipeId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(recipeId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(recipeId, delta);
+            }
+        });
+    }
+
+    private void record(Long recipeId, int delta) {
+        pending.computeIfAbsent(recipeId, id -> new LongAdder()).add(delta);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.MealPlanBatchRequest;
 import com.example.demo.dto.MealPlanDTO;
 import com.example.demo.dto.NoteDTO;
 
@@ -8,7 +9,9 @@ import java.util.List;
 
 public interface MealPlanService {
     MealPlanDTO getMealPlanForDate(String userEmail, LocalDate date);
+    List<MealPlanDTO> getMealPlans(String userEmail, LocalDate from, LocalDate to);
     List<MealPlanDTO> getAllMealPlans(String userEmail);
+    void updateMealPlans(String userEmail, MealPlanBatchRequest request);
     void addRecipeToMealPlan(String userEmail, LocalDate date, Long recipeId);
     void removeRecipeFromMealPlan(String userEmail, LocalDate date, Long recipeId);
     NoteDTO addNoteToMealPlan(String userEmail, LocalDate date, NoteDTO noteDTO);
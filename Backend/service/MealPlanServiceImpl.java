@@ -1,23 +1,30 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.MealPlanBatchRequest;
 import com.example.demo.dto.MealPlanDTO;
 import com.example.demo.dto.NoteDTO;
 import com.example.demo.dto.RecipeDTO;
 import com.example.demo.model.MealPlan;
 import com.example.demo.model.Note;
-import com.example.demo.model.Recipe;
 import com.example.demo.model.User;
 import com.example.demo.repositories.MealPlanRepository;
 import com.example.demo.repositories.NoteRepository;
 import com.example.demo.repositories.RecipeRepository;
-import com.example.demo.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import javax.transaction.Transactional;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,78 +37,113 @@ public class MealPlanServiceImpl implements MealPlanService {
     private NoteRepository noteRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUser currentUser;
 
     @Autowired
     private RecipeRepository recipeRepository;
 
+    // Longest span of GET /api/mealplans?from=&to=, in days.
+    @Value("${mealplans.range.max-days:92}")
+    private int maxRangeDays;
+
+    @Value("${mealplans.batch.max-entries:500}")
+    private int maxBatchEntries;
+
+    /**
+     * The plan of one day; a day without a stored plan is returned empty, with a null id.
+     */
     @Override
     public MealPlanDTO getMealPlanForDate(String userEmail, LocalDate date) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        MealPlan mealPlan = mealPlanRepository.findByUserAndDate(user, date)
-                .orElseGet(() -> {
-                    MealPlan newMealPlan = new MealPlan(user, date);
-                    return mealPlanRepository.save(newMealPlan);
-                });
-        return mapMealPlanToDTO(mealPlan);
+        return getMealPlans(userEmail, date, date).get(0);
+    }
+
+    /**
+     * One entry per day from {@code from} to {@code to} inclusive. Stored plans are read with
+     * two queries (plans with recipes and authors, then notes); days without one are filled in
+     * here rather than saved.
+     */
+    @Override
+    public List<MealPlanDTO> getMealPlans(String userEmail, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A meal plan range may span at most " + maxRangeDays + " days");
+        }
+        Map<LocalDate, MealPlanDTO> stored = new HashMap<>();
+        for (MealPlanDTO plan : load(currentUser.referenceFor(userEmail).getId(), from, to)) {
+            stored.putIfAbsent(plan.getDate(), plan);
+        }
+        List<MealPlanDTO> days = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            MealPlanDTO plan = stored.get(day);
+            days.add(plan != null ? plan : new MealPlanDTO(null, day, new ArrayList<>(), new ArrayList<>()));
+        }
+        return days;
     }
 
     @Override
     public List<MealPlanDTO> getAllMealPlans(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<MealPlan> mealPlans = mealPlanRepository.findByUser(user);
-        return mealPlans.stream().map(this::mapMealPlanToDTO).collect(Collectors.toList());
+        return load(currentUser.referenceFor(userEmail).getId(), null, null);
     }
 
     @Override
     @Transactional
     public void addRecipeToMealPlan(String userEmail, LocalDate date, Long recipeId) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Recipe recipe = recipeRepository.findById(recipeId)
-                .orElseThrow(() -> new RuntimeException("Recipe not found"));
-
-        // Ensure the recipe belongs to the user
-        if (!recipe.getAuthor().getEmail().equals(userEmail)) {
-            throw new RuntimeException("Unauthorized to add this recipe to meal plan");
-        }
-
-        MealPlan mealPlan = mealPlanRepository.findByUserAndDate(user, date)
-                .orElseGet(() -> {
-                    MealPlan newMealPlan = new MealPlan(user, date);
-                    return mealPlanRepository.save(newMealPlan);
-                });
-
-        if (!mealPlan.getRecipes().contains(recipe)) {
-            mealPlan.getRecipes().add(recipe);
-            mealPlanRepository.save(mealPlan);
-        }
+        MealPlanBatchRequest request = new MealPlanBatchRequest();
+        request.getAdd().add(new MealPlanBatchRequest.Entry(date, recipeId));
+        updateMealPlans(userEmail, request);
     }
 
     @Override
     @Transactional
     public void removeRecipeFromMealPlan(String userEmail, LocalDate date, Long recipeId) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Recipe recipe = recipeRepository.findById(recipeId)
-                .orElseThrow(() -> new RuntimeException("Recipe not found"));
-
-        MealPlan mealPlan = mealPlanRepository.findByUserAndDate(user, date)
-                .orElseThrow(() -> new RuntimeException("Meal plan not found for the given date"));
+        MealPlanBatchRequest request = new MealPlanBatchRequest();
+        request.getRemove().add(new MealPlanBatchRequest.Entry(date, recipeId));
+        updateMealPlans(userEmail, request);
+    }
 
-        if (mealPlan.getRecipes().contains(recipe)) {
-            mealPlan.getRecipes().remove(recipe);
-            mealPlanRepository.save(mealPlan);
+    /**
+     * Applies all additions, then all removals, in one transaction. Recipes must belong to the
+     * caller; a plan is created for a date only when something is added to it. Adding a recipe
+     * that is already planned, or removing one that isn't, changes nothing.
+     */
+    @Override
+    @Transactional
+    public void updateMealPlans(String userEmail, MealPlanBatchRequest request) {
+        List<MealPlanBatchRequest.Entry> add = entries(request.getAdd());
+        List<MealPlanBatchRequest.Entry> remove = entries(request.getRemove());
+        if (add.size() + remove.size() > maxBatchEntries) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxBatchEntries + " meal plan changes per request");
+        }
+        User user = currentUser.referenceFor(userEmail);
+
+        if (!add.isEmpty()) {
+            checkOwnership(userEmail, add);
+            Map<LocalDate, Long> planIds = planIds(user.getId(), add);
+            for (MealPlanBatchRequest.Entry entry : add) {
+                Long planId = planIds.computeIfAbsent(entry.getDate(),
+                        date -> mealPlanRepository.save(new MealPlan(user, date)).getId());
+                mealPlanRepository.insertRecipeLink(planId, entry.getRecipeId());
+            }
+        }
+        if (!remove.isEmpty()) {
+            Map<LocalDate, Long> planIds = planIds(user.getId(), remove);
+            for (MealPlanBatchRequest.Entry entry : remove) {
+                Long planId = planIds.get(entry.getDate());
+                if (planId != null) {
+                    mealPlanRepository.deleteRecipeLink(planId, entry.getRecipeId());
+                }
+            }
         }
     }
 
     @Override
     @Transactional
     public NoteDTO addNoteToMealPlan(String userEmail, LocalDate date, NoteDTO noteDTO) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = currentUser.referenceFor(userEmail);
 
         MealPlan mealPlan = mealPlanRepository.findByUserAndDate(user, date)
                 .orElseGet(() -> {
@@ -123,8 +165,7 @@ public class MealPlanServiceImpl implements MealPlanService {
     @Override
     @Transactional
     public void deleteNoteFromMealPlan(String userEmail, LocalDate date, Long noteId) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = currentUser.referenceFor(userEmail);
 
         MealPlan mealPlan = mealPlanRepository.findByUserAndDate(user, date)
                 .orElseThrow(() -> new RuntimeException("Meal plan not found for the given date"));
@@ -140,9 +181,54 @@ public class MealPlanServiceImpl implements MealPlanService {
         noteRepository.delete(note);
     }
 
-    // Utility methods to map entities to DTOs
+    private List<MealPlanDTO> load(Long userId, LocalDate from, LocalDate to) {
+        Map<Long, List<NoteDTO>> notes = new HashMap<>();
+        for (Object[] row : mealPlanRepository.findNotesInRange(userId, from, to)) {
+            notes.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(new NoteDTO((Long) row[1], (String) row[2]));
+        }
+        return mealPlanRepository.findWithRecipesInRange(userId, from, to).stream()
+                .map(plan -> mapMealPlanToDTO(plan, notes.getOrDefault(plan.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
+    }
+
+    private static List<MealPlanBatchRequest.Entry> entries(List<MealPlanBatchRequest.Entry> entries) {
+        if (entries == null) {
+            return Collections.emptyList();
+        }
+        for (MealPlanBatchRequest.Entry entry : entries) {
+            if (entry == null || entry.getDate() == null || entry.getRecipeId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every entry needs a date and a recipeId");
+            }
+        }
+        return entries;
+    }
+
+    private void checkOwnership(String userEmail, List<MealPlanBatchRequest.Entry> entries) {
+        Set<Long> recipeIds = entries.stream().map(MealPlanBatchRequest.Entry::getRecipeId).collect(Collectors.toSet());
+        List<Object[]> authors = recipeRepository.findAuthorEmailsByIds(recipeIds);
+        if (authors.size() < recipeIds.size()) {
+            throw new RuntimeException("Recipe not found");
+        }
+        for (Object[] row : authors) {
+            if (!userEmail.equals(row[1])) {
+                throw new RuntimeException("Unauthorized to add this recipe to meal plan");
+            }
+        }
+    }
+
+    // The ids of the user's stored plans for the entries' dates.
+    private Map<LocalDate, Long> planIds(Long userId, List<MealPlanBatchRequest.Entry> entries) {
+        Set<LocalDate> dates = entries.stream().map(MealPlanBatchRequest.Entry::getDate).collect(Collectors.toSet());
+        Map<LocalDate, Long> planIds = new HashMap<>();
+        for (Object[] row : mealPlanRepository.findIdsByUserIdAndDates(userId, dates)) {
+            planIds.putIfAbsent((LocalDate) row[0], (Long) row[1]);
+        }
+        return planIds;
+    }
 
-    private MealPlanDTO mapMealPlanToDTO(MealPlan mealPlan) {
+    // Recipes and their authors must already be fetched, see findWithRecipesInRange.
+    private MealPlanDTO mapMealPlanToDTO(MealPlan mealPlan, List<NoteDTO> notes) {
         MealPlanDTO dto = new MealPlanDTO();
         dto.setId(mealPlan.getId());
         dto.setDate(mealPlan.getDate());
@@ -159,16 +245,7 @@ public class MealPlanServiceImpl implements MealPlanService {
                 })
                 .collect(Collectors.toList());
         dto.setRecipes(recipeDTOs);
-
-        List<NoteDTO> noteDTOs = mealPlan.getNotes().stream()
-                .map(note -> {
-                    NoteDTO noteDTO = new NoteDTO();
-                    noteDTO.setId(note.getId());
-                    noteDTO.setContent(note.getContent());
-                    return noteDTO;
-                })
-                .collect(Collectors.toList());
-        dto.setNotes(noteDTOs);
+        dto.setNotes(notes);
 
         return dto;
     }
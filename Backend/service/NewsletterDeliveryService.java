@@ -0,0 +1,303 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.NewsletterJobDTO;
+import com.example.demo.model.NewsletterJob;
+import com.example.demo.repositories.NewsletterJobRepository;
+import com.example.demo.repositories.NewsletterSubscriptionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Sends newsletters in the background.
+ *
+ * A job walks the subscribers in id order one keyset page at a time. Each page is cut into
+ * batches and every batch goes out through a single {@code JavaMailSender.send(messages...)}
+ * call, which reuses one SMTP connection for the whole batch; at most
+ * {@code newsletter.concurrency} batches (and so connections) are in flight, and sends are
+ * paced to {@code newsletter.rate-per-second}. Rejected recipients are counted rather than
+ * aborting the job. After every page the job row records the last subscriber id, so jobs still
+ * QUEUED or RUNNING at startup continue from there; recipients of a page that was cut short may
+ * receive the message twice.
+ *
+ * Every node looks for unfinished jobs at startup and every {@code newsletter.resume-interval-ms},
+ * so a job whose node died is picked up by another. A node only delivers a job after claiming
+ * its row with a conditional UPDATE, and renews the claim (for {@code newsletter.claim-ttl-ms})
+ * after every page; a job is therefore delivered by one node at a time, and a node that finds
+ * its claim taken over stops.
+ *
+ * Mail goes through the regular {@code spring.mail.*} settings, so pointing them at a local SMTP
+ * stand-in (e.g. GreenMail) is enough to exercise a job end to end.
+ */
+@Service
+public class NewsletterDeliveryService {
+
+    private static final Logger log = LoggerFactory.getLogger(NewsletterDeliveryService.class);
+
+    @Autowired
+    private NewsletterJobRepository jobRepository;
+
+    @Autowired
+    private NewsletterSubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${newsletter.page-size:1000}")
+    private int pageSize;
+
+    @Value("${newsletter.batch-size:50}")
+    private int batchSize;
+
+    @Value("${newsletter.concurrency:4}")
+    private int concurrency;
+
+    // Messages per second across all senders; 0 disables pacing.
+    @Value("${newsletter.rate-per-second:20}")
+    private double ratePerSecond;
+
+    // How long a claim on a job lasts without being renewed; must exceed the time to send one page.
+    @Value("${newsletter.claim-ttl-ms:300000}")
+    private long claimTtlMs;
+
+    // Defaults to pid@hostname.
+    @Value("${jobs.node-id:}")
+    private String nodeId;
+
+    private static final List<NewsletterJob.Status> UNFINISHED =
+            Arrays.asList(NewsletterJob.Status.QUEUED, NewsletterJob.Status.RUNNING);
+
+    // One job at a time; its batches fan out to the sender pool.
+    private ExecutorService runner;
+    private ExecutorService senders;
+    // Jobs waiting in or running on this node's runner, so the periodic sweep does not queue them twice.
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    private final Object rateLock = new Object();
+    private long nextSendNanos;
+
+    @PostConstruct
+    public void start() {
+        if (nodeId.isEmpty()) {
+            nodeId = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        runner = Executors.newSingleThreadExecutor();
+        senders = Executors.newFixedThreadPool(concurrency);
+    }
+
+    @PreDestroy
+    public void stop() {
+        runner.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        LocalDateTime now = LocalDateTime.now();
+        for (NewsletterJob job : jobRepository.findByStatusInOrderByIdAsc(UNFINISHED)) {
+            // Claimed jobs are being delivered by a live node; run() re-checks before sending.
+            if (job.getClaimedUntil() != null && job.getClaimedUntil().isAfter(now)) {
+                continue;
+            }
+            if (queued.contains(job.getId())) {
+                continue;
+            }
+            log.info("Resuming newsletter job {} after subscriber {}", job.getId(), job.getLastSubscriberId());
+            enqueue(job.getId());
+        }
+    }
+
+    // Picks up jobs left behind by a node that stopped mid-delivery.
+    @Scheduled(fixedDelayString = "${newsletter.resume-interval-ms:60000}",
+            initialDelayString = "${newsletter.resume-interval-ms:60000}")
+    public void resumeAbandoned() {
+        resumeUnfinished();
+    }
+
+    /**
+     * Records a new job for every current subscriber and queues it.
+     */
+    public NewsletterJobDTO startJob(String subject, String body) {
+        NewsletterJob job = jobRepository.save(
+                new NewsletterJob(subject, body, (int) subscriptionRepository.count()));
+        enqueue(job.getId());
+        return toDTO(job);
+    }
+
+    public NewsletterJobDTO getJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .map(this::toDTO)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown newsletter job: " + jobId));
+    }
+
+    public List<NewsletterJobDTO> getJobs() {
+        return jobRepository.findAll(Sort.by(Sort.Direction.DESC, "id")).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    private void enqueue(Long jobId) {
+        if (queued.add(jobId)) {
+            runner.submit(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    queued.remove(jobId);
+                }
+            });
+        }
+    }
+
+    private void run(Long jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jobRepository.claim(jobId, UNFINISHED, now, now.plus(Duration.ofMillis(claimTtlMs)), nodeId) != 1) {
+            log.debug("Newsletter job {} is finished or claimed by another node, skipping", jobId);
+            return;
+        }
+        NewsletterJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        job.setStatus(NewsletterJob.Status.RUNNING);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(LocalDateTime.now());
+        }
+        job = jobRepository.save(job);
+
+        String subject = job.getSubject();
+        String body = job.getBody();
+        try {
+            while (true) {
+                List<Object[]> page = subscriptionRepository.findRecipientsAfter(
+                        job.getLastSubscriberId(), PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                List<Future<BatchResult>> results = new ArrayList<>();
+                for (int from = 0; from < page.size(); from += batchSize) {
+                    List<Object[]> batch = page.subList(from, Math.min(from + batchSize, page.size()));
+                    results.add(senders.submit(() -> sendBatch(subject, body, batch)));
+                }
+                int failed = 0;
+                for (Future<BatchResult> result : results) {
+                    BatchResult batchResult = result.get();
+                    failed += batchResult.failed;
+                    if (batchResult.error != null) {
+                        job.setLastError(batchResult.error);
+                    }
+                }
+                if (!renewClaim(jobId)) {
+                    log.warn("Newsletter job {} was taken over by another node, stopping", jobId);
+                    return;
+                }
+                job.setSent(job.getSent() + page.size() - failed);
+                job.setFailed(job.getFailed() + failed);
+                job.setLastSubscriberId((Long) page.get(page.size() - 1)[0]);
+                job = jobRepository.save(job);
+            }
+            job.setStatus(NewsletterJob.Status.DONE);
+            log.info("Newsletter job {} done: {} sent, {} failed", jobId, job.getSent(), job.getFailed());
+        } catch (InterruptedException e) {
+            // Shutting down: leave the job RUNNING so the next start resumes it.
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            log.error("Newsletter job {} failed", jobId, e);
+            job.setStatus(NewsletterJob.Status.FAILED);
+            job.setLastError(truncate(String.valueOf(e.getMessage())));
+        }
+        job.setFinishedAt(LocalDateTime.now());
+        jobRepository.save(job);
+    }
+
+    private boolean renewClaim(Long jobId) {
+        return jobRepository.renewClaim(jobId, LocalDateTime.now().plus(Duration.ofMillis(claimTtlMs)), nodeId) == 1;
+    }
+
+    private BatchResult sendBatch(String subject, String body, List<Object[]> recipients) throws InterruptedException {
+        acquire(recipients.size());
+        SimpleMailMessage[] messages = new SimpleMailMessage[recipients.size()];
+        for (int i = 0; i < messages.length; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo((String) recipients.get(i)[1]);
+            message.setSubject(subject);
+            message.setText(body);
+            messages[i] = message;
+        }
+        try {
+            mailSender.send(messages);
+            return new BatchResult(0, null);
+        } catch (MailSendException e) {
+            // Lists each message that was not accepted; empty if the batch never reached the server.
+            int failed = e.getFailedMessages().isEmpty() ? messages.length : e.getFailedMessages().size();
+            log.warn("Newsletter batch: {} of {} messages failed: {}", failed, messages.length, e.getMessage());
+            return new BatchResult(failed, truncate(e.getMessage()));
+        } catch (MailException e) {
+            log.warn("Newsletter batch of {} messages failed: {}", messages.length, e.getMessage());
+            return new BatchResult(messages.length, truncate(e.getMessage()));
+        }
+    }
+
+    // Reserves send slots for {@code permits} messages and sleeps until the first one is due.
+    private void acquire(int permits) throws InterruptedException {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+        long wait;
+        synchronized (rateLock) {
+            long now = System.nanoTime();
+            if (nextSendNanos < now) {
+                nextSendNanos = now;
+            }
+            wait = nextSendNanos - now;
+            nextSendNanos += (long) (permits * 1_000_000_000L / ratePerSecond);
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private NewsletterJobDTO toDTO(NewsletterJob job) {
+        return new NewsletterJobDTO(job.getId(), job.getStatus().name(), job.getTotal(), job.getSent(),
+                job.getFailed(), job.getLastError(), job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt());
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private static final class BatchResult {
+        final int failed;
+        final String error;
+
+        BatchResult(int failed, String error) {
+            this.failed = failed;
+            this.error = error;
+        }
+    }
+}
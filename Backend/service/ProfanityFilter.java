@@ -0,0 +1,260 @@
+package com.example.demo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Finds and masks banned words (English and Russian) in user supplied text.
+ *
+ * All terms, with their inflected forms expanded, are compiled once into an Aho-Corasick
+ * automaton, so a field is scanned in a single left-to-right pass no matter how many terms
+ * there are or how often they occur, and the masked copy is written into one buffer. Matching
+ * is case-insensitive, treats "ё" as "е" and only counts whole words: a hit must not be
+ * preceded or followed by a letter or digit, so "хлеб" or "scrape" are left alone. Each scan
+ * also returns the hits, so callers can censor and detect at once.
+ */
+@Component
+public class ProfanityFilter {
+
+    private static final char MASK = '*';
+
+    // Stems followed by the endings the old per-word regexes allowed ("" = the bare stem).
+    private static final String[][] TERMS = {
+            {"fuck", "", "ed", "ing", "er"},
+            {"shit", "", "ty", "ed"},
+            {"bitch"},
+            {"asshole"},
+            {"dick"},
+            {"cunt", "", "s", "ing"},
+            {"motherfucker", "", "ed", "ing", "s"},
+            {"bastard", "", "s"},
+            {"damn", "", "ed"},
+            {"crap"},
+            {"piss", "", "ed", "ing"},
+            {"slut", "", "ty"},
+            {"douche", "", "bag"},
+            {"faggot"},
+            {"fagot"},
+            {"whore"},
+            {"bollocks"},
+            {"arsehole"},
+            {"twat"},
+            {"bugger"},
+            {"shag", "", "ging"},
+            {"wanker"},
+            {"бляд", "", "ь", "ный", "и"},
+            {"сука"},
+            {"пизда"},
+            {"еб", "", "ать", "ается", "ался", "ут", "ют", "ешь", "ала"},
+            {"нахуй"},
+            {"мудило"},
+            {"говно"},
+            {"дерьмо"},
+            {"пиздец"},
+            {"залупа"},
+            {"пидор", "", "а", "ы", "ов"},
+            {"трах", "", "аться", "аюсь", "ался", "ались"},
+            {"сучка"}
+    };
+
+    // Stems that also swallow any Cyrillic letters following them.
+    private static final String[] OPEN_ENDED_TERMS = {"хуй", "хер"};
+
+    private final Node root = new Node();
+
+    public ProfanityFilter() {
+        for (String[] term : TERMS) {
+            if (term.length == 1) {
+                add(term[0], false);
+            }
+            for (int i = 1; i < term.length; i++) {
+                add(term[0] + term[i], false);
+            }
+        }
+        for (String term : OPEN_ENDED_TERMS) {
+            add(term, true);
+        }
+        link();
+    }
+
+    /**
+     * Scans the text once, returning the masked copy together with the masked spans.
+     */
+    public Result scan(String text) {
+        if (text == null || text.isEmpty()) {
+            return new Result(text, Collections.emptyList());
+        }
+        int length = text.length();
+        // Masked [start, end) spans, kept sorted and merged as we go.
+        List<int[]> spans = new ArrayList<>();
+        Node state = root;
+        for (int i = 0; i < length; i++) {
+            char c = fold(text.charAt(i));
+            while (state != root && !state.next.containsKey(c)) {
+                state = state.fail;
+            }
+            state = state.next.getOrDefault(c, root);
+            for (Output output : state.outputs) {
+                int start = i + 1 - output.length;
+                int end = i + 1;
+                if (output.openEnded) {
+                    while (end < length && isCyrillicLetter(fold(text.charAt(end)))) {
+                        end++;
+                    }
+                }
+                if (isWordBoundary(text, start) && isWordBoundary(text, end)) {
+                    addSpan(spans, start, end);
+                }
+            }
+        }
+        if (spans.isEmpty()) {
+            return new Result(text, Collections.emptyList());
+        }
+
+        char[] masked = text.toCharArray();
+        List<Hit> hits = new ArrayList<>(spans.size());
+        for (int[] span : spans) {
+            Arrays.fill(masked, span[0], span[1], MASK);
+            hits.add(new Hit(span[0], span[1], text.substring(span[0], span[1])));
+        }
+        return new Result(new String(masked), hits);
+    }
+
+    public String censor(String text) {
+        return scan(text).getText();
+    }
+
+    public boolean containsProfanity(String... fields) {
+        for (String field : fields) {
+            if (field != null && !scan(field).isClean()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Matches arrive in order of their end offset, so merging only ever touches the tail.
+    private static void addSpan(List<int[]> spans, int start, int end) {
+        int last = spans.size() - 1;
+        while (last >= 0 && spans.get(last)[1] >= start) {
+            int[] previous = spans.remove(last--);
+            start = Math.min(start, previous[0]);
+            end = Math.max(end, previous[1]);
+        }
+        spans.add(new int[]{start, end});
+    }
+
+    private static char fold(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower == 'ё' ? 'е' : lower;
+    }
+
+    // True if no word continues across this offset, i.e. the characters on either side of it
+    // are not both letters or digits; only the outer side matters for a hit's own edges.
+    private static boolean isWordBoundary(String text, int offset) {
+        return offset == 0 || offset == text.length()
+                || !Character.isLetterOrDigit(text.charAt(offset - 1))
+                || !Character.isLetterOrDigit(text.charAt(offset));
+    }
+
+    private static boolean isCyrillicLetter(char c) {
+        return (c >= 'а' && c <= 'я') || c == 'ё';
+    }
+
+    private void add(String term, boolean openEnded) {
+        Node node = root;
+        for (char c : term.toCharArray()) {
+            node = node.next.computeIfAbsent(fold(c), k -> new Node());
+        }
+        node.outputs.add(new Output(term.length(), openEnded));
+    }
+
+    // Breadth-first pass setting failure links; each node inherits its failure node's outputs.
+    private void link() {
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<Character, Node> edge : node.next.entrySet()) {
+                Node child = edge.getValue();
+                Node fail = node.fail;
+                while (fail != root && !fail.next.containsKey(edge.getKey())) {
+                    fail = fail.fail;
+                }
+                Node target = fail.next.get(edge.getKey());
+                child.fail = target != null ? target : root;
+                child.outputs.addAll(child.fail.outputs);
+                queue.add(child);
+            }
+        }
+    }
+
+    private static final class Node {
+        final Map<Character, Node> next = new HashMap<>();
+        final List<Output> outputs = new ArrayList<>();
+        Node fail;
+    }
+
+    private static final class Output {
+        final int length;
+        final boolean openEnded;
+
+        Output(int length, boolean openEnded) {
+            this.length = length;
+            this.openEnded = openEnded;
+        }
+    }
+
+    public static final class Result {
+        private final String text;
+        private final List<Hit> hits;
+
+        Result(String text, List<Hit> hits) {
+            this.text = text;
+            this.hits = hits;
+        }
+
+        /**
+         * The input with every hit replaced by asterisks of the same length.
+         */
+        public String getText() {
+            return text;
+        }
+
+        public List<Hit> getHits() {
+            return hits;
+        }
+
+        public boolean isClean() {
+            return hits.isEmpty();
+        }
+    }
+
+    public static final class Hit {
+        private final int start;
+        private final int end;
+        private final String match;
+
+        Hit(int start, int end, String match) {
+            this.start = start;
+            this.end = end;
+            this.match = match;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public String getMatch() {
+            return match;
+        }
+    }
+}
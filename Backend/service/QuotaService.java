@@ -0,0 +1,257 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.QuotaDTO;
+import com.example.demo.dto.QuotaSummaryDTO;
+import com.example.demo.model.User;
+import com.example.demo.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-tier limits on what a user may create: recipes, cookbooks and monthly AI generations.
+ *
+ * Limits are configured per resource as {@code quota.<resource>=free:10,plus:25,pro:unlimited}.
+ * Usage for all three is loaded with one query per user and cached for
+ * {@code quota.cache-ttl-ms}; after that, or when the user's recipes, books or subscription
+ * change, it is reloaded from the database. The cache only serves {@link #getQuota} and the
+ * tier lookup; {@link #consume} enforces against the database, so the limit holds across nodes:
+ * generations with a bounded {@link CounterService} update of the user's row, recipes and books
+ * by locking the user's row until the caller commits and counting what is stored. A unit taken
+ * in a transaction that rolls back is given back in the cached figure.
+ */
+@Service
+public class QuotaService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuotaService.class);
+
+    public enum Resource {
+        RECIPES("recipes", "free:10,plus:25,pro:unlimited"),
+        BOOKS("cookbooks", "free:3,plus:10,pro:unlimited"),
+        GENERATIONS("recipe generations", "free:3,plus:10,pro:unlimited");
+
+        final String label;
+        final String defaults;
+
+        Resource(String label, String defaults) {
+            this.label = label;
+            this.defaults = defaults;
+        }
+
+        String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${quota.cache-ttl-ms:300000}")
+    private long cacheTtlMs;
+
+    private final Map<Resource, Map<User.SubscriptionType, Integer>> limits = new EnumMap<>(Resource.class);
+    private final Map<Long, Usage> usages = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        for (Resource resource : Resource.values()) {
+            Map<User.SubscriptionType, Integer> byTier = parse(resource.defaults);
+            byTier.putAll(parse(environment.getProperty("quota." + resource.key(), resource.defaults)));
+            limits.put(resource, byTier);
+        }
+        log.info("Quotas: {}", limits);
+    }
+
+    /**
+     * Takes one unit of {@code resource} for the user.
+     *
+     * @throws SubscriptionLimitException if the user's tier allows no more
+     */
+    @Transactional
+    public void consume(Long userId, Resource resource) {
+        Usage usage = usage(userId);
+        int limit = limitFor(resource, usage.tier);
+        AtomicInteger counter = usage.used[resource.ordinal()];
+
+        if (resource == Resource.GENERATIONS) {
+            LocalDateTime now = LocalDateTime.now();
+            if (userRepository.resetGenerationCycle(userId, now, now.minusMonths(1)) == 1) {
+                usage.cycleStart = now;
+                counter.set(0);
+            }
+            OptionalInt used = counterService.addWithin(CounterService.Counter.RECIPE_GENERATIONS, userId, 1, 0, limit);
+            if (!used.isPresent()) {
+                counter.set(limit);
+                throw new SubscriptionLimitException("Monthly recipe generation limit reached for your subscription tier.");
+            }
+            counter.set(used.getAsInt());
+        } else if (limit != UNLIMITED) {
+            if (!userRepository.lockForQuota(userId).isPresent()) {
+                throw new RuntimeException("User not found");
+            }
+            int used = (int) (resource == Resource.RECIPES
+                    ? userRepository.countRecipesForQuota(userId)
+                    : userRepository.countBooksForQuota(userId));
+            if (used >= limit) {
+                counter.set(used);
+                throw new SubscriptionLimitException(tierName(usage.tier) + " tier limited to " + limit
+                        + " " + resource.label);
+            }
+            counter.set(used + 1);
+        } else {
+            counter.incrementAndGet();
+        }
+        releaseOnRollback(counter);
+    }
+
+    public QuotaDTO getQuota(Long userId, Resource resource) {
+        Usage usage = usage(userId);
+        int limit = limitFor(resource, usage.tier);
+        int used = usage.used[resource.ordinal()].get();
+        LocalDateTime resetsAt = null;
+        if (resource == Resource.GENERATIONS) {
+            LocalDateTime cycleStart = usage.cycleStart;
+            if (cycleStart == null || LocalDateTime.now().isAfter(cycleStart.plusMonths(1))) {
+                // The cycle has lapsed; the next generation starts a new one.
+                used = 0;
+                resetsAt = LocalDateTime.now().plusMonths(1);
+            } else {
+                resetsAt = cycleStart.plusMonths(1);
+            }
+        }
+        boolean unlimited = limit == UNLIMITED;
+        return new QuotaDTO(unlimited ? -1 : limit, used, unlimited ? -1 : Math.max(0, limit - used),
+                used < limit, resetsAt);
+    }
+
+    public QuotaSummaryDTO getQuotas(Long userId) {
+        Map<String, QuotaDTO> quotas = new LinkedHashMap<>();
+        for (Resource resource : Resource.values()) {
+            quotas.put(resource.key(), getQuota(userId, resource));
+        }
+        return new QuotaSummaryDTO(usage(userId).tier.name(), quotas);
+    }
+
+    /**
+     * Drops the cached usage of these users once the current transaction commits, e.g. after
+     * their recipes or books were deleted or their subscription changed.
+     */
+    public void invalidateAfterCommit(Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(userIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ids.forEach(usages::remove);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(usages::remove);
+            }
+        });
+    }
+
+    public void invalidateAfterCommit(Long userId) {
+        invalidateAfterCommit(Collections.singletonList(userId));
+    }
+
+    @Scheduled(fixedDelayString = "${quota.cache-ttl-ms:300000}")
+    public void evictExpired() {
+        long staleBefore = System.currentTimeMillis() - cacheTtlMs;
+        usages.values().removeIf(usage -> usage.loadedAt < staleBefore);
+    }
+
+    private Usage usage(Long userId) {
+        Usage usage = usages.get(userId);
+        if (usage != null && System.currentTimeMillis() - usage.loadedAt <= cacheTtlMs) {
+            return usage;
+        }
+        List<Object[]> rows = userRepository.findQuotaUsageById(userId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("User not found");
+        }
+        Object[] row = rows.get(0);
+        Usage loaded = new Usage((User.SubscriptionType) row[0], (LocalDateTime) row[2]);
+        loaded.used[Resource.RECIPES.ordinal()].set(((Number) row[3]).intValue());
+        loaded.used[Resource.BOOKS.ordinal()].set(((Number) row[4]).intValue());
+        loaded.used[Resource.GENERATIONS.ordinal()].set(((Number) row[1]).intValue());
+        usages.put(userId, loaded);
+        return loaded;
+    }
+
+    private int limitFor(Resource resource, User.SubscriptionType tier) {
+        return limits.get(resource).getOrDefault(tier, limits.get(resource).get(User.SubscriptionType.FREE));
+    }
+
+    private static void releaseOnRollback(AtomicInteger counter) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    counter.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private static String tierName(User.SubscriptionType tier) {
+        return tier.name().charAt(0) + tier.name().substring(1).toLowerCase();
+    }
+
+    // "free:10,pro:unlimited" -> {FREE=10, PRO=MAX_VALUE}
+    private static Map<User.SubscriptionType, Integer> parse(String spec) {
+        Map<User.SubscriptionType, Integer> parsed = new EnumMap<>(User.SubscriptionType.class);
+        for (String item : spec.split(",")) {
+            String trimmed = item.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] tierAndLimit = trimmed.split(":");
+            if (tierAndLimit.length != 2) {
+                throw new IllegalStateException("Expected <tier>:<limit> but got: " + trimmed);
+            }
+            String limit = tierAndLimit[1].trim();
+            parsed.put(User.SubscriptionType.valueOf(tierAndLimit[0].trim().toUpperCase()),
+                    limit.equalsIgnoreCase("unlimited") ? UNLIMITED : Integer.parseInt(limit));
+        }
+        return parsed;
+    }
+
+    private static final class Usage {
+        final User.SubscriptionType tier;
+        final AtomicInteger[] used = new AtomicInteger[Resource.values().length];
+        final long loadedAt = System.currentTimeMillis();
+        volatile LocalDateTime cycleStart;
+
+        Usage(User.SubscriptionType tier, LocalDateTime cycleStart) {
+            this.tier = tier;
+            this.cycleStart = cycleStart;
+            for (int i = 0; i < used.length; i++) {
+                used[i] = new AtomicInteger();
+            }
+        }
+    }
+}
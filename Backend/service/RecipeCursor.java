@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position for the paged recipe listing. Encodes the sort key of the last
+ * recipe on a page (createdAt or likes) plus its id as the tie-breaker.
+ */
+final class RecipeCursor {
+
+    static final String RECENT = "recent";
+    static final String LIKES = "likes";
+
+    final String sort;
+    final OffsetDateTime createdAt;
+    final Integer likes;
+    final Long id;
+
+    private RecipeCursor(String sort, OffsetDateTime createdAt, Integer likes, Long id) {
+        this.sort = sort;
+        this.createdAt = createdAt;
+        this.likes = likes;
+        this.id = id;
+    }
+
+    static RecipeCursor recent(OffsetDateTime createdAt, Long id) {
+        return new RecipeCursor(RECENT, createdAt, null, id);
+    }
+
+    static RecipeCursor likes(int likes, Long id) {
+        return new RecipeCursor(LIKES, null, likes, id);
+    }
+
+    String encode() {
+        String raw;
+        if (RECENT.equals(sort)) {
+            Instant instant = createdAt.toInstant();
+            raw = RECENT + ":" + instant.getEpochSecond() + ":" + instant.getNano() + ":" + id;
+        } else {
+            raw = LIKES + ":" + likes + ":" + id;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned for the same sort order.
+     */
+    static RecipeCursor decode(String token, String expectedSort) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (RECENT.equals(expectedSort) && parts.length == 4 && RECENT.equals(parts[0])) {
+                Instant instant = Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                return recent(instant.atOffset(ZoneOffset.UTC), Long.parseLong(parts[3]));
+            }
+            if (LIKES.equals(expectedSort) && parts.length == 3 && LIKES.equals(parts[0])) {
+                return likes(Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through to the error below
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+}
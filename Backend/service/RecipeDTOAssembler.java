@@ -0,0 +1,155 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RecipeCardDTO;
+import com.example.demo.dto.RecipeDTO;
+import com.example.demo.dto.ReviewDTO;
+import com.example.demo.model.Recipe;
+import com.example.demo.repositories.RecipeRepository;
+import com.example.demo.repositories.ReviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Maps a list of recipes to DTOs with a fixed number of set-based queries, whatever the list
+ * size: authors, tags, the viewer's likes, review totals and the newest reviews are each
+ * fetched once for all ids instead of once per recipe.
+ */
+@Component
+public class RecipeDTOAssembler {
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    // How many reviews list views embed per recipe; the rest is available via /api/reviews.
+    @Value("${recipes.dto.review-page-size:5}")
+    private int reviewPageSize;
+
+    public List<RecipeDTO> toDTOs(List<Recipe> recipes, String viewerEmail) {
+        return toDTOs(recipes, viewerEmail, reviewPageSize);
+    }
+
+    /**
+     * @param reviewsPerRecipe number of newest reviews to embed in each DTO
+     */
+    public List<RecipeDTO> toDTOs(List<Recipe> recipes, String viewerEmail, int reviewsPerRecipe) {
+        if (recipes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> ids = recipes.stream().map(Recipe::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<Long, Object[]> authors = new HashMap<>();
+        for (Object[] row : recipeRepository.findAuthorsByRecipeIds(ids)) {
+            authors.put((Long) row[0], row);
+        }
+
+        Map<Long, List<String>> tags = new HashMap<>();
+        for (Object[] row : recipeRepository.findTagsByRecipeIds(ids)) {
+            tags.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        Set<Long> liked = viewerEmail != null && !viewerEmail.isEmpty()
+                ? new HashSet<>(recipeRepository.findIdsLikedByUser(viewerEmail, ids))
+                : Collections.emptySet();
+
+        Map<Long, Object[]> stats = new HashMap<>();
+        for (Object[] row : reviewRepository.findStatsByRecipeIds(ids)) {
+            stats.put((Long) row[0], row);
+        }
+
+        Map<Long, List<ReviewDTO>> reviews = new HashMap<>();
+        if (reviewsPerRecipe > 0) {
+            for (Object[] row : reviewRepository.findLatestByRecipeIds(ids, reviewsPerRecipe)) {
+                ReviewDTO review = new ReviewDTO(((Number) row[0]).longValue(), ((Number) row[4]).intValue(),
+                        (String) row[5], ((Number) row[2]).longValue(), (String) row[3], ((Number) row[1]).longValue());
+                review.setCreatedAt(toLocalDateTime(row[6]));
+                reviews.computeIfAbsent(review.getRecipeId(), id -> new ArrayList<>()).add(review);
+            }
+        }
+
+        List<RecipeDTO> dtos = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            RecipeDTO dto = mapScalars(recipe);
+            Object[] author = authors.get(recipe.getId());
+            if (author != null) {
+                dto.setAuthorId((Long) author[1]);
+                dto.setAuthorUsername((String) author[2]);
+            }
+            dto.setTags(tags.getOrDefault(recipe.getId(), new ArrayList<>()));
+            dto.setLikedByUser(liked.contains(recipe.getId()));
+            Object[] stat = stats.get(recipe.getId());
+            dto.setReviewCount(stat != null ? (Long) stat[1] : 0L);
+            dto.setAverageRating(stat != null ? (Double) stat[2] : null);
+            dto.setReviews(reviews.getOrDefault(recipe.getId(), new ArrayList<>()));
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    /**
+     * Fills in the viewer-dependent parts of projected cards: unflushed likes and likedByUser
+     * (one query for the whole list).
+     */
+    public List<RecipeCardDTO> completeCards(List<RecipeCardDTO> cards, String viewerEmail) {
+        if (cards.isEmpty()) {
+            return cards;
+        }
+        Set<Long> liked = Collections.emptySet();
+        if (viewerEmail != null && !viewerEmail.isEmpty()) {
+            Set<Long> ids = cards.stream().map(RecipeCardDTO::getId).collect(Collectors.toSet());
+            liked = new HashSet<>(recipeRepository.findIdsLikedByUser(viewerEmail, ids));
+        }
+        for (RecipeCardDTO card : cards) {
+            card.setLikes(likeCounterService.currentLikes(card.getId(), card.getLikes()));
+            card.setLikedByUser(liked.contains(card.getId()));
+        }
+        return cards;
+    }
+
+    // Columns of the recipe row itself; never touches a lazy association.
+    private RecipeDTO mapScalars(Recipe recipe) {
+        RecipeDTO dto = new RecipeDTO();
+        dto.setId(recipe.getId());
+        dto.setTitle(recipe.getTitle());
+        dto.setPrepTime(recipe.getPrepTime());
+        dto.setCookTime(recipe.getCookTime());
+        dto.setIngredients(recipe.getIngredients());
+        dto.setInstructions(recipe.getInstructions());
+        dto.setNotes(recipe.getNotes());
+        dto.setImageUri(recipe.getImageUri());
+        dto.setUrl(recipe.getUrl());
+        dto.setServings(recipe.getServings());
+        dto.setDifficulty(recipe.getDifficulty());
+        dto.setCuisine(recipe.getCuisine());
+        dto.setSource(recipe.getSource());
+        dto.setVideo(recipe.getVideo());
+        dto.setCalories(recipe.getCalories());
+        dto.setCarbohydrates(recipe.getCarbohydrates());
+        dto.setProtein(recipe.getProtein());
+        dto.setFat(recipe.getFat());
+        dto.setSugar(recipe.getSugar());
+        dto.setPublic(recipe.getPublic());
+        dto.setCreatedAt(recipe.getCreatedAt());
+        dto.setIsAiGenerated(recipe.getIsAiGenerated());
+        dto.setLikes(likeCounterService.currentLikes(recipe.getId(), recipe.getLikes()));
+        return dto;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+import com.example.demo.repositories.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deletes recipes together with everything that references them using set-based statements.
+ *
+ * Ownership is checked with one projection query; then, per batch of ids, each dependent table
+ * (review reports, reviews, recipe reports, submissions, favorites, likes, book and meal plan
+ * links, tags) is cleared with a single bulk DELETE before the recipes themselves. No entity
+ * or collection is loaded, so the cost no longer grows with the number of books, meal plans or
+ * users touching a recipe.
+ */
+@Service
+public class RecipeDeletionService {
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ReviewReportRepository reviewReportRepository;
+
+    @Autowired
+    private RecipeReportRepository recipeReportRepository;
+
+    @Autowired
+    private RecipeSubmissionRepository recipeSubmissionRepository;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    @Autowired
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @Autowired
+    private RecipeDetailCache recipeDetailCache;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    @Autowired
+    private SocialService socialService;
+
+    // Upper bound on the ids bound into one IN (...) list.
+    @Value("${recipes.delete.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Deletes the given recipes if all of them belong to {@code ownerEmail}; ids that don't
+     * exist are ignored.
+     *
+     * @return number of deleted recipes
+     */
+    @Transactional
+    public int deleteOwnedRecipes(Collection<Long> recipeIds, String ownerEmail) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(recipeIds));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> existing = new ArrayList<>(ids.size());
+        for (List<Long> batch : batches(ids)) {
+            for (Object[] row : recipeRepository.findAuthorEmailsByIds(batch)) {
+                if (!ownerEmail.equals(row[1])) {
+                    throw new RuntimeException("Unauthorized to delete recipe with ID: " + row[0]);
+                }
+                existing.add((Long) row[0]);
+            }
+        }
+        return deleteRecipes(existing);
+    }
+
+    /**
+     * Deletes the given recipes without an ownership check (user removal, admin tools).
+     *
+     * @return number of deleted recipes
+     */
+    @Transactional
+    public int deleteRecipes(Collection<Long> recipeIds) {
+        int deleted = 0;
+        Set<Long> authorIds = new HashSet<>();
+        for (List<Long> batch : batches(new ArrayList<>(recipeIds))) {
+            authorIds.addAll(recipeRepository.findAuthorIdsByIds(batch));
+            socialService.publicRecipesDeleted(batch);
+            // Children first so no statement trips a foreign key.
+            reviewReportRepository.deleteByRecipeIds(batch);
+            reviewRepository.deleteByRecipeIds(batch);
+            recipeReportRepository.deleteByRecipeIds(batch);
+            recipeSubmissionRepository.deleteByRecipeIds(batch);
+            recipeRepository.deleteFavoritesByRecipeIds(batch);
+            recipeRepository.deleteLikesByRecipeIds(batch);
+            recipeRepository.deleteBookLinksByRecipeIds(batch);
+            recipeRepository.deleteMealPlanLinksByRecipeIds(batch);
+            recipeRepository.deleteTagsByRecipeIds(batch);
+            deleted += recipeRepository.deleteByIds(batch);
+        }
+        forgetAfterCommit(recipeIds);
+        quotaService.invalidateAfterCommit(authorIds);
+        return deleted;
+    }
+
+    // In-memory like counts, the search index and the detail cache follow once the delete is durable.
+    private void forgetAfterCommit(Collection<Long> recipeIds) {
+        List<Long> ids = new ArrayList<>(recipeIds);
+        Runnable forget = () -> ids.forEach(id -> {
+            likeCounterService.forget(id);
+            recipeSearchIndex.remove(id);
+            recipeDetailCache.invalidate(id);
+        });
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            forget.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                forget.run();
+            }
+        });
+    }
+
+    private List<List<Long>> batches(List<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            batches.add(ids.subList(from, Math.min(from + batchSize, ids.size())));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.RecipeDTO;
+import com.example.demo.dto.ReviewDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of recipe detail DTOs, sized by an estimate of their memory footprint.
+ *
+ * Entries are stored viewer-independent (likedByUser is always false) and expire after a TTL;
+ * callers overlay the viewer's fields on a {@link RecipeDTO#copy()}. RecipeServiceImpl,
+ * ReviewServiceImpl, RecipeDeletionService and UserServiceImpl invalidate entries whenever the
+ * recipe, its likes, its reviews or an embedded username change on this node. Invalidation is
+ * not broadcast: other nodes keep serving their copy until it expires, so with several nodes a
+ * detail can be stale (even edited, moderated or deleted) for up to {@code recipes.cache.ttl-ms},
+ * which is kept short for that reason. Every invalidation is stamped
+ * with a generation; a caller takes {@link #generation()} before loading and passes it to
+ * {@link #put}, which drops the DTO if the recipe was invalidated since, so a load that raced
+ * with a write is not cached for the whole TTL.
+ */
+@Component
+public class RecipeDetailCache {
+
+    // Rough per-entry cost of the DTO object graph besides its strings.
+    private static final long ENTRY_OVERHEAD_BYTES = 512;
+    private static final long REVIEW_OVERHEAD_BYTES = 96;
+
+    @Value("${recipes.cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    // Bounds how long other nodes serve a recipe after it changed; see the class comment.
+    @Value("${recipes.cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes = 0;
+
+    // Bounds invalidatedAt; past this it is cleared and all in-flight loads are treated as stale.
+    private static final int MAX_TRACKED_INVALIDATIONS = 10_000;
+
+    private long generation = 0;
+    private long allInvalidatedAt = 0;
+    private final Map<Long, Long> invalidatedAt = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @return the cached DTO (shared; copy before changing it) or null
+     */
+    public synchronized RecipeDTO get(Long recipeId) {
+        Entry entry = entries.get(recipeId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            remove(recipeId);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.dto;
+    }
+
+    /**
+     * @return the stamp to pass to {@link #put} for a DTO loaded after this call
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches the DTO unless the recipe was invalidated after {@code loadedAt} was taken.
+     */
+    public synchronized void put(Long recipeId, RecipeDTO dto, long loadedAt) {
+        if (allInvalidatedAt > loadedAt || invalidatedAt.getOrDefault(recipeId, 0L) > loadedAt) {
+            return;
+        }
+        long bytes = estimateBytes(dto);
+        if (bytes > maxBytes) {
+            return;
+        }
+        remove(recipeId);
+        entries.put(recipeId, new Entry(dto, bytes, System.currentTimeMillis() + ttlMs));
+        totalBytes += bytes;
+
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().bytes;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public synchronized void invalidate(Long recipeId) {
+        remove(recipeId);
+        generation++;
+        if (invalidatedAt.size() >= MAX_TRACKED_INVALIDATIONS) {
+            invalidatedAt.clear();
+            allInvalidatedAt = generation;
+        } else {
+            invalidatedAt.put(recipeId, generation);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        totalBytes = 0;
+        generation++;
+        allInvalidatedAt = generation;
+        invalidatedAt.clear();
+    }
+
+    /**
+     * Invalidates now and again once the current transaction commits, so a read that races
+     * with the write cannot leave the pre-commit state cached.
+     */
+    public void invalidateAfterCommit(Long recipeId) {
+        invalidate(recipeId);
+        afterCommit(() -> invalidate(recipeId));
+    }
+
+    public void invalidateAllAfterCommit() {
+        invalidateAll();
+        afterCommit(this::invalidateAll);
+    }
+
+    public synchronized Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("entries", (long) entries.size());
+        stats.put("bytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private void remove(Long recipeId) {
+        Entry removed = entries.remove(recipeId);
+        if (removed != null) {
+            totalBytes -= removed.bytes;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static long estimateBytes(RecipeDTO dto) {
+        long chars = length(dto.getTitle()) + length(dto.getIngredients()) + length(dto.getInstructions())
+                + length(dto.getNotes()) + length(dto.getImageUri()) + length(dto.getUrl())
+                + length(dto.getSource()) + length(dto.getVideo()) + length(dto.getAuthorUsername());
+        if (dto.getTags() != null) {
+            for (String tag : dto.getTags()) {
+                chars += length(tag);
+            }
+        }
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        List<ReviewDTO> reviews = dto.getReviews();
+        if (reviews != null) {
+            for (ReviewDTO review : reviews) {
+                chars += length(review.getComment()) + length(review.getUsername());
+                bytes += REVIEW_OVERHEAD_BYTES;
+            }
+        }
+        return bytes + chars * 2;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static final class Entry {
+        final RecipeDTO dto;
+        final long bytes;
+        final long expiresAt;
+
+        Entry(RecipeDTO dto, long bytes, long expiresAt) {
+            this.dto = dto;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
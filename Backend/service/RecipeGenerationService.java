@@ -2,13 +2,11 @@ package com.example.demo.service;
 
 
 import com.example.demo.model.Recipe;
-import com.example.demo.model.User;
 import com.example.demo.repositories.RecipeRepository;
-import com.example.demo.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import javax.transaction.Transactional;
 
 @Service
 public class RecipeGenerationService {
@@ -17,46 +15,16 @@ public class RecipeGenerationService {
     private RecipeRepository recipeRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private QuotaService quotaService;
 
-    public Recipe generateRecipeWithLimitCheck(User user, String ingredients) {
-        // Check if the current cycle should be reset:
-        LocalDateTime cycleStart = user.getRecipeGenerationCycleStart();
-        if (cycleStart == null || LocalDateTime.now().isAfter(cycleStart.plusMonths(1))) {
-            // Reset counter and update cycle start:
-            user.setRecipeGenerationCount(0);
-            user.setRecipeGenerationCycleStart(LocalDateTime.now());
-            userRepository.save(user);
-        }
-
-        // Determine the allowed limit based on subscription type:
-        int limit;
-        switch (user.getSubscriptionType()) {
-            case FREE:
-                limit = 3;
-                break;
-            case PLUS:
-                limit = 10;
-                break;
-            case PRO:
-                limit = Integer.MAX_VALUE;
-                break;
-            default:
-                limit = 3;
-        }
-
-        // Check if the user has reached the monthly limit:
-        if (user.getRecipeGenerationCount() >= limit) {
-            throw new SubscriptionLimitException("Monthly recipe generation limit reached for your subscription tier.");
-        }
+    @Transactional
+    public Recipe generateRecipeWithLimitCheck(Long userId, String ingredients) {
+        // Take one generation from the user's monthly quota; given back if saving fails.
+        quotaService.consume(userId, QuotaService.Resource.GENERATIONS);
 
         // Call your existing logic to generate a recipe (or call an external AI service):
         Recipe generatedRecipe = generateRecipeFromIngredients(ingredients);
 
-        // Increment the count and update the user:
-        user.setRecipeGenerationCount(user.getRecipeGenerationCount() + 1);
-        userRepository.save(user);
-
         // Save and return the generated recipe:
         return recipeRepository.save(generatedRecipe);
     }
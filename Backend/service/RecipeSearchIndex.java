@@ -0,0 +1,438 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Recipe;
+import com.example.demo.repositories.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded inverted index over public recipes, ranked by BM25 blended with likes.
+ *
+ * Title, tags, cuisine, difficulty and ingredients are analyzed by {@link TextAnalyzer} and
+ * merged into one weighted term vector per recipe (title counts most). The index is kept
+ * current from create/update/delete in RecipeServiceImpl, applied once the change commits (see
+ * {@link #indexAfterCommit}), and snapshotted to local disk.
+ *
+ * Each node has its own index and only sees the changes made on it, so the index is rebuilt
+ * from the database at startup (searches are served from the snapshot meanwhile) and every
+ * {@code search.index.rebuild-interval-ms}; changes on other nodes show up after the next
+ * rebuild.
+ */
+@Component
+public class RecipeSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeSearchIndex.class);
+
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final float TITLE_BOOST = 3.0f;
+    private static final float TAG_BOOST = 2.0f;
+    private static final float CUISINE_BOOST = 1.5f;
+    private static final float DIFFICULTY_BOOST = 1.0f;
+    private static final float INGREDIENT_BOOST = 1.0f;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    @Value("${search.index.path:data/recipe-search.idx}")
+    private String snapshotPath;
+
+    // Weight of log(1 + likes) in the final score: score = bm25 * (1 + likesWeight * log1p(likes))
+    @Value("${search.likes-weight:0.2}")
+    private double likesWeight;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    // term -> (recipeId -> weighted term frequency)
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private double totalLength = 0;
+    private volatile boolean dirty = false;
+    // While reindexAll() reads the database, the recipes indexed or removed meanwhile (null doc
+    // = removed), re-applied on top of the rebuilt index. Guarded by the write lock.
+    private Map<Long, Doc> changedDuringReindex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Path path = Paths.get(snapshotPath);
+        if (Files.isReadable(path)) {
+            try (ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(
+                    new BufferedInputStream(Files.newInputStream(path))))) {
+                if (in.readInt() == SNAPSHOT_VERSION) {
+                    @SuppressWarnings("unchecked")
+                    Map<Long, Doc> snapshot = (Map<Long, Doc>) in.readObject();
+                    replaceAll(snapshot);
+                    log.info("Loaded recipe search index with {} recipes from {}", snapshot.size(), path);
+                }
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                log.warn("Could not read recipe search index at {}, rebuilding", path, e);
+            }
+        }
+        // The snapshot misses whatever changed on other nodes or after it was written.
+        reindexAll();
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.rebuild-interval-ms:900000}",
+            initialDelayString = "${search.index.rebuild-interval-ms:900000}")
+    public void rebuild() {
+        reindexAll();
+    }
+
+    /**
+     * Rebuilds the whole index from the public recipes in the database.
+     *
+     * @return number of indexed recipes
+     */
+    public synchronized int reindexAll() {
+        lock.writeLock().lock();
+        try {
+            changedDuringReindex = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, Doc> rebuilt = new HashMap<>();
+        try {
+            List<Recipe> recipes = recipeRepository.findByIsPublicTrue();
+            Map<Long, List<String>> tags = new HashMap<>();
+            if (!recipes.isEmpty()) {
+                List<Long> ids = recipes.stream().map(Recipe::getId).collect(Collectors.toList());
+                for (Object[] row : recipeRepository.findTagsByRecipeIds(ids)) {
+                    tags.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+                }
+            }
+            for (Recipe recipe : recipes) {
+                rebuilt.put(recipe.getId(), toDoc(recipe, tags.getOrDefault(recipe.getId(), Collections.emptyList())));
+            }
+            lock.writeLock().lock();
+            try {
+                changedDuringReindex.forEach((id, doc) -> {
+                    if (doc != null) {
+                        rebuilt.put(id, doc);
+                    } else {
+                        rebuilt.remove(id);
+                    }
+                });
+                replaceAll(rebuilt);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedDuringReindex = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        dirty = true;
+        log.info("Reindexed {} public recipes", rebuilt.size());
+        return rebuilt.size();
+    }
+
+    /**
+     * Adds or refreshes a recipe; a recipe that is not public is removed instead.
+     */
+    public void index(Recipe recipe) {
+        if (!Boolean.TRUE.equals(recipe.getPublic())) {
+            remove(recipe.getId());
+            return;
+        }
+        put(recipe.getId(), toDoc(recipe, recipe.getTags() != null ? recipe.getTags() : Collections.emptyList()));
+    }
+
+    /**
+     * Like {@link #index}, but applied only once the current transaction commits, so a rollback
+     * leaves the index alone. The document is built right away, while the recipe's lazy
+     * collections can still be loaded.
+     */
+    public void indexAfterCommit(Recipe recipe) {
+        Long recipeId = recipe.getId();
+        if (!Boolean.TRUE.equals(recipe.getPublic())) {
+            afterCommit(() -> remove(recipeId));
+            return;
+        }
+        Doc doc = toDoc(recipe, recipe.getTags() != null ? recipe.getTags() : Collections.emptyList());
+        afterCommit(() -> put(recipeId, doc));
+    }
+
+    public void remove(Long recipeId) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringReindex != null) {
+                changedDuringReindex.put(recipeId, null);
+            }
+            if (unlink(recipeId)) {
+                dirty = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void adjustLikesAfterCommit(Long recipeId, int delta) {
+        afterCommit(() -> adjustLikes(recipeId, delta));
+    }
+
+    public void adjustLikes(Long recipeId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Doc doc = docs.get(recipeId);
+            if (doc != null) {
+                doc.likes += delta;
+                dirty = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks recipes matching any query term. A blank query matches every indexed recipe, so
+     * the facet filters alone can be used to browse. Facet counts cover all filtered matches.
+     */
+    public Hits search(String query, String cuisine, String difficulty, String tag, int page, int size) {
+        List<String> terms = TextAnalyzer.analyze(query).stream().distinct().collect(Collectors.toList());
+        String cuisineKey = facetKey(cuisine);
+        String difficultyKey = facetKey(difficulty);
+        String tagKey = facetKey(tag);
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            if (terms.isEmpty()) {
+                docs.keySet().forEach(id -> scores.put(id, 1.0));
+            } else {
+                double avgLength = docs.isEmpty() ? 1 : Math.max(totalLength / docs.size(), 1);
+                for (String term : terms) {
+                    Map<Long, Float> posting = postings.get(term);
+                    if (posting == null) {
+                        continue;
+                    }
+                    double idf = Math.log(1 + (docs.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+                    for (Map.Entry<Long, Float> p : posting.entrySet()) {
+                        double tf = p.getValue();
+                        double norm = 1 - B + B * docs.get(p.getKey()).length / avgLength;
+                        scores.merge(p.getKey(), idf * tf * (K1 + 1) / (tf + K1 * norm), Double::sum);
+                    }
+                }
+            }
+
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            facets.put("cuisine", new HashMap<>());
+            facets.put("difficulty", new HashMap<>());
+            facets.put("tags", new HashMap<>());
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>();
+            for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                Doc doc = docs.get(score.getKey());
+                if ((cuisineKey != null && !cuisineKey.equals(doc.cuisine))
+                        || (difficultyKey != null && !difficultyKey.equals(doc.difficulty))
+                        || (tagKey != null && !doc.tags.contains(tagKey))) {
+                    continue;
+                }
+                if (doc.cuisine != null) facets.get("cuisine").merge(doc.cuisine, 1L, Long::sum);
+                if (doc.difficulty != null) facets.get("difficulty").merge(doc.difficulty, 1L, Long::sum);
+                doc.tags.forEach(t -> facets.get("tags").merge(t, 1L, Long::sum));
+                double blended = score.getValue() * (1 + likesWeight * Math.log1p(Math.max(doc.likes, 0)));
+                ranked.add(new AbstractMap.SimpleEntry<>(score.getKey(), blended));
+            }
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+
+            List<Long> ids = ranked.stream()
+                    .skip((long) page * size)
+                    .limit(size)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            return new Hits(ids, ranked.size(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.snapshot-interval-ms:60000}")
+    public void snapshotIfDirty() {
+        if (dirty) {
+            snapshot();
+        }
+    }
+
+    @PreDestroy
+    public void snapshot() {
+        Map<Long, Doc> copy;
+        lock.readLock().lock();
+        try {
+            copy = new HashMap<>(docs);
+            dirty = false;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Path path = Paths.get(snapshotPath);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path tmp = Paths.get(snapshotPath + ".tmp");
+            try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeObject(copy);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Could not write recipe search index snapshot to {}", path, e);
+        }
+    }
+
+    private void put(Long recipeId, Doc doc) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringReindex != null) {
+                changedDuringReindex.put(recipeId, doc);
+            }
+            unlink(recipeId);
+            link(recipeId, doc);
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void replaceAll(Map<Long, Doc> snapshot) {
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            postings.clear();
+            totalLength = 0;
+            snapshot.forEach(this::link);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(Long recipeId, Doc doc) {
+        docs.put(recipeId, doc);
+        totalLength += doc.length;
+        doc.terms.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(recipeId, tf));
+    }
+
+    private boolean unlink(Long recipeId) {
+        Doc doc = docs.remove(recipeId);
+        if (doc == null) {
+            return false;
+        }
+        totalLength -= doc.length;
+        for (String term : doc.terms.keySet()) {
+            Map<Long, Float> posting = postings.get(term);
+            posting.remove(recipeId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        return true;
+    }
+
+    private Doc toDoc(Recipe recipe, List<String> tags) {
+        Map<String, Float> terms = new HashMap<>();
+        float length = 0;
+        length += addField(terms, recipe.getTitle(), TITLE_BOOST);
+        length += addField(terms, String.join(" ", tags), TAG_BOOST);
+        length += addField(terms, recipe.getCuisine(), CUISINE_BOOST);
+        length += addField(terms, recipe.getDifficulty(), DIFFICULTY_BOOST);
+        length += addField(terms, recipe.getIngredients(), INGREDIENT_BOOST);
+        List<String> tagKeys = tags.stream().map(RecipeSearchIndex::facetKey).filter(Objects::nonNull)
+                .distinct().collect(Collectors.toList());
+        int likes = likeCounterService.currentLikes(recipe.getId(), recipe.getLikes());
+        return new Doc(terms, length, likes, facetKey(recipe.getCuisine()), facetKey(recipe.getDifficulty()), tagKeys);
+    }
+
+    private static float addField(Map<String, Float> terms, String text, float boost) {
+        List<String> tokens = TextAnalyzer.analyze(text);
+        tokens.forEach(term -> terms.merge(term, boost, Float::sum));
+        return tokens.size() * boost;
+    }
+
+    private static String facetKey(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Doc implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final Map<String, Float> terms;
+        final float length;
+        int likes;
+        final String cuisine;
+        final String difficulty;
+        final List<String> tags;
+
+        Doc(Map<String, Float> terms, float length, int likes, String cuisine, String difficulty, List<String> tags) {
+            this.terms = terms;
+            this.length = length;
+            this.likes = likes;
+            this.cuisine = cuisine;
+            this.difficulty = difficulty;
+            this.tags = tags;
+        }
+    }
+
+    public static final class Hits {
+        private final List<Long> recipeIds;
+        private final long total;
+        private final Map<String, Map<String, Long>> facets;
+
+        Hits(List<Long> recipeIds, long total, Map<String, Map<String, Long>> facets) {
+            this.recipeIds = recipeIds;
+            this.total = total;
+            this.facets = facets;
+        }
+
+        public List<Long> getRecipeIds() {
+            return recipeIds;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public Map<String, Map<String, Long>> getFacets() {
+            return facets;
+        }
+    }
+}
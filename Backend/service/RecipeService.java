@@ -1,10 +1,15 @@
 package com.example.demo.service;
 
 
+import com.example.demo.dto.RecipeCardDTO;
 import com.example.demo.dto.RecipeDTO;
+import com.example.demo.dto.RecipePageDTO;
+import com.example.demo.dto.RecipePageQuery;
+import com.example.demo.dto.RecipeSearchResultDTO;
 import com.example.demo.model.Recipe;
 
 
+import java.util.Collection;
 import java.util.List;
 
 public interface RecipeService {
@@ -12,14 +17,30 @@ public interface RecipeService {
     Recipe updateRecipe(Long id, RecipeDTO recipeDTO);
     void deleteRecipe(Long id);
     Recipe getRecipeById(Long id);
+    List<Recipe> getRecipesByIds(Collection<Long> ids);
+    // Detail view for the current viewer, served from RecipeDetailCache when possible.
+    RecipeDTO getRecipeDetail(Long id);
 
     RecipeDTO mapEntityToDTO(Recipe recipe);
+    // Bulk variant for list endpoints; issues a fixed number of queries regardless of list size.
+    List<RecipeDTO> mapEntitiesToDTOs(List<Recipe> recipes);
 
     List<Recipe> getAllRecipes();
     RecipeDTO likeRecipe(Long recipeId, String userEmail);
     void deleteRecipesByIdsAndUserEmail(List<Long> recipeIds, String userEmail);
 
     List<Recipe> searchRecipesByTitle(String title);
+    RecipePageDTO<RecipeDTO> getRecipePage(RecipePageQuery query);
+
+    // Compact projections for ?view=card; the heavy columns and collections are never loaded.
+    List<RecipeCardDTO> getAllRecipeCards();
+    List<RecipeCardDTO> searchRecipeCardsByTitle(String title);
+    RecipePageDTO<RecipeCardDTO> getRecipeCardPage(RecipePageQuery query);
+    List<RecipeCardDTO> getSubmittedRecipeCards(Long challengeId);
+    List<RecipeCardDTO> getBookRecipeCards(Long bookId);
+    List<RecipeCardDTO> getFavoriteRecipeCards(String userEmail);
+    // Ranked full-text search over public recipes, served from the in-memory index.
+    RecipeSearchResultDTO searchRecipes(String query, String cuisine, String difficulty, String tag, int page, int size);
     long countRecipes();
     long countTotalLikes();
     List<Recipe> getRecipesByUserEmail(String email);
@@ -1,11 +1,16 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.RecipeCardDTO;
 import com.example.demo.dto.RecipeDTO;
-import com.example.demo.dto.ReviewDTO;
+import com.example.demo.dto.RecipePageDTO;
+import com.example.demo.dto.RecipePageQuery;
+import com.example.demo.dto.RecipeSearchResultDTO;
 import com.example.demo.model.*;
 import com.example.demo.repositories.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,14 +18,17 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.transaction.Transactional;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Map;
+import java.util.Objects;
 
 import static com.sun.activation.registries.LogSupport.log;
 import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,7 +45,7 @@ public class RecipeServiceImpl implements RecipeService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private ReviewService reviewService;
+    private RecipeDTOAssembler recipeDTOAssembler;
 
     @Autowired
     private ChallengeRepository challengeRepository;
@@ -53,7 +61,41 @@ public class RecipeServiceImpl implements RecipeService {
     @Lazy
     private ChallengeService challengeService;
 
+    @Autowired
+    private LeaderboardEngine leaderboardEngine;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    @Autowired
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @Autowired
+    private ProfanityFilter profanityFilter;
+
+    @Autowired
+    private RecipeDeletionService recipeDeletionService;
+
+    @Autowired
+    private SocialService socialService;
+
+    @Autowired
+    private RecipeDetailCache recipeDetailCache;
+
+    @Autowired
+    private CurrentUser currentUser;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    @Value("${recipes.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${recipes.page.max-size:50}")
+    private int maxPageSize;
+
     @Override
+    @Transactional
     public Recipe createRecipe(RecipeDTO recipeDTO) {
         Recipe recipe = mapDTOToEntity(recipeDTO);
 
@@ -73,152 +115,24 @@ public class RecipeServiceImpl implements RecipeService {
 
         } else {
             // Fallback to current authenticated user.
-            User currentUser = userRepository.findByEmail(userEmail)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + userEmail));
+            User author = currentUser.referenceFor(userEmail);
             // Perform subscription check for non-admins
-            switch(currentUser.getSubscriptionType()) {
-                case FREE:
-                    long freeCount = recipeRepository.countByAuthor(currentUser);
-                    if (freeCount >= 10) {
-                        throw new SubscriptionLimitException("Free tier limited to 10 recipes");
-                    }
-                    break;
-                case PLUS:
-                    long plusCount = recipeRepository.countByAuthor(currentUser);
-                    if (plusCount >= 25) {
-                        throw new SubscriptionLimitException("Plus tier limited to 25 recipes");
-                    }
-                    break;
-                case PRO:
-                    // No limit for PRO users
-                    break;
-            }
-            recipe.setAuthor(currentUser);
+            quotaService.consume(currentUser.getId(), QuotaService.Resource.RECIPES);
+            recipe.setAuthor(author);
         }
 
-        return recipeRepository.save(recipe);
+        Recipe saved = recipeRepository.save(recipe);
+        socialService.publicRecipeChanged(saved.getAuthor().getId(), false, Boolean.TRUE.equals(saved.getPublic()));
+        recipeSearchIndex.indexAfterCommit(saved);
+        return saved;
     }
 
     @Override
     public void deleteRecipesByIdsAndUserEmail(List<Long> recipeIds, String userEmail) {
-        List<Recipe> recipes = recipeRepository.findAllById(recipeIds);
-
-        // 1) Check ownership
-        for (Recipe recipe : recipes) {
-            if (!recipe.getAuthor().getEmail().equals(userEmail)) {
-                throw new RuntimeException("Unauthorized to delete recipe with ID: " + recipe.getId());
-            }
-        }
-        for (Recipe recipe : recipes) {
-            List<RecipeSubmission> submissions = recipeSubmissionRepository.findByRecipe_Id(recipe.getId());
-            recipeSubmissionRepository.deleteAll(submissions);
-        }
-        // 2) Remove from user favorites
-        for (Recipe recipe : recipes) {
-            for (User user : recipe.getFavoritedBy()) {
-                user.getFavoriteRecipes().remove(recipe);
-            }
-            recipe.getFavoritedBy().clear();
-        }
-
-        // 3) Remove from all books
-        for (Recipe recipe : recipes) {
-            // Remove from all books
-            List<Book> booksWithRecipe = bookRepository.findBooksByRecipeId(recipe.getId());
-            for (Book book : booksWithRecipe) {
-                book.getRecipes().remove(recipe);
-                bookRepository.save(book);
-            }
-        }
-// 3.5) Remove from all meal plans
-        for (Recipe recipe : recipes) {
-            List<MealPlan> mealPlansWithRecipe = mealPlanRepository.findByRecipes_Id(recipe.getId());
-            for (MealPlan mealPlan : mealPlansWithRecipe) {
-                mealPlan.getRecipes().remove(recipe);
-                mealPlanRepository.save(mealPlan);
-            }
-        }
-
-        // 4) Finally delete the recipes
-        recipeRepository.deleteAll(recipes);
-    }
-    private static final List<Pattern> BANNED_PATTERNS = List.of(
-            // English examples without word boundaries
-            Pattern.compile("(?i)fuck(?:ed|ing|er)?"),
-            Pattern.compile("(?i)shit(?:ty|ed)?"),
-            Pattern.compile("(?i)bitch"),
-            Pattern.compile("(?i)asshole"),
-            Pattern.compile("(?i)dick"),
-            Pattern.compile("(?i)cunt(?:s|ing)?"),
-            Pattern.compile("(?i)motherfucker(?:ed|ing|s)?"),
-            Pattern.compile("(?i)bastard(?:s)?"),
-            Pattern.compile("(?i)damn(?:ed)?"),
-            Pattern.compile("(?i)crap"),
-            Pattern.compile("(?i)piss(?:ed|ing)?"),
-            Pattern.compile("(?i)slut(?:ty)?"),
-            Pattern.compile("(?i)douche(?:bag)?"),
-            Pattern.compile("(?i)fagg?ot"),
-            Pattern.compile("(?i)whore"),
-            Pattern.compile("(?i)bollocks"),
-            Pattern.compile("(?i)arsehole"),
-            Pattern.compile("(?i)twat"),
-            Pattern.compile("(?i)bugger"),
-            Pattern.compile("(?i)shag(?:ging)?"),
-            Pattern.compile("(?i)wanker"),
-
-            // Russian examples (similarly, without word boundaries)
-            Pattern.compile("(?i)бляд(?:ь|ный|и)?"),
-            Pattern.compile("(?i)сука"),
-            Pattern.compile("(?i)хуй(?:[а-я]*)?"),
-            Pattern.compile("(?i)пизда"),
-            Pattern.compile("(?i)еб(?:ать|ается|ался|ут|ют|ешь|ала)?"),
-            Pattern.compile("(?i)ёб(?:ать|ается|ался|ут|ют|ешь|ала)?"),
-            Pattern.compile("(?i)нахуй"),
-            Pattern.compile("(?i)мудило"),
-            Pattern.compile("(?i)говно"),
-            Pattern.compile("(?i)дерьмо"),
-            Pattern.compile("(?i)пиздец"),
-            Pattern.compile("(?i)залупа"),
-            Pattern.compile("(?i)пидор(?:а|ы|ов)?"),
-            Pattern.compile("(?i)хер(?:[а-я]*)?"),
-            Pattern.compile("(?i)трах(?:аться|аюсь|ался|ались)?"),
-            Pattern.compile("(?i)сучка")
-    );
-
-    private boolean foundBadWords(String original, String censored) {
-        return !original.equals(censored);
+        recipeDeletionService.deleteOwnedRecipes(recipeIds, userEmail);
     }
-
     private String censorText(String input) {
-        if (input == null) return null;
-        String output = input;
-        for (Pattern pattern : BANNED_PATTERNS) {
-            Matcher matcher = pattern.matcher(output);
-            while (matcher.find()) {
-                String match = matcher.group();
-                String stars = "*".repeat(match.length());
-                output = matcher.replaceFirst(stars);
-                matcher = pattern.matcher(output);
-            }
-        }
-        return output;
-    }
-    private boolean detectProfanity(String... fields) {
-        // For each field (title, ingredients, instructions, notes, etc.)
-        for (String field : fields) {
-            if (field == null) continue;  // Skip null fields
-
-            // Check if any banned pattern matches
-            for (Pattern pattern : BANNED_PATTERNS) {
-                Matcher matcher = pattern.matcher(field);
-                if (matcher.find()) {
-                    // As soon as we find a match, return true
-                    return true;
-                }
-            }
-        }
-        // No profane words found
-        return false;
+        return profanityFilter.censor(input);
     }
     private List<String> censorTags(List<String> tags) {
         if (tags == null) {
@@ -230,9 +144,11 @@ public class RecipeServiceImpl implements RecipeService {
     }
 
     @Override
+    @Transactional
     public Recipe updateRecipe(Long id, RecipeDTO recipeDTO) {
         Recipe existingRecipe = recipeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Recipe not found"));
+        boolean wasPublic = Boolean.TRUE.equals(existingRecipe.getPublic());
 
         // Get the current authentication details
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -247,20 +163,13 @@ public class RecipeServiceImpl implements RecipeService {
         }
 
 
-        String censoredTitle = censorText(recipeDTO.getTitle());
-        String censoredIngredients = censorText(recipeDTO.getIngredients());
-        String censoredInstructions = censorText(recipeDTO.getInstructions());
-        String censoredNotes = censorText(recipeDTO.getNotes());
-        recipeDTO.setTitle(censoredTitle);
-        recipeDTO.setIngredients(censoredIngredients);
-        recipeDTO.setInstructions(censoredInstructions);
-        recipeDTO.setNotes(censoredNotes);
+        // Banned words are masked; visibility is left as the author set it.
+        recipeDTO.setTitle(profanityFilter.censor(recipeDTO.getTitle()));
+        recipeDTO.setIngredients(profanityFilter.censor(recipeDTO.getIngredients()));
+        recipeDTO.setInstructions(profanityFilter.censor(recipeDTO.getInstructions()));
+        recipeDTO.setNotes(profanityFilter.censor(recipeDTO.getNotes()));
         List<String> censoredTags = censorTags(recipeDTO.getTags());
         recipeDTO.setTags(censoredTags);
-        if (detectProfanity(recipeDTO.getTitle(), recipeDTO.getIngredients(), recipeDTO.getInstructions(), recipeDTO.getNotes())
-                && Boolean.TRUE.equals(recipeDTO.getPublic())) {
-            recipeDTO.setPublic(false);
-        }
 
         // Update the fields of the existing recipe
         existingRecipe.setTitle(recipeDTO.getTitle());
@@ -296,7 +205,12 @@ public class RecipeServiceImpl implements RecipeService {
             existingRecipe.setNotes(recipeDTO.getNotes() != null ? recipeDTO.getNotes() : "");
         }
 
-        return recipeRepository.save(existingRecipe);
+        Recipe saved = recipeRepository.save(existingRecipe);
+        socialService.publicRecipeChanged(saved.getAuthor().getId(), wasPublic, Boolean.TRUE.equals(saved.getPublic()));
+        // Also drops the recipe from the index if it was made private.
+        recipeSearchIndex.indexAfterCommit(saved);
+        recipeDetailCache.invalidateAfterCommit(id);
+        return saved;
     }
     @Override
     public long countRecipes() {
@@ -310,41 +224,18 @@ public class RecipeServiceImpl implements RecipeService {
 
     @Override
     public void deleteRecipe(Long id) {
-        Recipe existingRecipe = recipeRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Recipe not found"));
+        List<Object[]> owner = recipeRepository.findAuthorEmailsByIds(List.of(id));
+        if (owner.isEmpty()) {
+            throw new RuntimeException("Recipe not found");
+        }
 
         // Check that the authenticated user is the author
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
-        if (!existingRecipe.getAuthor().getEmail().equals(userEmail)) {
+        if (!userEmail.equals(owner.get(0)[1])) {
             throw new RuntimeException("You are not authorized to delete this recipe");
         }
-        List<RecipeSubmission> submissions = recipeSubmissionRepository.findByRecipe_Id(id);
-        recipeSubmissionRepository.deleteAll(submissions);
-// Remove the recipe from all meal plans
-        List<MealPlan> mealPlans = mealPlanRepository.findAll();
-        for (MealPlan mealPlan : mealPlans) {
-            mealPlan.getRecipes().remove(existingRecipe);
-            mealPlanRepository.saveAll(mealPlans);
-        }
-
-        // Remove the recipe from all books
-        List<Book> booksWithRecipe = bookRepository.findBooksByRecipeId(id);
-        for (Book book : booksWithRecipe) {
-            // Remove the recipe from the book's collection
-            book.getRecipes().remove(existingRecipe);
-            // Save the updated book
-            bookRepository.save(book);
-        }
-
-        // Remove recipe from favorites or any other associations as needed
-        for (User user : existingRecipe.getFavoritedBy()) {
-            user.getFavoriteRecipes().remove(existingRecipe);
-        }
-        existingRecipe.getFavoritedBy().clear();
-
-        // Now delete the recipe
-        recipeRepository.delete(existingRecipe);
+        recipeDeletionService.deleteRecipes(List.of(id));
     }
 
 
@@ -355,6 +246,27 @@ public class RecipeServiceImpl implements RecipeService {
                 .orElseThrow(() -> new RuntimeException("Recipe not found"));
     }
 
+    @Override
+    public List<Recipe> getRecipesByIds(Collection<Long> ids) {
+        return ids == null || ids.isEmpty() ? new ArrayList<>() : recipeRepository.findAllById(ids);
+    }
+
+    @Override
+    public RecipeDTO getRecipeDetail(Long id) {
+        RecipeDTO cached = recipeDetailCache.get(id);
+        if (cached == null) {
+            long generation = recipeDetailCache.generation();
+            Recipe recipe = getRecipeById(id);
+            // Built without a viewer so it can be shared; likedByUser is overlaid below.
+            cached = recipeDTOAssembler.toDTOs(List.of(recipe), null, Integer.MAX_VALUE).get(0);
+            recipeDetailCache.put(id, cached, generation);
+        }
+        RecipeDTO dto = cached.copy();
+        String email = currentUserEmail();
+        dto.setLikedByUser(!email.isEmpty() && !recipeRepository.findIdsLikedByUser(email, List.of(id)).isEmpty());
+        return dto;
+    }
+
     @Override
     public List<Recipe> getAllRecipes() {
         return recipeRepository.findAll();
@@ -365,6 +277,150 @@ public class RecipeServiceImpl implements RecipeService {
         return recipeRepository.findByTitleContainingIgnoreCase(title);
     }
 
+    @Override
+    public RecipePageDTO<RecipeDTO> getRecipePage(RecipePageQuery query) {
+        PageSpec spec = new PageSpec(query);
+        List<Recipe> recipes = spec.recent
+                ? recipeRepository.findPageByRecent(query.getIsPublic(), query.getAuthorId(), spec.cuisine, spec.tag,
+                        spec.title, spec.afterCreatedAt(), spec.afterId(), spec.window())
+                : recipeRepository.findPageByLikes(query.getIsPublic(), query.getAuthorId(), spec.cuisine, spec.tag,
+                        spec.title, spec.afterLikes(), spec.afterId(), spec.window());
+
+        boolean hasMore = recipes.size() > spec.limit;
+        if (hasMore) {
+            recipes = recipes.subList(0, spec.limit);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Recipe last = recipes.get(recipes.size() - 1);
+            nextCursor = spec.cursorAfter(last.getCreatedAt(), last.getLikes(), last.getId());
+        }
+
+        return new RecipePageDTO<>(mapEntitiesToDTOs(recipes), nextCursor, hasMore);
+    }
+
+    @Override
+    public RecipePageDTO<RecipeCardDTO> getRecipeCardPage(RecipePageQuery query) {
+        PageSpec spec = new PageSpec(query);
+        List<RecipeCardDTO> cards = spec.recent
+                ? recipeRepository.findCardPageByRecent(query.getIsPublic(), query.getAuthorId(), spec.cuisine,
+                        spec.tag, spec.title, spec.afterCreatedAt(), spec.afterId(), spec.window())
+                : recipeRepository.findCardPageByLikes(query.getIsPublic(), query.getAuthorId(), spec.cuisine,
+                        spec.tag, spec.title, spec.afterLikes(), spec.afterId(), spec.window());
+
+        boolean hasMore = cards.size() > spec.limit;
+        if (hasMore) {
+            cards = new ArrayList<>(cards.subList(0, spec.limit));
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            // Uses the stored like count, before completeCards adds the unflushed delta.
+            RecipeCardDTO last = cards.get(cards.size() - 1);
+            nextCursor = spec.cursorAfter(last.getCreatedAt(), last.getLikes(), last.getId());
+        }
+
+        return new RecipePageDTO<>(recipeDTOAssembler.completeCards(cards, currentUserEmail()), nextCursor, hasMore);
+    }
+
+    @Override
+    public List<RecipeCardDTO> getAllRecipeCards() {
+        return recipeDTOAssembler.completeCards(recipeRepository.findAllCards(), currentUserEmail());
+    }
+
+    @Override
+    public List<RecipeCardDTO> searchRecipeCardsByTitle(String title) {
+        return recipeDTOAssembler.completeCards(recipeRepository.findCardsByTitle(title), currentUserEmail());
+    }
+
+    @Override
+    public List<RecipeCardDTO> getSubmittedRecipeCards(Long challengeId) {
+        if (!challengeRepository.existsById(challengeId)) {
+            throw new RuntimeException("Challenge not found");
+        }
+        return recipeDTOAssembler.completeCards(recipeRepository.findCardsByChallengeId(challengeId),
+                currentUserEmail());
+    }
+
+    @Override
+    public List<RecipeCardDTO> getBookRecipeCards(Long bookId) {
+        return recipeDTOAssembler.completeCards(recipeRepository.findCardsByBookId(bookId), currentUserEmail());
+    }
+
+    @Override
+    public List<RecipeCardDTO> getFavoriteRecipeCards(String userEmail) {
+        return recipeDTOAssembler.completeCards(recipeRepository.findFavoriteCardsByUserEmail(userEmail), userEmail);
+    }
+
+    /**
+     * Sort, page size, decoded cursor and normalized filters of a keyset page request.
+     */
+    private class PageSpec {
+        final boolean recent;
+        final String sort;
+        final int limit;
+        final RecipeCursor after;
+        final String cuisine;
+        final String tag;
+        final String title;
+
+        PageSpec(RecipePageQuery query) {
+            sort = query.getSort() != null ? query.getSort() : RecipeCursor.RECENT;
+            if (!RecipeCursor.RECENT.equals(sort) && !RecipeCursor.LIKES.equals(sort)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort: " + sort);
+            }
+            recent = RecipeCursor.RECENT.equals(sort);
+            limit = query.getLimit() != null ? Math.max(1, Math.min(query.getLimit(), maxPageSize)) : defaultPageSize;
+            after = query.getCursor() != null ? RecipeCursor.decode(query.getCursor(), sort) : null;
+            cuisine = blankToNull(query.getCuisine());
+            tag = blankToNull(query.getTag());
+            title = blankToNull(query.getTitle());
+        }
+
+        // Fetch one extra row to learn whether another page exists.
+        PageRequest window() {
+            return PageRequest.of(0, limit + 1);
+        }
+
+        OffsetDateTime afterCreatedAt() {
+            return after != null ? after.createdAt : null;
+        }
+
+        Integer afterLikes() {
+            return after != null ? after.likes : null;
+        }
+
+        Long afterId() {
+            return after != null ? after.id : null;
+        }
+
+        String cursorAfter(OffsetDateTime createdAt, int likes, Long id) {
+            return (recent ? RecipeCursor.recent(createdAt, id) : RecipeCursor.likes(likes, id)).encode();
+        }
+    }
+
+    @Override
+    public RecipeSearchResultDTO searchRecipes(String query, String cuisine, String difficulty, String tag,
+                                               int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        RecipeSearchIndex.Hits hits = recipeSearchIndex.search(query, blankToNull(cuisine), blankToNull(difficulty),
+                blankToNull(tag), Math.max(page, 0), pageSize);
+
+        // findAllById returns rows in arbitrary order; put them back in rank order.
+        Map<Long, Recipe> byId = recipeRepository.findAllById(hits.getRecipeIds()).stream()
+                .collect(Collectors.toMap(Recipe::getId, recipe -> recipe));
+        List<Recipe> ranked = hits.getRecipeIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new RecipeSearchResultDTO(mapEntitiesToDTOs(ranked), hits.getTotal(), Math.max(page, 0), pageSize,
+                hits.getFacets());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
     // Utility method to map RecipeDTO to Recipe entity
     private Recipe mapDTOToEntity(RecipeDTO recipeDTO) {
         Recipe recipe = new Recipe();
@@ -412,56 +468,23 @@ public class RecipeServiceImpl implements RecipeService {
 
     @Override
     public RecipeDTO mapEntityToDTO(Recipe recipe) {
-        // You may get the current user from the SecurityContext if needed.
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String currentUserEmail = (auth != null && auth.isAuthenticated()) ? auth.getName() : "";
-        return mapEntityToDTO(recipe, currentUserEmail);
+        return mapEntityToDTO(recipe, currentUserEmail());
     }
 
     // Add an overloaded method that takes the currentUserEmail:
     public RecipeDTO mapEntityToDTO(Recipe recipe, String currentUserEmail) {
-        RecipeDTO dto = new RecipeDTO();
-        dto.setId(recipe.getId());
-        dto.setTitle(recipe.getTitle());
-        dto.setAuthorUsername(recipe.getAuthor().getUsername());
-        dto.setPrepTime(recipe.getPrepTime());
-        dto.setAuthorId(recipe.getAuthor().getId());
-        dto.setCookTime(recipe.getCookTime());
-        dto.setIngredients(recipe.getIngredients());
-        dto.setInstructions(recipe.getInstructions());
-        dto.setNotes(recipe.getNotes());
-        dto.setImageUri(recipe.getImageUri());
-        dto.setUrl(recipe.getUrl());
-        dto.setServings(recipe.getServings());
-        dto.setDifficulty(recipe.getDifficulty());
-        dto.setCuisine(recipe.getCuisine());
-        dto.setSource(recipe.getSource());
-        dto.setVideo(recipe.getVideo());
-        dto.setCalories(recipe.getCalories());
-        dto.setCarbohydrates(recipe.getCarbohydrates());
-        dto.setProtein(recipe.getProtein());
-        dto.setFat(recipe.getFat());
-        dto.setSugar(recipe.getSugar());
-        dto.setTags(recipe.getTags());
-        dto.setPublic(recipe.getPublic());
-        dto.setCreatedAt(recipe.getCreatedAt());
-        dto.setIsAiGenerated(recipe.getIsAiGenerated());
-
-        dto.setLikes(recipe.getLikes());
-
-        // Compute likedByUser using the current user's email (if provided)
-        if (currentUserEmail != null && !currentUserEmail.isEmpty()) {
-            boolean likedByUser = recipe.getLikedBy().stream()
-                    .anyMatch(user -> user.getEmail().equals(currentUserEmail));
-            dto.setLikedByUser(likedByUser);
-        } else {
-            dto.setLikedByUser(false);
-        }
+        // The detail view keeps embedding every review.
+        return recipeDTOAssembler.toDTOs(List.of(recipe), currentUserEmail, Integer.MAX_VALUE).get(0);
+    }
 
-        List<ReviewDTO> reviews = reviewService.getReviewsByRecipe(recipe.getId());
-        dto.setReviews(reviews);
+    @Override
+    public List<RecipeDTO> mapEntitiesToDTOs(List<Recipe> recipes) {
+        return recipeDTOAssembler.toDTOs(recipes, currentUserEmail());
+    }
 
-        return dto;
+    private String currentUserEmail() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return (auth != null && auth.isAuthenticated()) ? auth.getName() : "";
     }
 
 
@@ -471,29 +494,31 @@ public class RecipeServiceImpl implements RecipeService {
         Recipe recipe = recipeRepository.findById(recipeId)
                 .orElseThrow(() -> new RuntimeException("Recipe not found"));
 
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = currentUser.referenceFor(userEmail).getId();
 
-        boolean isLiking = !recipe.getLikedBy().contains(user);
+        // Toggles the recipe_likes row; the count itself is flushed to Recipe.likes in the background.
+        int delta = likeCounterService.toggle(recipeId, userId);
+        recipeDetailCache.invalidateAfterCommit(recipeId);
 
-        if (isLiking) {
-            recipe.getLikedBy().add(user);
-            recipe.setLikes(recipe.getLikes() + 1);
+        if (delta > 0) {
             System.out.println("✅ User " + userEmail + " liked Recipe ID " + recipeId);
-        } else {
-            recipe.getLikedBy().remove(user);
-            recipe.setLikes(recipe.getLikes() - 1);
+        } else if (delta < 0) {
             System.out.println("❌ User " + userEmail + " unliked Recipe ID " + recipeId);
         }
 
-        recipeRepository.save(recipe);
-        int updatedLikes = recipe.getLikes();
-        System.out.println("🔄 Recipe ID " + recipeId + " Likes updated: " + updatedLikes);
-
-        // 🔥 Call ChallengeService to recalculate leaderboard
-        challengeService.recalculateLeaderboard();
+        if (delta != 0) {
+            // 🔥 Re-rank only the challenges this recipe was submitted to
+            leaderboardEngine.applyLikeDelta(recipeId, delta);
+            recipeSearchIndex.adjustLikesAfterCommit(recipeId, delta);
+        }
 
-        return mapEntityToDTO(recipe, userEmail);
+        RecipeDTO dto = mapEntityToDTO(recipe, userEmail);
+        // The delta is only added to the pending count once this transaction commits.
+        dto.setLikes(dto.getLikes() + delta);
+        if (delta != 0) {
+            dto.setLikedByUser(delta > 0);
+        }
+        return dto;
     }
 
 
@@ -566,12 +591,7 @@ public class RecipeServiceImpl implements RecipeService {
         return recipeRepository.findByAuthor(user);
     }
     private boolean detectProfanityInTags(List<String> tags) {
-        for (String tag : tags) {
-            if (detectProfanity(tag)) {
-                return true;
-            }
-        }
-        return false;
+        return profanityFilter.containsProfanity(tags.toArray(new String[0]));
     }
 
 }
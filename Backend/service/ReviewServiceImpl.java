@@ -28,15 +28,20 @@ public class ReviewServiceImpl implements ReviewService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RecipeDetailCache recipeDetailCache;
+
+    @Autowired
+    private CurrentUser currentUser;
+
     @Override
     public ReviewDTO addReview(Long recipeId, ReviewDTO reviewDTO) {
         // Get authenticated user
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userEmail = authentication.getName();
 
-        // Fetch user and recipe
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Reference only; the username for the response is read on its own below
+        User user = currentUser.referenceFor(userEmail);
 
         Recipe recipe = recipeRepository.findById(recipeId)
                 .orElseThrow(() -> new RuntimeException("Recipe not found"));
@@ -57,9 +62,10 @@ public class ReviewServiceImpl implements ReviewService {
         review.setRecipe(recipe);
         review.setCreatedAt(LocalDateTime.now());
         Review savedReview = reviewRepository.save(review);
+        recipeDetailCache.invalidateAfterCommit(recipeId);
 
         // Map to DTO
-        return mapEntityToDTO(savedReview);
+        return mapEntityToDTO(savedReview, userRepository.findUsernameById(user.getId()).orElse(null));
     }
 
     @Override
@@ -107,6 +113,7 @@ public class ReviewServiceImpl implements ReviewService {
         review.setComment(reviewDTO.getComment());
 
         Review updatedReview = reviewRepository.save(review);
+        recipeDetailCache.invalidateAfterCommit(review.getRecipe().getId());
 
         return mapEntityToDTO(updatedReview);
     }
@@ -125,16 +132,21 @@ public class ReviewServiceImpl implements ReviewService {
         }
 
         reviewRepository.delete(review);
+        recipeDetailCache.invalidateAfterCommit(review.getRecipe().getId());
     }
 
     // Utility method to map Review entity to ReviewDTO
     private ReviewDTO mapEntityToDTO(Review review) {
+        return mapEntityToDTO(review, review.getUser().getUsername());
+    }
+
+    private ReviewDTO mapEntityToDTO(Review review, String username) {
         ReviewDTO dto = new ReviewDTO();
         dto.setId(review.getId());
         dto.setRating(review.getRating());
         dto.setComment(review.getComment());
         dto.setUserId(review.getUser().getId());
-        dto.setUsername(review.getUser().getUsername());
+        dto.setUsername(username);
         dto.setRecipeId(review.getRecipe().getId());
         dto.setCreatedAt(review.getCreatedAt());
         return dto;
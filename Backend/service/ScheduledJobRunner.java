@@ -0,0 +1,161 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ScheduledJobDTO;
+import com.example.demo.model.JobRun;
+import com.example.demo.model.SchedulerLock;
+import com.example.demo.repositories.JobRunRepository;
+import com.example.demo.repositories.SchedulerLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Runs cluster-wide jobs on at most one instance at a time.
+ *
+ * Each job has a row in scheduler_locks. Before running, a node tries to push the row's
+ * {@code lockedUntil} to now + lockAtMostFor with a conditional UPDATE; only the node whose
+ * update matched runs the job, the others skip it. When the job ends the lease is cut back to
+ * lockAtLeastFor after it started, so a node whose clock is slightly behind does not run the
+ * same tick again. If a node dies mid-run the lease simply expires. Every run is recorded in
+ * job_runs with its node, duration and outcome.
+ *
+ * Jobs are registered by {@link ClusterJobs}; work that must happen on every node (flushing
+ * in-memory counters, local snapshots) stays on plain {@code @Scheduled}.
+ */
+@Service
+public class ScheduledJobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledJobRunner.class);
+
+    @Autowired
+    private SchedulerLockRepository lockRepository;
+
+    @Autowired
+    private JobRunRepository jobRunRepository;
+
+    // Defaults to pid@hostname.
+    @Value("${jobs.node-id:}")
+    private String nodeId;
+
+    private final Map<String, Registration> jobs = new ConcurrentHashMap<>();
+    private ExecutorService manualRuns;
+
+    @PostConstruct
+    public void start() {
+        if (nodeId.isEmpty()) {
+            nodeId = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        manualRuns = Executors.newSingleThreadExecutor();
+    }
+
+    @PreDestroy
+    public void stop() {
+        manualRuns.shutdownNow();
+    }
+
+    public void register(String name, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        jobs.put(name, new Registration(lockAtMostFor, lockAtLeastFor, task));
+    }
+
+    /**
+     * Runs the job here if no other node holds its lease.
+     *
+     * @return false if the run was skipped because the job is locked elsewhere
+     */
+    public boolean run(String name, JobRun.Trigger trigger) {
+        Registration job = jobs.get(name);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job: " + name);
+        }
+        // The lock columns have second precision on some databases.
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        lockRepository.insertIfAbsent(name);
+        if (lockRepository.acquire(name, now, now.plus(job.lockAtMostFor), nodeId) != 1) {
+            log.debug("Job {} is locked by another node, skipping", name);
+            return false;
+        }
+
+        JobRun run = jobRunRepository.save(new JobRun(name, trigger, nodeId));
+        long start = System.nanoTime();
+        try {
+            job.task.run();
+            run.setOutcome(JobRun.Outcome.SUCCEEDED);
+        } catch (RuntimeException e) {
+            log.error("Job {} failed", name, e);
+            run.setOutcome(JobRun.Outcome.FAILED);
+            String message = String.valueOf(e.getMessage());
+            run.setError(message.length() > 1000 ? message.substring(0, 1000) : message);
+        } finally {
+            run.setFinishedAt(LocalDateTime.now());
+            run.setDurationMs((System.nanoTime() - start) / 1_000_000);
+            jobRunRepository.save(run);
+
+            LocalDateTime releaseAt = now.plus(job.lockAtLeastFor);
+            LocalDateTime current = LocalDateTime.now();
+            lockRepository.release(name, now, releaseAt.isAfter(current) ? releaseAt : current, nodeId);
+        }
+        return true;
+    }
+
+    /**
+     * Starts the job in the background on this node, subject to the same lease.
+     */
+    public void trigger(String name) {
+        if (!jobs.containsKey(name)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job: " + name);
+        }
+        manualRuns.submit(() -> run(name, JobRun.Trigger.MANUAL));
+    }
+
+    public List<ScheduledJobDTO> getJobs() {
+        Map<String, SchedulerLock> locks = lockRepository.findAllById(jobs.keySet()).stream()
+                .collect(Collectors.toMap(SchedulerLock::getName, lock -> lock));
+        return new TreeMap<>(jobs).keySet().stream()
+                .map(name -> {
+                    SchedulerLock lock = locks.get(name);
+                    LocalDateTime lockedUntil = lock != null ? lock.getLockedUntil() : null;
+                    boolean locked = lockedUntil != null && lockedUntil.isAfter(LocalDateTime.now());
+                    return new ScheduledJobDTO(name, locked, locked ? lock.getLockedBy() : null, lockedUntil,
+                            jobRunRepository.findFirstByJobNameOrderByIdDesc(name).orElse(null));
+                })
+                .collect(Collectors.toList());
+    }
+
+    public List<JobRun> getRuns(String name, int limit) {
+        if (!jobs.containsKey(name)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job: " + name);
+        }
+        return jobRunRepository.findByJobNameOrderByIdDesc(name, PageRequest.of(0, limit));
+    }
+
+    private static final class Registration {
+        final Duration lockAtMostFor;
+        final Duration lockAtLeastFor;
+        final Runnable task;
+
+        Registration(Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+            this.lockAtMostFor = lockAtMostFor;
+            this.lockAtLeastFor = lockAtLeastFor;
+            this.task = task;
+        }
+    }
+}
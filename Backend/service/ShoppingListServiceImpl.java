@@ -4,7 +4,6 @@ package com.example.demo.service;
 import com.example.demo.model.ShoppingListItem;
 import com.example.demo.model.User;
 import com.example.demo.repositories.ShoppingListItemRepository;
-import com.example.demo.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -17,27 +16,24 @@ public class ShoppingListServiceImpl implements ShoppingListService {
     private ShoppingListItemRepository shoppingListItemRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUser currentUser;
 
     @Override
     public List<ShoppingListItem> getAllItemsForUser(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = currentUser.referenceFor(userEmail);
         return shoppingListItemRepository.findByUser(user);
     }
 
     @Override
     public ShoppingListItem addItem(String userEmail, ShoppingListItem item) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = currentUser.referenceFor(userEmail);
         item.setUser(user);
         return shoppingListItemRepository.save(item);
     }
 
     @Override
     public ShoppingListItem updateItem(String userEmail, Long itemId, ShoppingListItem itemDetails) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = currentUser.referenceFor(userEmail);
         ShoppingListItem existingItem = shoppingListItemRepository.findByIdAndUser(itemId, user)
                 .orElseThrow(() -> new RuntimeException("Shopping list item not found or unauthorized"));
 
@@ -50,8 +46,7 @@ public class ShoppingListServiceImpl implements ShoppingListService {
 
     @Override
     public void deleteItem(String userEmail, Long itemId) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = currentUser.referenceFor(userEmail);
         ShoppingListItem existingItem = shoppingListItemRepository.findByIdAndUser(itemId, user)
                 .orElseThrow(() -> new RuntimeException("Shopping list item not found or unauthorized"));
         shoppingListItemRepository.delete(existingItem);
@@ -59,11 +54,10 @@ public class ShoppingListServiceImpl implements ShoppingListService {
 
     @Override
     public void bulkDeleteItems(String userEmail, List<Long> itemIds) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = currentUser.referenceFor(userEmail);
         List<ShoppingListItem> items = shoppingListItemRepository.findAllById(itemIds);
         items.stream()
-                .filter(item -> item.getUser().equals(user))
+                .filter(item -> item.getUser().getId().equals(user.getId()))
                 .forEach(shoppingListItemRepository::delete);
     }
 }
@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "moderation.provider", havingValue = "sightengine", matchIfMissing = true)
+public class SightengineModerationProvider implements ImageModerationProvider {
+
+    private static final String ENDPOINT = "https://api.sightengine.com/1.0/check.json";
+    // Only the models the verdict actually looks at.
+    private static final String MODELS = "nudity-2.1,weapon,offensive-2.0,violence,gore-2.0";
+
+    @Value("${sightengine.api.user}")
+    private String sightengineUser;
+
+    @Value("${sightengine.api.secret}")
+    private String sightengineSecret;
+
+    @Value("${moderation.http.timeout-ms:15000}")
+    private long timeoutMs;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    // Uploads the image as multipart/form-data ("media") rather than passing its URL.
+    @Override
+    public JsonNode classify(byte[] image) throws IOException {
+        String boundary = "----moderation" + UUID.randomUUID().toString().replace("-", "");
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 1024);
+        writeField(body, boundary, "models", MODELS);
+        writeField(body, boundary, "api_user", sightengineUser);
+        writeField(body, boundary, "api_secret", sightengineSecret);
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"media\"; filename=\"image\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(image);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(ENDPOINT))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("Sightengine API returned HTTP " + response.statusCode());
+            }
+            return objectMapper.readTree(response.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling Sightengine", e);
+        }
+    }
+
+    private static void writeField(ByteArrayOutputStream body, String boundary, String name, String value) throws IOException {
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.FollowPageDTO;
+import com.example.demo.dto.FollowUserDTO;
+import com.example.demo.dto.UserActivityDTO;
+import com.example.demo.repositories.RecipeRepository;
+import com.example.demo.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Follow edges and the per-user social counters.
+ *
+ * users.follower_count, following_count and public_recipe_count are maintained in the same
+ * transaction as the change they count, through {@link CounterService}, so profiles and the
+ * top creators ranking never load a follow set. Follow and unfollow are a single
+ * INSERT IGNORE / DELETE on user_following whose row count says whether the edge changed, and
+ * only then are the counters moved. {@link #reconcile()} recomputes the counters from the
+ * source tables, both to fill them in for existing data and to correct any drift.
+ *
+ * The top creators ranking is read from the counters every
+ * {@code social.top-creators.refresh-interval-ms} and served from memory in between.
+ */
+@Service
+public class SocialService {
+
+    private static final Logger log = LoggerFactory.getLogger(SocialService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${social.follow-page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${social.follow-page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${social.top-creators.size:50}")
+    private int topCreatorsSize;
+
+    // Users recomputed per transaction by reconcile().
+    @Value("${social.reconcile.chunk-size:1000}")
+    private int reconcileChunkSize;
+
+    private TransactionTemplate transaction;
+    private volatile List<UserActivityDTO> topCreators = Collections.emptyList();
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return false if {@code followerId} already follows {@code followedId}
+     */
+    @Transactional
+    public boolean follow(Long followerId, Long followedId) {
+        if (followerId.equals(followedId)) {
+            throw new RuntimeException("You cannot follow yourself.");
+        }
+        if (!userRepository.existsById(followedId)) {
+            throw new RuntimeException("User to follow not found");
+        }
+        if (userRepository.insertFollow(followerId, followedId) == 0) {
+            return false;
+        }
+        counterService.add(CounterService.Counter.USER_FOLLOWING, followerId, 1);
+        counterService.add(CounterService.Counter.USER_FOLLOWERS, followedId, 1);
+        return true;
+    }
+
+    /**
+     * @return false if {@code followerId} was not following {@code followedId}
+     */
+    @Transactional
+    public boolean unfollow(Long followerId, Long followedId) {
+        if (followerId.equals(followedId)) {
+            throw new RuntimeException("You cannot unfollow yourself.");
+        }
+        if (userRepository.deleteFollow(followerId, followedId) == 0) {
+            return false;
+        }
+        counterService.add(CounterService.Counter.USER_FOLLOWING, followerId, -1);
+        counterService.add(CounterService.Counter.USER_FOLLOWERS, followedId, -1);
+        return true;
+    }
+
+    public boolean isFollowing(Long followerId, Long followedId) {
+        return userRepository.existsFollow(followerId, followedId);
+    }
+
+    /**
+     * Removes every follow edge of a user that is being deleted, adjusting the counters of the
+     * users on the other side.
+     */
+    @Transactional
+    public void removeAllFollows(Long userId) {
+        userRepository.decrementFollowerCountsFollowedBy(userId);
+        userRepository.decrementFollowingCountsFollowing(userId);
+        userRepository.deleteFollowsOf(userId);
+    }
+
+    public FollowPageDTO getFollowers(Long userId, String cursor, Integer limit) {
+        return page(userId, cursor, limit, true);
+    }
+
+    public FollowPageDTO getFollowing(Long userId, String cursor, Integer limit) {
+        return page(userId, cursor, limit, false);
+    }
+
+    private FollowPageDTO page(Long userId, String cursor, Integer limit, boolean followers) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+        int size = limit != null ? Math.max(1, Math.min(limit, maxPageSize)) : defaultPageSize;
+        Long afterId = parseCursor(cursor);
+        // Fetch one extra row to learn whether another page exists.
+        PageRequest window = PageRequest.of(0, size + 1);
+        List<FollowUserDTO> users = followers
+                ? userRepository.findFollowerPage(userId, afterId, window)
+                : userRepository.findFollowingPage(userId, afterId, window);
+
+        boolean hasMore = users.size() > size;
+        if (hasMore) {
+            users = new ArrayList<>(users.subList(0, size));
+        }
+        String nextCursor = hasMore ? String.valueOf(users.get(users.size() - 1).getId()) : null;
+        return new FollowPageDTO(users, nextCursor, hasMore);
+    }
+
+    private static Long parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(cursor.trim());
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /**
+     * Moves the author's public recipe count when a recipe is created, published or unpublished.
+     */
+    @Transactional
+    public void publicRecipeChanged(Long authorId, boolean wasPublic, boolean isPublic) {
+        if (wasPublic != isPublic) {
+            counterService.add(CounterService.Counter.USER_PUBLIC_RECIPES, authorId, isPublic ? 1 : -1);
+        }
+    }
+
+    /**
+     * Takes the public recipes among {@code recipeIds} off their authors' counts; call before
+     * the recipes are deleted.
+     */
+    @Transactional
+    public void publicRecipesDeleted(Collection<Long> recipeIds) {
+        for (Object[] row : recipeRepository.countPublicByAuthorForIds(recipeIds)) {
+            counterService.add(CounterService.Counter.USER_PUBLIC_RECIPES, (Long) row[0],
+                    -((Number) row[1]).intValue());
+        }
+    }
+
+    public List<UserActivityDTO> getTopCreators() {
+        return topCreators;
+    }
+
+    @Scheduled(fixedDelayString = "${social.top-creators.refresh-interval-ms:300000}")
+    public void refreshTopCreators() {
+        topCreators = Collections.unmodifiableList(userRepository.findTopCreators(PageRequest.of(0, topCreatorsSize)));
+    }
+
+    /**
+     * Recomputes every user's social counters from user_following and recipe, one chunk of
+     * user ids per transaction.
+     */
+    public void reconcile() {
+        Long maxId = userRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+        int updated = 0;
+        for (long from = 1; from <= maxId; from += reconcileChunkSize) {
+            long fromId = from;
+            long toId = from + reconcileChunkSize - 1;
+            Integer chunk = transaction.execute(status -> userRepository.reconcileSocialCounters(fromId, toId));
+            updated += chunk != null ? chunk : 0;
+        }
+        log.info("Reconciled social counters of {} users", updated);
+        refreshTopCreators();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Local stand-in for Sightengine ({@code moderation.provider=stub}) for tests and load runs:
+ * answers immediately with a fixed response, by default one with every score at zero.
+ */
+@Component
+@ConditionalOnProperty(name = "moderation.provider", havingValue = "stub")
+public class StubModerationProvider implements ImageModerationProvider {
+
+    @Value("${moderation.stub.response:{}}")
+    private String response;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public JsonNode classify(byte[] image) throws IOException {
+        return objectMapper.readTree(response);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Tokenizer + light stemmer for recipe search, covering English and Russian.
+ *
+ * Text is lower-cased, split on anything that isn't a letter or digit, stop words are dropped
+ * and each token is stemmed by the rules of its script (Cyrillic or Latin). The stemmers are
+ * deliberately conservative suffix strippers: "tomatoes"/"tomato" and "курицы"/"курица" meet,
+ * but nothing shorter than three characters is ever produced.
+ */
+final class TextAnalyzer {
+
+    private static final Set<String> ENGLISH_STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it",
+            "of", "on", "or", "the", "to", "with", "without");
+
+    private static final Set<String> RUSSIAN_STOP_WORDS = Set.of(
+            "и", "в", "во", "на", "с", "со", "из", "по", "для", "без", "к", "ко", "от", "до", "а",
+            "но", "или", "не", "же", "что", "как", "это");
+
+    // Longest first, so "ами" is tried before "и".
+    private static final String[] RUSSIAN_SUFFIXES = {
+            "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ией", "иях",
+            "ой", "ей", "ий", "ый", "ая", "яя", "ое", "ее", "ые", "ие", "ом", "ем", "ах", "ях",
+            "ов", "ев", "ам", "ям", "ую", "юю", "ть",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь"};
+
+    private TextAnalyzer() {
+    }
+
+    static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String term = normalize(lower.substring(start, i));
+                if (term != null) {
+                    terms.add(term);
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static String normalize(String token) {
+        if (ENGLISH_STOP_WORDS.contains(token) || RUSSIAN_STOP_WORDS.contains(token)) {
+            return null;
+        }
+        return isCyrillic(token) ? stemRussian(token) : stemEnglish(token);
+    }
+
+    private static boolean isCyrillic(String token) {
+        return Character.UnicodeBlock.of(token.charAt(0)) == Character.UnicodeBlock.CYRILLIC;
+    }
+
+    private static String stemRussian(String token) {
+        for (String suffix : RUSSIAN_SUFFIXES) {
+            if (token.endsWith(suffix) && token.length() - suffix.length() >= 3) {
+                return token.substring(0, token.length() - suffix.length());
+            }
+        }
+        return token;
+    }
+
+    private static String stemEnglish(String token) {
+        int n = token.length();
+        if (n > 4 && token.endsWith("ies")) {
+            return token.substring(0, n - 3) + "y";
+        }
+        if (n > 4 && (token.endsWith("oes") || token.endsWith("ches") || token.endsWith("shes")
+                || token.endsWith("sses") || token.endsWith("xes"))) {
+            return token.substring(0, n - 2);
+        }
+        if (n > 3 && token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us")) {
+            return token.substring(0, n - 1);
+        }
+        if (n > 5 && token.endsWith("ing")) {
+            return token.substring(0, n - 3);
+        }
+        if (n > 4 && token.endsWith("ed")) {
+            return token.substring(0, n - 2);
+        }
+        return token;
+    }
+}
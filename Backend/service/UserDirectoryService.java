@@ -0,0 +1,91 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AdminUserDTO;
+import com.example.demo.dto.AdminUserPageDTO;
+import com.example.demo.dto.AdminUserQuery;
+import com.example.demo.model.User;
+import com.example.demo.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+
+/**
+ * The paged user listing of the admin dashboard.
+ *
+ * A page is one projection query plus its count; follower and following counts come from the
+ * counters on the users row (see {@link SocialService}). No User entity, follow set or badge
+ * map is loaded.
+ */
+@Service
+public class UserDirectoryService {
+
+    private static final Map<String, String> SORTS = new HashMap<>();
+
+    static {
+        SORTS.put("id", "id");
+        SORTS.put("username", "username");
+        SORTS.put("email", "email");
+        SORTS.put("role", "role");
+        SORTS.put("tier", "subscriptionType");
+        SORTS.put("expiry", "subscriptionExpiry");
+        SORTS.put("followers", "followerCount");
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${admin.users.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${admin.users.page.max-size:200}")
+    private int maxPageSize;
+
+    public AdminUserPageDTO getPage(AdminUserQuery query) {
+        String property = SORTS.get(query.getSort() != null ? query.getSort() : "id");
+        if (property == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort: " + query.getSort());
+        }
+        Sort.Direction direction = "desc".equalsIgnoreCase(query.getDirection()) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        // id breaks ties so that pages do not overlap.
+        Sort sort = property.equals("id")
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, property).and(Sort.by(Sort.Direction.ASC, "id"));
+        int page = query.getPage() != null ? Math.max(0, query.getPage()) : 0;
+        int size = query.getSize() != null ? Math.max(1, Math.min(query.getSize(), maxPageSize)) : defaultPageSize;
+
+        Page<AdminUserDTO> result = userRepository.findAdminPage(blankToNull(query.getRole()), tier(query.getTier()),
+                query.getVerified(), prefixPattern(query.getQ()), PageRequest.of(page, size, sort));
+
+        return new AdminUserPageDTO(result.getContent(), page, size, result.getTotalElements(), result.getTotalPages());
+    }
+
+    private static User.SubscriptionType tier(String tier) {
+        if (tier == null || tier.isBlank()) {
+            return null;
+        }
+        try {
+            return User.SubscriptionType.valueOf(tier.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown tier: " + tier);
+        }
+    }
+
+    // "jo_" -> "jo!_%", matched with ESCAPE '!'
+    private static String prefixPattern(String q) {
+        if (q == null || q.isBlank()) {
+            return null;
+        }
+        return q.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -11,8 +11,6 @@ import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,6 +18,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -32,34 +31,36 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
 
     @Autowired
-    private JavaMailSender mailSender;
-
-    @Autowired
-    private RecipeReportRepository recipeReportRepository;
+    private EmailOutboxService emailOutboxService;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
-    @Autowired
-    private BookRepository bookRepository;
-
     @Autowired
     private RecipeRepository recipeRepository;
 
     @Autowired
-    private MealPlanRepository mealPlanRepository;
+    private RecipeDetailCache recipeDetailCache;
+
+    private AuthenticationManager authenticationManager;
+
+    private JWTGenerator jwtGenerator;
 
     @Autowired
-    private GlobalLeaderboardRepository leaderboardRepository;
+    private VerificationCodeStore verificationCodes;
 
     @Autowired
-    private ChallengeService challengeService;
+    private QuotaService quotaService;
 
-    private AuthenticationManager authenticationManager;
+    @Autowired
+    private CounterService counterService;
 
-    private JWTGenerator jwtGenerator;
+    @Autowired
+    private SocialService socialService;
 
     @Autowired
-    private RecipeSubmissionRepository recipeSubmissionRepository;
+    private AccountDeletionService accountDeletionService;
+
+    private static final Duration CODE_TTL = Duration.ofMinutes(15);
 
 
     public UserServiceImpl(AuthenticationManager authenticationManager, UserRepository userRepository, PasswordEncoder passwordEncoder, JWTGenerator jwtGenerator) {
@@ -96,8 +97,8 @@ public class UserServiceImpl implements UserService {
                 user.getRole(),
                 user.getSubscriptionType().name(),
                 user.getSubscriptionExpiry(),
-                user.getFollowers().size(),
-                user.getFollowing().size()
+                user.getFollowerCount(),
+                user.getFollowingCount()
         );
         createdUser.setImageUri(user.getImageUri());
 
@@ -112,16 +113,10 @@ public class UserServiceImpl implements UserService {
     }
     @Override
     public List<FavoriteRecipeDTO> getFavoriteRecipesByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getFavoriteRecipes().stream()
-                .map(recipe -> new FavoriteRecipeDTO(
-                        recipe.getId(),
-                        recipe.getTitle(),
-                        recipe.getImageUri(),
-                        recipe.getAuthor().getId()
-                ))
-                .collect(Collectors.toList());
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        return recipeRepository.findFavoritesByUserId(userId);
     }
 
     @Override
@@ -148,6 +143,8 @@ public class UserServiceImpl implements UserService {
         // Update only allowed fields
         if (userDTO.getUsername() != null) {
             user.setUsername(userDTO.getUsername());
+            // Cached recipe details embed author and reviewer names.
+            recipeDetailCache.invalidateAllAfterCommit();
         }
         if (userDTO.getPassword() != null) {
             user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
@@ -169,19 +166,15 @@ public class UserServiceImpl implements UserService {
                 user.getRole(),
                 user.getSubscriptionType().name(),
                 user.getSubscriptionExpiry(),
-                user.getFollowers().size(),
-                user.getFollowing().size()
+                user.getFollowerCount(),
+                user.getFollowingCount()
         );
         dto.setImageUri(user.getImageUri());
         dto.setBadges(user.getBadges());
 
         // **Here's the key**:
-        List<Long> followerIds = user.getFollowers().stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
-        List<Long> followingIds = user.getFollowing().stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
+        List<Long> followerIds = userRepository.findFollowerIds(user.getId());
+        List<Long> followingIds = userRepository.findFollowingIds(user.getId());
 
         dto.setFollowerIds(followerIds);
         dto.setFollowingIds(followingIds);
@@ -190,17 +183,10 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void addOrUpdateBadge(Long userId, String badge, int count) {
-        User user = getUserEntityById(userId);
-        // Normalize the badge key (for example, lowercase and trimmed)
-        String badgeKey = badge.trim().toLowerCase();
-        Map<String, Integer> badges = user.getBadges();
-        if (badges == null) {
-            badges = new HashMap<>();
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found with id: " + userId);
         }
-        // Set or update the count
-        badges.put(badgeKey, count);
-        user.setBadges(badges);
-        userRepository.save(user);
+        counterService.setBadge(userId, badge.trim().toLowerCase(), count);
     }
 
     @Override
@@ -216,23 +202,12 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void awardBadgeToUser(String userEmail, String badge) {
-        // Find the user
-        User user = userRepository.findByEmail(userEmail)
+        Long userId = userRepository.findIdByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("❌ User not found: " + userEmail));
 
-        // Ensure badge storage is initialized
-        if (user.getBadges() == null) {
-            user.setBadges(new HashMap<>());
-        }
-
-        // Normalize badge name and increment count
-        String badgeNormalized = badge.trim().toLowerCase();
-        int previousCount = user.getBadges().getOrDefault(badgeNormalized, 0);
-        user.getBadges().put(badgeNormalized, previousCount + 1);
-
-        // Save the updated user
-        userRepository.save(user);
-        System.out.println("🏆 Badge Awarded: " + badge + " to " + user.getEmail() + " (Now has " + (previousCount + 1) + ")");
+        // One upsert, so awards running in parallel for the same user all count.
+        int count = counterService.incrementBadge(userId, badge.trim().toLowerCase());
+        System.out.println("🏆 Badge Awarded: " + badge + " to " + userEmail + " (Now has " + count + ")");
     }
 
 
@@ -262,6 +237,7 @@ public class UserServiceImpl implements UserService {
 
         user.setSubscriptionType(newType);
         user.setSubscriptionExpiry(newExpiry);
+        quotaService.invalidateAfterCommit(user.getId());
 
         // ✅ Reset generation cycle if upgrading
         if (newType != User.SubscriptionType.FREE) {
@@ -285,6 +261,7 @@ public class UserServiceImpl implements UserService {
         user.setEmail(userDTO.getEmail());
         user.setUsername(userDTO.getUsername());
         user.setRole(userDTO.getRole());
+        recipeDetailCache.invalidateAllAfterCommit();
 
         // Password (encoded if not null)
         if (userDTO.getPassword() != null && !userDTO.getPassword().isEmpty()) {
@@ -313,6 +290,7 @@ public class UserServiceImpl implements UserService {
             }
         }
         user.setSubscriptionExpiry(userDTO.getSubscriptionExpiry());
+        quotaService.invalidateAfterCommit(user.getId());
 
         // Profile image URI
         if (userDTO.getImageUri() != null) {
@@ -334,8 +312,8 @@ public class UserServiceImpl implements UserService {
                 user.getRole(),
                 user.getSubscriptionType().name(),
                 user.getSubscriptionExpiry(),
-                user.getFollowers().size(),
-                user.getFollowing().size()
+                user.getFollowerCount(),
+                user.getFollowingCount()
         );
 
         // Set all additional fields
@@ -349,14 +327,10 @@ public class UserServiceImpl implements UserService {
         dto.setVerified(user.isVerified());
 
         // followerIds, followingIds
-        List<Long> followerIds = user.getFollowers().stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
+        List<Long> followerIds = userRepository.findFollowerIds(user.getId());
         dto.setFollowerIds(followerIds);
 
-        List<Long> followingIds = user.getFollowing().stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
+        List<Long> followingIds = userRepository.findFollowingIds(user.getId());
         dto.setFollowingIds(followingIds);
 
         // Badges
@@ -371,76 +345,8 @@ public class UserServiceImpl implements UserService {
     @Transactional
     @Override
     public void deleteUser(Long userId) {
-        // 1) Find the user
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        // 2) Remove all meal plans
-        List<MealPlan> mealPlans = mealPlanRepository.findByUserId(userId);
-        mealPlanRepository.deleteAll(mealPlans);
-        recipeReportRepository.deleteAllByReporter(user);
-
-        // 3) Remove books authored by this user
-        List<Book> books = bookRepository.findByAuthorId(userId);
-        bookRepository.deleteAll(books);  // This ensures no FK violations in `books` table
-
-        List<Recipe> likedRecipes = recipeRepository.findRecipesLikedByUser(userId);
-        for (Recipe recipe : likedRecipes) {
-            recipe.getLikedBy().remove(user);
-            recipe.setLikes(recipe.getLikes() - 1);
-            recipeRepository.save(recipe);
-        }
-
-
-            List<RecipeSubmission> submissions = recipeSubmissionRepository.findByUser(user);
-            if (!submissions.isEmpty()) {
-                recipeSubmissionRepository.deleteAll(submissions);
-
-            }
-
-
-
-
-        leaderboardRepository.deleteByUserEmail(user.getEmail());
-        System.out.println("🚀 User removed from the leaderboard: " + user.getEmail());
-        // 4) Remove all recipes authored by the user
-        List<Recipe> recipes = recipeRepository.findByAuthorId(userId);
-        for (Recipe recipe : recipes) {
-            // 4a) Remove from `book_recipes` before deleting the recipe
-            List<Book> booksContainingRecipe = bookRepository.findBooksByRecipeId(recipe.getId());
-            for (Book book : booksContainingRecipe) {
-                book.getRecipes().remove(recipe);
-                bookRepository.save(book);  // Ensure changes persist
-            }
-
-            // 4b) Remove from users' favorites
-            for (User favoriter : recipe.getFavoritedBy()) {
-                favoriter.getFavoriteRecipes().remove(recipe);
-            }
-            recipe.getFavoritedBy().clear();
-
-            // 4c) Delete the recipe
-            recipeRepository.delete(recipe);
-        }
-
-        // 5) Remove user from all follow relationships
-        for (User followedUser : user.getFollowing()) {
-            followedUser.getFollowers().remove(user);
-            userRepository.save(followedUser);
-        }
-        user.getFollowing().clear();
-
-        for (User follower : user.getFollowers()) {
-            follower.getFollowing().remove(user);
-            userRepository.save(follower);
-        }
-        user.getFollowers().clear();
-        userRepository.save(user);
-
-        // 6) Finally, delete the user
-        userRepository.delete(user);
-
-        challengeService.recalculateLeaderboard();
+        // Disables the account now; its data is removed in the background.
+        accountDeletionService.request(userId);
     }
 
 
@@ -452,16 +358,12 @@ public class UserServiceImpl implements UserService {
         UserDTO dto = new UserDTO(user.getId(), user.getEmail(),
                 user.getUsername(), user.getPassword(), user.getRole(),
                 user.getSubscriptionType().name(), user.getSubscriptionExpiry(),
-                user.getFollowers().size(), user.getFollowing().size());
+                user.getFollowerCount(), user.getFollowingCount());
         dto.setImageUri(user.getImageUri());  // Include the imageUri field
 
         // **Here's the key**:
-        List<Long> followerIds = user.getFollowers().stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
-        List<Long> followingIds = user.getFollowing().stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
+        List<Long> followerIds = userRepository.findFollowerIds(user.getId());
+        List<Long> followingIds = userRepository.findFollowingIds(user.getId());
         dto.setBadges(user.getBadges());
 
         dto.setFollowerIds(followerIds);
@@ -491,8 +393,8 @@ public class UserServiceImpl implements UserService {
                 user.getRole(),
                 user.getSubscriptionType().name(),
                 user.getSubscriptionExpiry(),
-                user.getFollowers().size(),
-                user.getFollowing().size()
+                user.getFollowerCount(),
+                user.getFollowingCount()
         );
 
         dto.setImageUri(user.getImageUri());
@@ -500,12 +402,8 @@ public class UserServiceImpl implements UserService {
         dto.setBadges(user.getBadges());
 
 
-        List<Long> followerIds = user.getFollowers().stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
-        List<Long> followingIds = user.getFollowing().stream()
-                .map(User::getId)
-                .collect(Collectors.toList());
+        List<Long> followerIds = userRepository.findFollowerIds(user.getId());
+        List<Long> followingIds = userRepository.findFollowingIds(user.getId());
 
         dto.setFollowerIds(followerIds);
         dto.setFollowingIds(followingIds);
@@ -520,8 +418,8 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findByEmail(name)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return new UserDTO(user.getId(), user.getEmail(),
-                user.getUsername(), user.getPassword(),user.getRole(), user.getSubscriptionType().name(), user.getSubscriptionExpiry(),user.getFollowers().size(),
-                user.getFollowing().size());
+                user.getUsername(), user.getPassword(),user.getRole(), user.getSubscriptionType().name(), user.getSubscriptionExpiry(),user.getFollowerCount(),
+                user.getFollowingCount());
 
     }
     @Override
@@ -542,62 +440,45 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public void resendOtp(String email) {
-        User user = userRepository.findByEmail(email)
+        boolean verified = userRepository.findVerifiedByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
 
         // If user is already verified, no need to resend
-        if (user.isVerified()) {
+        if (verified) {
             throw new RuntimeException("User is already verified.");
         }
 
-        // Check if existing OTP is still valid or expired
-        boolean otpExpiredOrNull = (user.getOtpCode() == null
-                || user.getOtpExpiry() == null
-                || user.getOtpExpiry().isBefore(LocalDateTime.now()));
-
-        // If expired or missing, generate a new OTP
-        if (otpExpiredOrNull) {
-            String newCode = generateRandomSixDigitCode();
-            user.setOtpCode(newCode);
-            user.setOtpExpiry(LocalDateTime.now().plusMinutes(15));
-        }
-        // else, we keep the current code & expiry
-
-        // Save any changes
-        userRepository.save(user);
-
-        // Re-send via email
-        sendOtpEmail(user.getEmail(), user.getOtpCode());
+        // Re-send the current code, or a new one if it expired
+        sendOtpEmail(email, liveOrNewOtp(email));
     }
 
     @Override
     @Transactional
     public void verifyOtp(String email, String otpCode) {
-        // 1) Load user by email
-        User user = userRepository.findByEmail(email)
+        // 1) Check if user is already verified
+        boolean verified = userRepository.findVerifiedByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-
-        // 2) Check if user is already verified
-        if (user.isVerified()) {
+        if (verified) {
             throw new RuntimeException("User already verified.");
         }
 
-        // 3) Check OTP match & expiry
-        if (user.getOtpCode() == null || !user.getOtpCode().equals(otpCode)) {
-            throw new RuntimeException("Invalid Verification code");
+        // 2) Check OTP match & expiry
+        switch (verificationCodes.verify(otpKey(email), otpCode)) {
+            case MATCH:
+                break;
+            case MISMATCH:
+                throw new RuntimeException("Invalid Verification code");
+            case LOCKED:
+                throw new RuntimeException("Too many attempts. Please request a new verification code.");
+            default:
+                throw new RuntimeException("Verification code expired. Please request a new one.");
         }
-        if (user.getOtpExpiry() == null || user.getOtpExpiry().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("Verification code expired. Please request a new one.");
-        }
-
-        // 4) If valid => mark verified
-        user.setVerified(true);
-        // Optional: clear the OTP fields
-        user.setOtpCode(null);
-        user.setOtpExpiry(null);
 
-        userRepository.save(user);
+        // 3) If valid => mark verified and drop the code
+        userRepository.markVerified(email);
+        verificationCodes.remove(otpKey(email));
     }
 
     @Override
@@ -619,17 +500,11 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public List<FavoriteRecipeDTO> getFavoriteRecipes(String userEmail) {
-        User user = userRepository.findWithFavoritesByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        return user.getFavoriteRecipes().stream()
-                .map(recipe -> new FavoriteRecipeDTO(
-                        recipe.getId(),
-                        recipe.getTitle(),
-                        recipe.getImageUri(),
-                        recipe.getAuthor().getId() // Populate authorId
-                ))
-                .collect(Collectors.toList());
+        if (!userRepository.existsByEmail(userEmail)) {
+            throw new RuntimeException("User not found");
+        }
+        // Projection: the favorite recipes themselves are never hydrated.
+        return recipeRepository.findFavoritesByUserEmail(userEmail);
     }
     @Override
     public List<UserDTO> getAllUsers() {
@@ -638,29 +513,22 @@ public class UserServiceImpl implements UserService {
                     user.getId(),
                     user.getEmail(),
                     user.getUsername(),
-                    user.getPassword(),
+                    null,
                     user.getRole(),
                     user.getSubscriptionType().name(),
                     user.getSubscriptionExpiry(),
-                    user.getFollowers().size(),
-                    user.getFollowing().size()
+                    user.getFollowerCount(),
+                    user.getFollowingCount()
             );
             dto.setImageUri(user.getImageUri());
             // Map the verified field
             dto.setVerified(user.isVerified());
 
-            List<Long> followerIds = user.getFollowers().stream()
-                    .map(User::getId)
-                    .collect(Collectors.toList());
-            List<Long> followingIds = user.getFollowing().stream()
-                    .map(User::getId)
-                    .collect(Collectors.toList());
+            List<Long> followerIds = userRepository.findFollowerIds(user.getId());
+            List<Long> followingIds = userRepository.findFollowingIds(user.getId());
             dto.setStripeCustomerId(user.getStripeCustomerId());
             dto.setRecipeGenerationCount(user.getRecipeGenerationCount());
             dto.setRecipeGenerationCycleStart(user.getRecipeGenerationCycleStart());
-            dto.setResetToken(user.getResetToken());
-            dto.setResetTokenExpiry(user.getResetTokenExpiry());
-            dto.setResetTokenVerified(user.isResetTokenVerified());
             dto.setFollowerIds(followerIds);
             dto.setFollowingIds(followingIds);
             return dto;
@@ -698,14 +566,13 @@ public class UserServiceImpl implements UserService {
         newUser.setPassword(passwordEncoder.encode(userDTO.getPassword()));
         newUser.setVerified(false);
         newUser.setRole(userDTO.getRole());
-        // Generate a fresh OTP code (6 digits) & expiry
-        String otp = generateRandomSixDigitCode();
-        newUser.setOtpCode(otp);
-        newUser.setOtpExpiry(LocalDateTime.now().plusMinutes(15));
-
         // Save user
         newUser = userRepository.save(newUser);
 
+        // Generate a fresh OTP code (6 digits) & expiry
+        String otp = generateRandomSixDigitCode();
+        verificationCodes.put(otpKey(newUser.getEmail()), otp, CODE_TTL);
+
         // Send OTP email
         sendOtpEmail(newUser.getEmail(), otp);
 
@@ -718,27 +585,34 @@ public class UserServiceImpl implements UserService {
                 newUser.getRole(),
                 newUser.getSubscriptionType().name(),
                 newUser.getSubscriptionExpiry(),
-                newUser.getFollowers().size(),
-                newUser.getFollowing().size()
+                newUser.getFollowerCount(),
+                newUser.getFollowingCount()
         );
     }
 
     private void resendOtpInternal(User user) {
-        // If old OTP is expired or null, generate a new one
-        if (user.getOtpCode() == null
-                || user.getOtpExpiry() == null
-                || user.getOtpExpiry().isBefore(LocalDateTime.now())) {
-            String newCode = generateRandomSixDigitCode();
-            user.setOtpCode(newCode);
-            user.setOtpExpiry(LocalDateTime.now().plusMinutes(15));
-            userRepository.save(user);
+        sendOtpEmail(user.getEmail(), liveOrNewOtp(user.getEmail()));
+    }
+
+    // The unexpired OTP for this email, or a new one if it expired or was never issued.
+    private String liveOrNewOtp(String email) {
+        String code = verificationCodes.find(otpKey(email));
+        if (code == null) {
+            code = generateRandomSixDigitCode();
+            verificationCodes.put(otpKey(email), code, CODE_TTL);
         }
-        // re-send whatever OTP they have
-        sendOtpEmail(user.getEmail(), user.getOtpCode());
+        return code;
+    }
+
+    static String otpKey(String email) {
+        return "otp:" + email;
+    }
+
+    static String resetKey(String email) {
+        return "reset:" + email;
     }
 
-    // HELPER: send verification email
-    // Helper to send email
+    // HELPER: queue verification email
     private void sendOtpEmail(String toEmail, String otp) {
         String subject = "Your Verification Code (Resent)";
         String message = "Welcome to LeGourmand app"
@@ -746,11 +620,7 @@ public class UserServiceImpl implements UserService {
                 + "\nIt expires in 15 minutes."
                 + "\nIf you didn't request this, ignore this email.";
 
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setTo(toEmail);
-        mailMessage.setSubject(subject);
-        mailMessage.setText(message);
-        mailSender.send(mailMessage);
+        emailOutboxService.enqueue(toEmail, subject, message, "otp:" + toEmail + ":" + otp);
     }
 
 
@@ -758,6 +628,9 @@ public class UserServiceImpl implements UserService {
     public UserDTO loginUser(String email, String password) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Invalid credentials"));
+        if (user.isDisabled()) {
+            throw new RuntimeException("This account has been disabled.");
+        }
         if (!user.isVerified()) {
             throw new RuntimeException("Email not verified. Please verify your email before logging in.");
         }
@@ -768,8 +641,8 @@ public class UserServiceImpl implements UserService {
 
 
         return new UserDTO(user.getId(), user.getEmail(),
-                user.getUsername(), user.getPassword(),user.getRole(), user.getSubscriptionType().name(), user.getSubscriptionExpiry(),user.getFollowers().size(),
-                user.getFollowing().size());
+                user.getUsername(), user.getPassword(),user.getRole(), user.getSubscriptionType().name(), user.getSubscriptionExpiry(),user.getFollowerCount(),
+                user.getFollowingCount());
     }
 
     @Override
@@ -800,6 +673,8 @@ public class UserServiceImpl implements UserService {
             user.setSubscriptionType(User.SubscriptionType.FREE);
             user.setSubscriptionExpiry(null);
             userRepository.save(user);
+        } else if (user.isDisabled()) {
+            throw new RuntimeException("This account has been disabled.");
         }
 
         // 3) Generate your own JWT using the existing logic
@@ -847,79 +722,58 @@ public class UserServiceImpl implements UserService {
         return String.valueOf(code);
     }
     private void sendResetEmail(String toEmail, String code) {
-        // Pseudo code for sending email (configure with your actual mail provider)
-
-    SimpleMailMessage message = new SimpleMailMessage();
-    message.setTo(toEmail);
-    message.setSubject("Your Password Reset Code");
-    message.setText("Your password reset code is: " + code + "\nIt will expire in 15 minutes.");
-    mailSender.send(message);
-
-
+        emailOutboxService.enqueue(toEmail, "Your Password Reset Code",
+                "Your password reset code is: " + code + "\nIt will expire in 15 minutes.",
+                "reset:" + toEmail + ":" + code);
     }
 
     @Override
     @Transactional
     public void requestPasswordResetMultiStep(String email) {
         // 1) Lookup user
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("No user found with that email"));
+        if (!userRepository.existsByEmail(email)) {
+            throw new RuntimeException("No user found with that email");
+        }
 
-        // 2) Generate code + set 15-minute expiry
+        // 2) Generate code + set 15-minute expiry; replaces any earlier code
         String resetCode = generateRandomSixDigitCode();
-        user.setResetToken(resetCode);
-        user.setResetTokenExpiry(LocalDateTime.now().plusMinutes(15));
-        user.setResetTokenVerified(false); // Not yet verified
-
-        userRepository.save(user);
+        verificationCodes.put(resetKey(email), resetCode, CODE_TTL);
 
         // 3) Send code via email
-        sendResetEmail(user.getEmail(), resetCode);
+        sendResetEmail(email, resetCode);
     }
 
     @Override
     @Transactional
     public void verifyResetCode(String email, String code) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("No user found with that email"));
-
-        // Check if code matches
-        if (!code.equals(user.getResetToken())) {
-            throw new RuntimeException("Invalid or expired reset code");
+        // A match marks the code verified until it expires
+        switch (verificationCodes.verify(resetKey(email), code)) {
+            case MATCH:
+                break;
+            case MISMATCH:
+                throw new RuntimeException("Invalid or expired reset code");
+            case LOCKED:
+                throw new RuntimeException("Too many attempts. Please request a new reset code.");
+            default:
+                throw new RuntimeException("Reset code has expired");
         }
-        // Check if not expired
-        if (user.getResetTokenExpiry() == null || user.getResetTokenExpiry().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("Reset code has expired");
-        }
-
-        // If we got here, code is valid => mark verified
-        user.setResetTokenVerified(true);
-        userRepository.save(user);
     }
 
     @Override
     @Transactional
     public void updatePasswordAfterVerification(String email, String newPassword) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("No user found with that email"));
-
-        // Make sure the user is verified and code hasn’t expired
-        if (!user.isResetTokenVerified()) {
-            throw new RuntimeException("Reset code not verified yet");
-        }
-        if (user.getResetTokenExpiry() == null || user.getResetTokenExpiry().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("Reset code has expired");
+        // Make sure the code was verified and hasn’t expired
+        if (!verificationCodes.isVerified(resetKey(email))) {
+            throw new RuntimeException("Reset code not verified yet or expired");
         }
 
         // Update password
-        user.setPassword(passwordEncoder.encode(newPassword));
-
-        // Clear out reset fields
-        user.setResetToken(null);
-        user.setResetTokenExpiry(null);
-        user.setResetTokenVerified(false);
+        if (userRepository.updatePassword(email, passwordEncoder.encode(newPassword)) == 0) {
+            throw new RuntimeException("No user found with that email");
+        }
 
-        userRepository.save(user);
+        // The code is single use
+        verificationCodes.remove(resetKey(email));
     }
 
     /** Helper to generate a random 6-digit code as a string */
@@ -932,28 +786,12 @@ public class UserServiceImpl implements UserService {
         if (currentUserEmail == null) {
             throw new RuntimeException("Not logged in");
         }
-
-        User currentUser = userRepository.findByEmail(currentUserEmail)
+        Long currentUserId = userRepository.findIdByEmail(currentUserEmail)
                 .orElseThrow(() -> new RuntimeException("Current user not found"));
 
-        if (currentUser.getId().equals(userIdToFollow)) {
-            throw new RuntimeException("You cannot follow yourself.");
-        }
-
-        User userToFollow = userRepository.findById(userIdToFollow)
-                .orElseThrow(() -> new RuntimeException("User to follow not found"));
-
-        // Check if already following
-        if (currentUser.getFollowing().contains(userToFollow)) {
+        if (!socialService.follow(currentUserId, userIdToFollow)) {
             throw new RuntimeException("Already following this user");
         }
-
-
-        currentUser.getFollowing().add(userToFollow);
-
-
-        userRepository.save(currentUser);
-
     }
 
     @Transactional
@@ -961,27 +799,12 @@ public class UserServiceImpl implements UserService {
         if (currentUserEmail == null) {
             throw new RuntimeException("Not logged in");
         }
-
-        User currentUser = userRepository.findByEmail(currentUserEmail)
+        Long currentUserId = userRepository.findIdByEmail(currentUserEmail)
                 .orElseThrow(() -> new RuntimeException("Current user not found"));
 
-        if (currentUser.getId().equals(userIdToUnfollow)) {
-            throw new RuntimeException("You cannot unfollow yourself.");
-        }
-
-        User userToUnfollow = userRepository.findById(userIdToUnfollow)
-                .orElseThrow(() -> new RuntimeException("User to unfollow not found"));
-
-        // Check if actually following
-        if (!currentUser.getFollowing().contains(userToUnfollow)) {
+        if (!socialService.unfollow(currentUserId, userIdToUnfollow)) {
             throw new RuntimeException("You are not following this user");
         }
-
-        // Remove from the following set
-        currentUser.getFollowing().remove(userToUnfollow);
-        // userToUnfollow.getFollowers().remove(currentUser);
-
-        userRepository.save(currentUser);
     }
 
 }
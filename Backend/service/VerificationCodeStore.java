@@ -0,0 +1,40 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+
+/**
+ * Short-lived one-time codes (email verification, password reset) kept outside the users table.
+ *
+ * Each key holds at most one code with an expiry and a count of wrong guesses; after
+ * {@code codes.max-attempts} wrong guesses the code is dropped and a new one has to be
+ * requested. Expired codes are swept periodically. Select the backing with {@code codes.store}:
+ * {@code memory} (default, single node) or {@code database} (shared by all nodes).
+ */
+public interface VerificationCodeStore {
+
+    enum Result { MATCH, MISMATCH, EXPIRED, LOCKED }
+
+    /**
+     * Stores {@code code} under {@code key}, replacing any previous code and its attempts.
+     */
+    void put(String key, String code, Duration ttl);
+
+    /**
+     * @return the live code for {@code key}, or null if there is none
+     */
+    String find(String key);
+
+    /**
+     * Checks a guess. A match marks the code as verified; a miss counts as an attempt.
+     *
+     * @return EXPIRED if there is no live code for the key
+     */
+    Result verify(String key, String code);
+
+    /**
+     * Whether the live code for {@code key} has been matched by {@link #verify}.
+     */
+    boolean isVerified(String key);
+
+    void remove(String key);
+}